@@ -0,0 +1,165 @@
+package com.example.ecolens;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.os.Debug;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.tensorflow.lite.Interpreter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Side-by-side comparison of the classifier backends on a fixed, deterministic image set:
+ * latency (median / p90 per image), memory (Java + native heap growth from creation through the
+ * runs) and label parity against the raw Interpreter backend.
+ *
+ * Run with {@code ./gradlew connectedAndroidTest} and read the "BackendBenchmark" logcat tag.
+ */
+@RunWith(AndroidJUnit4.class)
+public class BackendBenchmarkTest {
+
+    private static final String TAG = "BackendBenchmark";
+
+    private static final int IMAGE_COUNT = 16;
+    private static final int IMAGE_SIZE = 512;
+    private static final int WARM_UP_RUNS = 3;
+    private static final int THREADS = 2;
+
+    private ModelRegistry.Model model;
+    private final List<Bitmap> images = new ArrayList<>();
+
+    @Before
+    public void setUp() throws Exception {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        model = new ModelRegistry(context).asset(ModelRegistry.BUNDLED_MODEL);
+        Random random = new Random(7); // same images on every run and device
+        for (int i = 0; i < IMAGE_COUNT; i++) {
+            images.add(probeImage(random, i, IMAGE_SIZE));
+        }
+    }
+
+    @After
+    public void tearDown() {
+        for (Bitmap b : images) b.recycle();
+    }
+
+    @Test
+    public void compareBackends() {
+        Report reference = measure(() -> new ModelSlot(model.buffer, model.version,
+                new Interpreter.Options().setNumThreads(THREADS)));
+        Report library = measure(() -> new TaskLibraryBackend(model.buffer, THREADS));
+
+        int agree = 0;
+        float maxDelta = 0f;
+        for (int i = 0; i < IMAGE_COUNT; i++) {
+            float[] a = reference.scores[i];
+            float[] b = library.scores[i];
+            assertEquals(ClassificationResult.LABELS.length, b.length);
+            if (argmax(a) == argmax(b)) agree++;
+            for (int j = 0; j < a.length; j++) maxDelta = Math.max(maxDelta, Math.abs(a[j] - b[j]));
+        }
+
+        Log.i(TAG, reference.toString());
+        Log.i(TAG, library.toString());
+        Log.i(TAG, String.format(Locale.US, "parity: %d/%d same label, max score delta %.4f",
+                agree, IMAGE_COUNT, maxDelta));
+    }
+
+    /** Latency and memory figures for one backend, plus its scores for the parity check. */
+    private static final class Report {
+        String name;
+        long createMs;
+        double medianMs;
+        double p90Ms;
+        long javaHeapKb;
+        long nativeHeapKb;
+        float[][] scores;
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%-16s create=%dms median=%.2fms p90=%.2fms javaHeap=+%dKB nativeHeap=+%dKB",
+                    name, createMs, medianMs, p90Ms, javaHeapKb, nativeHeapKb);
+        }
+    }
+
+    private interface BackendFactory {
+        ClassifierBackend create();
+    }
+
+    private Report measure(BackendFactory factory) {
+        Runtime rt = Runtime.getRuntime();
+        System.gc();
+        long javaBefore = rt.totalMemory() - rt.freeMemory();
+        long nativeBefore = Debug.getNativeHeapAllocatedSize();
+
+        long start = System.nanoTime();
+        ClassifierBackend backend = factory.create();
+        Report report = new Report();
+        report.createMs = (System.nanoTime() - start) / 1_000_000;
+        report.name = backend.name();
+
+        try {
+            for (int i = 0; i < WARM_UP_RUNS; i++) backend.warmUp();
+
+            long[] times = new long[IMAGE_COUNT];
+            report.scores = new float[IMAGE_COUNT][];
+            for (int i = 0; i < IMAGE_COUNT; i++) {
+                long t = System.nanoTime();
+                report.scores[i] = backend.scores(images.get(i));
+                times[i] = System.nanoTime() - t;
+            }
+            Arrays.sort(times);
+            report.medianMs = times[IMAGE_COUNT / 2] / 1e6;
+            report.p90Ms = times[(int) (IMAGE_COUNT * 0.9)] / 1e6;
+
+            report.javaHeapKb = (rt.totalMemory() - rt.freeMemory() - javaBefore) / 1024;
+            report.nativeHeapKb = (Debug.getNativeHeapAllocatedSize() - nativeBefore) / 1024;
+        } finally {
+            backend.close();
+        }
+        return report;
+    }
+
+    private static int argmax(float[] scores) {
+        int best = 0;
+        for (int i = 1; i < scores.length; i++) {
+            if (scores[i] > scores[best]) best = i;
+        }
+        return best;
+    }
+
+    /** Deterministic input: alternating smooth gradients and blocky noise, so both backends see varied pixels. */
+    private static Bitmap probeImage(Random random, int index, int size) {
+        int[] pixels = new int[size * size];
+        int base = random.nextInt(0xFFFFFF);
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                int rgb;
+                if (index % 2 == 0) {
+                    int r = (x * 255 / size + (base >> 16)) & 0xFF;
+                    int g = (y * 255 / size + (base >> 8)) & 0xFF;
+                    int b = ((x + y) * 127 / size + base) & 0xFF;
+                    rgb = (r << 16) | (g << 8) | b;
+                } else {
+                    rgb = ((x / 8 + y / 8) % 2 == 0) ? random.nextInt(0xFFFFFF) : base;
+                }
+                pixels[y * size + x] = 0xFF000000 | rgb;
+            }
+        }
+        return Bitmap.createBitmap(pixels, size, size, Bitmap.Config.ARGB_8888);
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.ecolens;
+
+/**
+ * Multi-select state of the report form's category buttons: any combination of Air/Soil/Water,
+ * or "Other" on its own. Pure Java so it can be tested and benchmarked on the JVM.
+ */
+public class CategorySelection {
+
+    private boolean isAir = false;
+    private boolean isSoil = false;
+    private boolean isWater = false;
+    private boolean isOther = false;
+
+    /** Toggles the category named by a button tag ("Air", "Soil", "Water" or "Other"). */
+    public void toggle(String tag) {
+        switch (tag) {
+            case "Other":
+                // Toggle Other. If turning ON, clear Air/Soil/Water
+                if (!isOther) {
+                    isOther = true;
+                    isAir = isSoil = isWater = false;
+                } else {
+                    isOther = false;
+                }
+                break;
+            case "Air":
+                if (isOther) isOther = false;
+                isAir = !isAir;
+                break;
+            case "Soil":
+                if (isOther) isOther = false;
+                isSoil = !isSoil;
+                break;
+            case "Water":
+                if (isOther) isOther = false;
+                isWater = !isWater;
+                break;
+        }
+    }
+
+    public boolean isSelected(String tag) {
+        switch (tag) {
+            case "Air": return isAir;
+            case "Soil": return isSoil;
+            case "Water": return isWater;
+            case "Other": return isOther;
+            default: return false;
+        }
+    }
+
+    /**
+     * Category string stored on the report, in the same form as the model labels
+     * (e.g. "Air+Water"); empty if nothing is selected.
+     */
+    public String toCategoryString() {
+        if (isOther) return "Other";
+
+        StringBuilder sb = new StringBuilder();
+        // Consistent order: Air, Soil, Water
+        if (isAir) sb.append("Air");
+        if (isSoil) {
+            if (sb.length() > 0) sb.append("+");
+            sb.append("Soil");
+        }
+        if (isWater) {
+            if (sb.length() > 0) sb.append("+");
+            sb.append("Water");
+        }
+        return sb.toString();
+    }
+}
@@ -117,7 +117,7 @@ public class Chat extends AppCompatActivity {
         }
 
         // Initialize Firestore and message list
-        db = FirebaseFirestore.getInstance();
+        db = FirestoreProvider.get();
         chatMessages = new ArrayList<>();
 
         // Get current user id (may be null if not signed in)
@@ -154,12 +154,10 @@ public class ChatAdapter extends RecyclerView.Adapter<ChatAdapter.ViewHolder> {
     }
 
     public void removeMessageById(String id) {
-        for (int i = 0; i < chatMessages.size(); i++) {
-            if (id.equals(chatMessages.get(i).getId())) {
-                chatMessages.remove(i);
-                notifyItemRemoved(i);
-                return;
-            }
+        int i = ChatMessageList.indexOfId(chatMessages, id);
+        if (i >= 0) {
+            chatMessages.remove(i);
+            notifyItemRemoved(i);
         }
     }
 
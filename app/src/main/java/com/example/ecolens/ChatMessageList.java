@@ -0,0 +1,19 @@
+package com.example.ecolens;
+
+import java.util.List;
+
+/** List operations behind {@link ChatAdapter}, kept free of Android types for JVM benchmarks. */
+public final class ChatMessageList {
+
+    private ChatMessageList() {}
+
+    /** Position of the message with {@code id}, or -1. */
+    public static int indexOfId(List<ChatMessage> messages, String id) {
+        for (int i = 0; i < messages.size(); i++) {
+            if (id.equals(messages.get(i).getId())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
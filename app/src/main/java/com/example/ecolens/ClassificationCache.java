@@ -0,0 +1,66 @@
+package com.example.ecolens;
+
+import java.io.File;
+import java.util.concurrent.Executor;
+
+/**
+ * Small disk-backed LRU cache of classification results, keyed by image content hash + model
+ * version, so re-selecting an identical photo skips inference.
+ *
+ * Stored in a {@link PersistedLru} (about 200 bytes per entry, ~50 KB at 256), so a burst of
+ * inserts (a multi-photo pick) costs one background write and the inference thread never waits on
+ * disk. Pure Java; thread-safe.
+ */
+public class ClassificationCache {
+
+    // Line format: key \t label \t index \t confidence \t score,score,...
+    private static final PersistedLru.Codec<ClassificationResult> CODEC = new PersistedLru.Codec<ClassificationResult>() {
+        @Override
+        public String encode(ClassificationResult r) {
+            StringBuilder sb = new StringBuilder(200);
+            sb.append(r.label).append('\t').append(r.index).append('\t').append(r.confidence).append('\t');
+            for (int i = 0; i < r.scores.length; i++) {
+                if (i > 0) sb.append(',');
+                sb.append(r.scores[i]);
+            }
+            return sb.toString();
+        }
+
+        @Override
+        public ClassificationResult decode(String text) {
+            String[] parts = text.split("\t");
+            if (parts.length != 4) return null;
+            String[] rawScores = parts[3].split(",");
+            float[] scores = new float[rawScores.length];
+            for (int i = 0; i < scores.length; i++) scores[i] = Float.parseFloat(rawScores[i]);
+            return new ClassificationResult(parts[0], Float.parseFloat(parts[2]), Integer.parseInt(parts[1]), scores);
+        }
+    };
+
+    private final PersistedLru<ClassificationResult> entries;
+
+    public ClassificationCache(File file, int maxEntries) {
+        this.entries = new PersistedLru<>(file, maxEntries, CODEC);
+    }
+
+    /** {@code saveExecutor} runs the (debounced) rewrites; see {@link PersistedLru}. */
+    ClassificationCache(File file, int maxEntries, Executor saveExecutor) {
+        this.entries = new PersistedLru<>(file, maxEntries, CODEC, saveExecutor);
+    }
+
+    public static String key(String contentHash, String modelVersion) {
+        return contentHash + "@" + modelVersion;
+    }
+
+    public ClassificationResult get(String key) {
+        return entries.get(key);
+    }
+
+    public void put(String key, ClassificationResult result) {
+        entries.put(key, result);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+}
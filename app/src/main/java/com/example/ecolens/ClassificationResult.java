@@ -0,0 +1,67 @@
+package com.example.ecolens;
+
+/**
+ * Post-processed model output: the winning label (or the fallback when the model is not confident
+ * enough) plus the raw per-label scores. Pure Java so the argmax/threshold step can be tested on the JVM.
+ */
+public final class ClassificationResult {
+
+    public static final String FALLBACK_LABEL = "Other";
+
+    // Assumed model labels order — change if your model uses a different label order:
+    public static final String[] LABELS = new String[]{
+            "Air", "Soil", "Water", "Air+Soil", "Air+Water", "Soil+Water", "Air+Soil+Water"
+    };
+
+    public final String label;
+    public final float confidence;
+    public final int index;          // argmax over scores, even when label fell back to "Other"
+    public final float[] scores;
+
+    public ClassificationResult(String label, float confidence, int index, float[] scores) {
+        this.label = label;
+        this.confidence = confidence;
+        this.index = index;
+        this.scores = scores;
+    }
+
+    /**
+     * Picks the highest-scoring label; if its score is below {@code threshold} the result is
+     * {@link #FALLBACK_LABEL}. {@code scores} is kept by reference, so pass a copy if the
+     * caller reuses its output array.
+     */
+    public static ClassificationResult fromScores(float[] scores, String[] labels, float threshold) {
+        if (scores.length == 0 || scores.length > labels.length) {
+            throw new IllegalArgumentException("expected 1.." + labels.length + " scores, got " + scores.length);
+        }
+        int maxIdx = 0;
+        float maxScore = scores[0];
+        for (int i = 1; i < scores.length; i++) {
+            if (scores[i] > maxScore) {
+                maxScore = scores[i];
+                maxIdx = i;
+            }
+        }
+        String label = (maxScore >= threshold) ? labels[maxIdx] : FALLBACK_LABEL;
+        return new ClassificationResult(label, maxScore, maxIdx, scores);
+    }
+
+    /**
+     * Report-level result for several photos of the same scene: per-label scores are averaged over
+     * all images and then thresholded like {@link #fromScores}, so one confident outlier photo
+     * cannot outvote the rest.
+     */
+    public static ClassificationResult fromBatch(float[][] scores, String[] labels, float threshold) {
+        if (scores.length == 0) throw new IllegalArgumentException("no scores");
+        int n = scores[0].length;
+        float[] mean = new float[n];
+        for (float[] s : scores) {
+            if (s.length != n) {
+                throw new IllegalArgumentException("score arrays differ in length: " + s.length + " vs " + n);
+            }
+            for (int i = 0; i < n; i++) mean[i] += s[i];
+        }
+        for (int i = 0; i < n; i++) mean[i] /= scores.length;
+        return fromScores(mean, labels, threshold);
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.ecolens;
+
+import android.graphics.Bitmap;
+
+/**
+ * One way of turning a Bitmap into per-label scores with a given model. Implementations hold
+ * native resources and are not thread-safe; use one instance per thread.
+ *
+ * {@link ModelSlot} is the production backend (hand-rolled preprocessing on a raw Interpreter, plus
+ * batching). {@link TaskLibraryBackend} uses the TFLite Task/Support libraries and exists so the two
+ * can be compared on-device (see BackendBenchmarkTest in androidTest).
+ */
+interface ClassifierBackend {
+
+    /** Short identifier for logs and benchmark reports. */
+    String name();
+
+    /** Scores {@code bitmap}; returns a fresh array with one (dequantized) score per label. */
+    float[] scores(Bitmap bitmap);
+
+    /** Runs the model once so first-inference costs are not attributed to a real request. */
+    void warmUp();
+
+    void close();
+}
@@ -67,7 +67,7 @@ public class DailyTips extends AppCompatActivity {
         rvTips.setLayoutManager(new LinearLayoutManager(this));
 
         // Firestore instance
-        firestore = FirebaseFirestore.getInstance();
+        firestore = FirestoreProvider.get();
 
         // Load tips from Firestore
         loadDailyTips();
@@ -182,14 +182,8 @@ public class DailyTips extends AppCompatActivity {
                 long startIndexLong = metaSnapshot.contains("startIndex") ? metaSnapshot.getLong("startIndex") : 0L;
                 long batchSizeLong = metaSnapshot.contains("batchSize") ? metaSnapshot.getLong("batchSize") : 10L;
 
-                int startIndex = (int) (startIndexLong % total);
-                int batchSize = (int) Math.min(batchSizeLong, total);
-
                 // Slice batchSize tips starting at startIndex (with wrap-around)
-                todaysTips.clear();
-                for (int i = 0; i < batchSize; i++) {
-                    todaysTips.add(allTips.get((startIndex + i) % total));
-                }
+                TipRotation.sliceInto(allTips, startIndexLong, batchSizeLong, todaysTips);
 
                 // Show in RecyclerView
                 rvTips.setAdapter(new TipAdapter(this, todaysTips));
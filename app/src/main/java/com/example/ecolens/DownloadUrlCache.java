@@ -0,0 +1,55 @@
+package com.example.ecolens;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.LruCache;
+
+/**
+ * Download URLs of Storage objects by object path, in memory and in SharedPreferences.
+ *
+ * A download URL stays valid until its token is revoked, so it only has to be looked up once per
+ * object; {@link StorageImageLoader} evicts an entry when the URL stops working.
+ */
+final class DownloadUrlCache {
+
+    private static final String PREFS = "storage_urls";
+    private static final int MEMORY_ENTRIES = 256;
+    // Cheap to rebuild, so the disk copy is simply dropped when it grows past this
+    private static final int DISK_ENTRIES = 2000;
+
+    private static DownloadUrlCache instance;
+
+    private final LruCache<String, String> memory = new LruCache<>(MEMORY_ENTRIES);
+    private final SharedPreferences disk;
+
+    static synchronized DownloadUrlCache get(Context context) {
+        if (instance == null) instance = new DownloadUrlCache(context.getApplicationContext());
+        return instance;
+    }
+
+    private DownloadUrlCache(Context context) {
+        disk = context.getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+    }
+
+    /** The cached URL for a Storage path, or null. */
+    String get(String path) {
+        String url = memory.get(path);
+        if (url == null) {
+            url = disk.getString(path, null);
+            if (url != null) memory.put(path, url);
+        }
+        return url;
+    }
+
+    void put(String path, String url) {
+        memory.put(path, url);
+        SharedPreferences.Editor editor = disk.edit();
+        if (disk.getAll().size() >= DISK_ENTRIES) editor.clear();
+        editor.putString(path, url).apply();
+    }
+
+    void remove(String path) {
+        memory.remove(path);
+        disk.edit().remove(path).apply();
+    }
+}
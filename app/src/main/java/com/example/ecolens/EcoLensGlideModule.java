@@ -0,0 +1,28 @@
+package com.example.ecolens;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.Registry;
+import com.bumptech.glide.annotation.GlideModule;
+import com.bumptech.glide.module.AppGlideModule;
+import com.google.firebase.storage.StorageReference;
+
+import java.io.InputStream;
+
+/** App-wide Glide setup: {@code Glide.with(...).load(StorageReference)} for report photos. */
+@GlideModule
+public final class EcoLensGlideModule extends AppGlideModule {
+
+    @Override
+    public void registerComponents(@NonNull Context context, @NonNull Glide glide, @NonNull Registry registry) {
+        registry.append(StorageReference.class, InputStream.class, new StorageImageLoader.Factory(context));
+    }
+
+    @Override
+    public boolean isManifestParsingEnabled() {
+        return false;
+    }
+}
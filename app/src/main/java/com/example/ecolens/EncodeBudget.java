@@ -0,0 +1,96 @@
+package com.example.ecolens;
+
+/**
+ * Finds encoder settings that fit a byte budget: the highest quality (in {@link #QUALITY_STEP}
+ * steps) that fits at full scale, and only if even the minimum quality is too large, a smaller
+ * scale. Encoders are expensive, so the search is a binary search over the quality steps and
+ * usually costs 1-4 encodes.
+ *
+ * The encoder is abstracted so the search can be tested on the JVM with a synthetic size model.
+ */
+public final class EncodeBudget {
+
+    static final int QUALITY_STEP = 5;
+    // Each scale step shrinks both dimensions by this factor
+    static final float SCALE_STEP = 0.75f;
+
+    public interface Encoder {
+        /** Encodes at {@code scale} (1 = as given) and {@code quality} (0..100); returns the size in bytes. */
+        int encode(float scale, int quality) throws Exception;
+    }
+
+    public static final class Choice {
+        public final float scale;
+        public final int quality;
+        public final int bytes;
+        public final boolean withinBudget;
+
+        Choice(float scale, int quality, int bytes, boolean withinBudget) {
+            this.scale = scale;
+            this.quality = quality;
+            this.bytes = bytes;
+            this.withinBudget = withinBudget;
+        }
+
+        @Override
+        public String toString() {
+            return "Choice[scale=" + scale + " quality=" + quality + " bytes=" + bytes
+                    + (withinBudget ? "" : " over budget") + "]";
+        }
+    }
+
+    private EncodeBudget() {}
+
+    /**
+     * @param minScale smallest scale to try; if nothing fits, the result is the encode at the
+     *                 smallest scale tried and {@code minQuality}, with {@code withinBudget == false}
+     * @return the chosen settings; the last {@link Encoder#encode} call always used exactly these,
+     *         so an encoder that keeps its latest output can return it without re-encoding
+     */
+    public static Choice search(Encoder encoder, int budgetBytes, int maxQuality, int minQuality,
+                                float minScale) throws Exception {
+        if (budgetBytes <= 0) throw new IllegalArgumentException("budget " + budgetBytes);
+        if (minQuality < 0 || maxQuality > 100 || minQuality > maxQuality) {
+            throw new IllegalArgumentException("quality range " + minQuality + ".." + maxQuality);
+        }
+        if (minScale <= 0f || minScale > 1f) throw new IllegalArgumentException("minScale " + minScale);
+
+        // Candidate qualities below maxQuality: minQuality, minQuality + STEP, ...
+        int candidates = (maxQuality - minQuality + QUALITY_STEP - 1) / QUALITY_STEP;
+        float scale = 1f;
+        while (true) {
+            int size = encoder.encode(scale, maxQuality);
+            if (size <= budgetBytes) return new Choice(scale, maxQuality, size, true);
+            int lastQuality = maxQuality;
+
+            int lo = 0;
+            int hi = candidates - 1;
+            int best = -1;
+            int bestSize = 0;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                lastQuality = minQuality + mid * QUALITY_STEP;
+                size = encoder.encode(scale, lastQuality);
+                if (size <= budgetBytes) {
+                    best = lastQuality;
+                    bestSize = size;
+                    lo = mid + 1;
+                } else {
+                    hi = mid - 1;
+                }
+            }
+            if (best >= 0) {
+                // A later, larger probe may have replaced the encoder's output
+                if (lastQuality != best) bestSize = encoder.encode(scale, best);
+                return new Choice(scale, best, bestSize, true);
+            }
+
+            float next = scale * SCALE_STEP;
+            if (next < minScale) {
+                // Nothing fits: the last probe was the smallest setting, keep it
+                return new Choice(scale, lastQuality, size, false);
+            }
+            scale = next;
+        }
+    }
+}
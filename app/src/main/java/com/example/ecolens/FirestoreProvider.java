@@ -0,0 +1,115 @@
+package com.example.ecolens;
+
+import android.util.Log;
+
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreSettings;
+import com.google.firebase.firestore.PersistentCacheSettings;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.Source;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * The app's one configured Firestore instance, plus cache-first reads.
+ *
+ * Settings can only be applied before the instance is first used, so every screen and worker
+ * gets Firestore from {@link #get()} rather than {@code FirebaseFirestore.getInstance()}.
+ * {@link #read} shows the locally cached copy at once and then the server's answer if it differs
+ * (stale-while-revalidate), instead of a blank screen until the round trip completes.
+ */
+final class FirestoreProvider {
+
+    private static final String TAG = "FirestoreProvider";
+
+    // Reports, tips and chat are small documents; this holds far more than a user ever browses,
+    // and the SDK evicts least recently used documents beyond it
+    static final long CACHE_SIZE_BYTES = 50L * 1024 * 1024;
+
+    private static FirebaseFirestore instance;
+
+    private FirestoreProvider() {}
+
+    static synchronized FirebaseFirestore get() {
+        if (instance == null) {
+            instance = FirebaseFirestore.getInstance();
+            instance.setFirestoreSettings(new FirebaseFirestoreSettings.Builder()
+                    .setLocalCacheSettings(PersistentCacheSettings.newBuilder()
+                            .setSizeBytes(CACHE_SIZE_BYTES)
+                            .build())
+                    .build());
+        }
+        return instance;
+    }
+
+    /** Results of a cache-first read; all calls on the main thread. */
+    interface Callback<T> {
+        /** The cached result if there is one, then the server's unless it has the same data. */
+        void onResult(T result, boolean fromCache);
+
+        /** Neither the cache nor the server had a result. */
+        void onError(Exception e);
+    }
+
+    /** Cache-first read of one document; a document missing from the cache waits for the server. */
+    static void read(DocumentReference ref, Callback<DocumentSnapshot> callback) {
+        read(ref::get, DocumentSnapshot::exists,
+                (a, b) -> a.exists() == b.exists() && Objects.equals(a.getData(), b.getData()), callback);
+    }
+
+    /** Cache-first query; an empty cached result waits for the server. */
+    static void read(Query query, Callback<QuerySnapshot> callback) {
+        read(query::get, snapshot -> !snapshot.isEmpty(), FirestoreProvider::sameDocuments, callback);
+    }
+
+    // Both reads start at once; the cache only answers first if the server has not already
+    private static <T> void read(Function<Source, Task<T>> get, Predicate<T> usable, BiPredicate<T, T> same,
+                                 Callback<T> callback) {
+        Task<T> cached = get.apply(Source.CACHE);
+        Task<T> server = get.apply(Source.SERVER);
+        Object[] shown = new Object[1];
+
+        cached.addOnSuccessListener(result -> {
+            if (server.isComplete() || !usable.test(result)) return;
+            shown[0] = result;
+            callback.onResult(result, true);
+        });
+        server.addOnSuccessListener(result -> {
+            @SuppressWarnings("unchecked")
+            T previous = (T) shown[0];
+            if (previous != null && same.test(previous, result)) return;
+            callback.onResult(result, false);
+        }).addOnFailureListener(e -> cached.addOnCompleteListener(c -> {
+            // Offline: the cached copy (shown now if it was not yet) is the best there is
+            if (shown[0] != null) {
+                Log.d(TAG, "Server read failed; keeping the cached result", e);
+            } else if (c.isSuccessful() && usable.test(c.getResult())) {
+                shown[0] = c.getResult();
+                callback.onResult(c.getResult(), true);
+            } else {
+                callback.onError(e);
+            }
+        }));
+    }
+
+    private static boolean sameDocuments(QuerySnapshot a, QuerySnapshot b) {
+        List<DocumentSnapshot> x = a.getDocuments();
+        List<DocumentSnapshot> y = b.getDocuments();
+        if (x.size() != y.size()) return false;
+        for (int i = 0; i < x.size(); i++) {
+            if (!x.get(i).getId().equals(y.get(i).getId())
+                    || !Objects.equals(x.get(i).getData(), y.get(i).getData())) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.ecolens;
+
+/**
+ * Admission control for live camera frames: at most one frame is in inference at a time, and new
+ * ones are admitted no more often than {@code minIntervalNanos}. Frames arriving while inference is
+ * still running (or too soon after the last one started) are dropped rather than queued, so the
+ * label always reflects a recent frame instead of a growing backlog.
+ *
+ * Timestamps are passed in (e.g. {@code System.nanoTime()}) so it can be tested on the JVM.
+ */
+public final class FrameThrottler {
+
+    private final long minIntervalNanos;
+
+    // Guarded by "this"
+    private boolean busy = false;
+    private boolean started = false;
+    private long lastStart;
+    private long lastLatencyNanos;
+    private long admitted;
+    private long dropped;
+
+    public FrameThrottler(long minIntervalNanos) {
+        if (minIntervalNanos < 0) throw new IllegalArgumentException("minIntervalNanos " + minIntervalNanos);
+        this.minIntervalNanos = minIntervalNanos;
+    }
+
+    /** @return true if the frame should be processed; pair every true with {@link #end}. */
+    public synchronized boolean tryBegin(long nowNanos) {
+        if (busy || (started && nowNanos - lastStart < minIntervalNanos)) {
+            dropped++;
+            return false;
+        }
+        busy = true;
+        started = true;
+        lastStart = nowNanos;
+        admitted++;
+        return true;
+    }
+
+    /** Marks the admitted frame as finished (successfully or not). */
+    public synchronized void end(long nowNanos) {
+        if (!busy) throw new IllegalStateException("end() without a matching tryBegin()");
+        busy = false;
+        lastLatencyNanos = nowNanos - lastStart;
+    }
+
+    public synchronized long admitted() {
+        return admitted;
+    }
+
+    public synchronized long dropped() {
+        return dropped;
+    }
+
+    /** Begin-to-end time of the most recently finished frame, 0 before the first. */
+    public synchronized long lastLatencyNanos() {
+        return lastLatencyNanos;
+    }
+}
@@ -0,0 +1,301 @@
+package com.example.ecolens;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Geohash encoding, neighbours and range covers for proximity queries. Pure Java.
+ *
+ * A geohash of precision p is the cell's (row, column) in a grid of 2^(5p) cells, bit-interleaved
+ * (longitude first) and written in base 32. Nearby points share prefixes, so "within R of a point"
+ * becomes a few lexicographic ranges over a stored geohash ({@link #cover}), each one Firestore
+ * range query; results are then filtered by real distance ({@link #distanceMeters}).
+ */
+public final class GeoHash {
+
+    public static final int MAX_PRECISION = 12;
+    static final double EARTH_RADIUS_M = 6_371_000;
+
+    private static final char[] BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+    private static final int[] DECODE = new int[128];
+
+    static {
+        Arrays.fill(DECODE, -1);
+        for (int i = 0; i < BASE32.length; i++) DECODE[BASE32[i]] = i;
+    }
+
+    /** A cell's bounds in degrees. */
+    public static final class Box {
+        public final double minLat, maxLat, minLon, maxLon;
+
+        Box(double minLat, double maxLat, double minLon, double maxLon) {
+            this.minLat = minLat;
+            this.maxLat = maxLat;
+            this.minLon = minLon;
+            this.maxLon = maxLon;
+        }
+
+        public double centerLat() {
+            return (minLat + maxLat) / 2;
+        }
+
+        public double centerLon() {
+            return (minLon + maxLon) / 2;
+        }
+    }
+
+    /**
+     * Geohashes from {@code start} to {@code end}, both inclusive, prefixes included: query with
+     * {@code orderBy(field).startAt(start).endAt(end + "~")} ('~' sorts after every base-32 digit).
+     */
+    public static final class Range {
+        public final String start;
+        public final String end;
+
+        Range(String start, String end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        /** Whether a (longer) stored geohash falls in this range. */
+        public boolean contains(String geohash) {
+            return geohash.compareTo(start) >= 0 && geohash.compareTo(end + "~") <= 0;
+        }
+
+        @Override
+        public String toString() {
+            return start.equals(end) ? start : start + ".." + end;
+        }
+    }
+
+    private GeoHash() {}
+
+    // ---------------------------
+    // Encoding
+    // ---------------------------
+    public static String encode(double lat, double lon, int precision) {
+        checkPrecision(precision);
+        if (Double.isNaN(lat) || Double.isNaN(lon) || lat < -90 || lat > 90 || lon < -180 || lon > 180) {
+            throw new IllegalArgumentException("lat " + lat + ", lon " + lon);
+        }
+        int latBits = latBits(precision);
+        int lonBits = lonBits(precision);
+        return fromIndices(index(lat + 90, 180, latBits), index(lon + 180, 360, lonBits), precision);
+    }
+
+    public static Box bounds(String geohash) {
+        long[] idx = toIndices(geohash);
+        int precision = geohash.length();
+        double h = cellHeight(precision);
+        double w = cellWidth(precision);
+        return new Box(idx[0] * h - 90, (idx[0] + 1) * h - 90, idx[1] * w - 180, (idx[1] + 1) * w - 180);
+    }
+
+    /** Cell height in degrees of latitude. */
+    public static double cellHeight(int precision) {
+        return 180.0 / (1L << latBits(precision));
+    }
+
+    /** Cell width in degrees of longitude. */
+    public static double cellWidth(int precision) {
+        return 360.0 / (1L << lonBits(precision));
+    }
+
+    // ---------------------------
+    // Neighbours
+    // ---------------------------
+
+    /**
+     * The cell {@code dLat} rows north and {@code dLon} columns east of {@code geohash}, wrapping
+     * around the antimeridian; null past a pole.
+     */
+    public static String neighbor(String geohash, int dLat, int dLon) {
+        int precision = geohash.length();
+        long[] idx = toIndices(geohash);
+        long rows = 1L << latBits(precision);
+        long cols = 1L << lonBits(precision);
+        long row = idx[0] + dLat;
+        if (row < 0 || row >= rows) return null;
+        long col = Math.floorMod(idx[1] + dLon, cols);
+        return fromIndices(row, col, precision);
+    }
+
+    /** The (up to) eight cells around {@code geohash}: N, NE, E, SE, S, SW, W, NW. */
+    public static List<String> neighbors(String geohash) {
+        int[][] steps = {{1, 0}, {1, 1}, {0, 1}, {-1, 1}, {-1, 0}, {-1, -1}, {0, -1}, {1, -1}};
+        List<String> out = new ArrayList<>(8);
+        for (int[] s : steps) {
+            String n = neighbor(geohash, s[0], s[1]);
+            if (n != null && !out.contains(n)) out.add(n);
+        }
+        return out;
+    }
+
+    // ---------------------------
+    // Covers
+    // ---------------------------
+
+    /**
+     * Ranges of geohashes whose cells together cover the circle of {@code radiusMeters} around
+     * (lat, lon): the finest precision needing at most {@code maxCells} cells, with runs of
+     * consecutive cells merged into one range. Cells are rectangles, so results still need
+     * filtering by {@link #distanceMeters}.
+     */
+    public static List<Range> cover(double lat, double lon, double radiusMeters, int maxCells) {
+        if (radiusMeters < 0 || maxCells < 1) throw new IllegalArgumentException("radius " + radiusMeters + ", cells " + maxCells);
+        double dLat = Math.toDegrees(radiusMeters / EARTH_RADIUS_M);
+        double minLat = Math.max(-90, lat - dLat);
+        double maxLat = Math.min(90, lat + dLat);
+
+        // Longitude span at the widest latitude of the box; the whole circle near the poles
+        double widest = Math.max(Math.abs(minLat), Math.abs(maxLat));
+        double cos = Math.cos(Math.toRadians(widest));
+        double dLon = cos <= 1e-12 ? 180 : Math.toDegrees(radiusMeters / (EARTH_RADIUS_M * cos));
+        List<double[]> lonSpans = new ArrayList<>();
+        if (dLon >= 180) {
+            lonSpans.add(new double[]{-180, 180});
+        } else if (lon - dLon < -180) {
+            lonSpans.add(new double[]{lon - dLon + 360, 180});
+            lonSpans.add(new double[]{-180, lon + dLon});
+        } else if (lon + dLon > 180) {
+            lonSpans.add(new double[]{lon - dLon, 180});
+            lonSpans.add(new double[]{-180, lon + dLon - 360});
+        } else {
+            lonSpans.add(new double[]{lon - dLon, lon + dLon});
+        }
+
+        int precision = 1;
+        while (precision < MAX_PRECISION && cellCount(minLat, maxLat, lonSpans, precision + 1) <= maxCells) {
+            precision++;
+        }
+        return merge(cells(minLat, maxLat, lonSpans, precision));
+    }
+
+    /** Great-circle (haversine) distance in meters. */
+    public static double distanceMeters(double lat1, double lon1, double lat2, double lon2) {
+        double p1 = Math.toRadians(lat1);
+        double p2 = Math.toRadians(lat2);
+        double dp = p2 - p1;
+        double dl = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dp / 2) * Math.sin(dp / 2)
+                + Math.cos(p1) * Math.cos(p2) * Math.sin(dl / 2) * Math.sin(dl / 2);
+        return 2 * EARTH_RADIUS_M * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    private static long cellCount(double minLat, double maxLat, List<double[]> lonSpans, int precision) {
+        int latBits = latBits(precision);
+        int lonBits = lonBits(precision);
+        long rows = index(maxLat + 90, 180, latBits) - index(minLat + 90, 180, latBits) + 1;
+        long cols = 0;
+        for (double[] span : lonSpans) {
+            cols += index(span[1] + 180, 360, lonBits) - index(span[0] + 180, 360, lonBits) + 1;
+        }
+        return rows * cols;
+    }
+
+    private static TreeSet<String> cells(double minLat, double maxLat, List<double[]> lonSpans, int precision) {
+        int latBits = latBits(precision);
+        int lonBits = lonBits(precision);
+        TreeSet<String> cells = new TreeSet<>();
+        for (long row = index(minLat + 90, 180, latBits); row <= index(maxLat + 90, 180, latBits); row++) {
+            for (double[] span : lonSpans) {
+                for (long col = index(span[0] + 180, 360, lonBits); col <= index(span[1] + 180, 360, lonBits); col++) {
+                    cells.add(fromIndices(row, col, precision));
+                }
+            }
+        }
+        return cells;
+    }
+
+    // Sorted same-length cells; a run where each is the base-32 successor of the last is one range
+    static List<Range> merge(TreeSet<String> cells) {
+        List<Range> ranges = new ArrayList<>();
+        String start = null;
+        String end = null;
+        for (String cell : cells) {
+            if (start != null && cell.equals(successor(end))) {
+                end = cell;
+                continue;
+            }
+            if (start != null) ranges.add(new Range(start, end));
+            start = end = cell;
+        }
+        if (start != null) ranges.add(new Range(start, end));
+        return Collections.unmodifiableList(ranges);
+    }
+
+    /** The next geohash of the same length in sort order, or null after "zz..z". */
+    static String successor(String geohash) {
+        char[] c = geohash.toCharArray();
+        for (int i = c.length - 1; i >= 0; i--) {
+            int d = DECODE[c[i]];
+            if (d < BASE32.length - 1) {
+                c[i] = BASE32[d + 1];
+                return new String(c);
+            }
+            c[i] = BASE32[0];
+        }
+        return null;
+    }
+
+    // ---------------------------
+    // Grid indices <-> geohash
+    // ---------------------------
+    private static int lonBits(int precision) {
+        return (5 * precision + 1) / 2;
+    }
+
+    private static int latBits(int precision) {
+        return 5 * precision / 2;
+    }
+
+    // Row/column of an offset in [0, span] on a grid of 2^bits; the top edge belongs to the last cell
+    private static long index(double offset, double span, int bits) {
+        long n = 1L << bits;
+        return Math.max(0, Math.min(n - 1, (long) Math.floor(offset / span * n)));
+    }
+
+    private static String fromIndices(long row, long col, int precision) {
+        int latBit = latBits(precision) - 1;
+        int lonBit = lonBits(precision) - 1;
+        char[] out = new char[precision];
+        for (int i = 0; i < precision; i++) {
+            int value = 0;
+            for (int b = 0; b < 5; b++) {
+                // Bits alternate starting with longitude
+                boolean isLon = (i * 5 + b) % 2 == 0;
+                int bit = isLon ? (int) ((col >> lonBit--) & 1) : (int) ((row >> latBit--) & 1);
+                value = (value << 1) | bit;
+            }
+            out[i] = BASE32[value];
+        }
+        return new String(out);
+    }
+
+    private static long[] toIndices(String geohash) {
+        checkPrecision(geohash.length());
+        long row = 0;
+        long col = 0;
+        for (int i = 0; i < geohash.length(); i++) {
+            char ch = geohash.charAt(i);
+            int value = ch < 128 ? DECODE[ch] : -1;
+            if (value < 0) throw new IllegalArgumentException("Not a geohash: " + geohash);
+            for (int b = 4; b >= 0; b--) {
+                int bit = (value >> b) & 1;
+                if ((i * 5 + 4 - b) % 2 == 0) {
+                    col = (col << 1) | bit;
+                } else {
+                    row = (row << 1) | bit;
+                }
+            }
+        }
+        return new long[]{row, col};
+    }
+
+    private static void checkPrecision(int precision) {
+        if (precision < 1 || precision > MAX_PRECISION) throw new IllegalArgumentException("precision " + precision);
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.ecolens;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.ImageDecoder;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.util.Size;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Decodes a picked image once, off the main thread, already subsampled to the largest
+ * size anything needs (the upload, {@link #DECODE_MAX_DIM}).
+ *
+ * The file is hashed as a stream (so identical photos can reuse cached results) and then decoded
+ * straight from the content Uri; it is never buffered whole. A {@link #PREVIEW_MAX_DIM} copy of the
+ * decode is shared by the preview and the classifier (whose preprocessor scales it down to the
+ * model input size), and a quick {@link ImageQuality} check runs on it so the form can warn before
+ * uploading. The upload-size decode itself is then encoded by {@link UploadEncoder} on the same
+ * thread and freed: a pick holds one of them at a time, and keeps only the encoded bytes.
+ */
+final class ImagePipeline {
+
+    /** Longest edge of the one decode: the upload's, the largest size any consumer needs. */
+    static final int DECODE_MAX_DIM = UploadEncoder.DEFAULT_MAX_DIM;
+    /** Longest edge of the preview / classifier copy: enough for the form preview / full-screen view. */
+    static final int PREVIEW_MAX_DIM = 1024;
+
+    interface Callback {
+        /** The photo is usable; {@code contentHash} is null for bitmaps that were not read from a file. */
+        void onDecoded(Bitmap preview, String contentHash, ImageQuality.Report quality);
+
+        /** Follows {@link #onDecoded}; {@code upload} is null if the photo could not be encoded. */
+        void onEncoded(UploadEncoder.Encoded upload);
+
+        /** The photo could not be read or decoded; nothing else follows. */
+        void onError(Exception e);
+    }
+
+    private final ContentResolver resolver;
+    private final UploadEncoder encoder = new UploadEncoder();
+    private final ExecutorService decodeExecutor = Executors.newSingleThreadExecutor(r -> new Thread(r, "image-decode"));
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    ImagePipeline(Context context) {
+        this.resolver = context.getApplicationContext().getContentResolver();
+    }
+
+    /**
+     * Decodes {@code uri} to at most {@link #DECODE_MAX_DIM} px, delivers a preview-size copy and the
+     * SHA-256 of the original file, then the encoded upload; all on the main thread.
+     */
+    void decode(Uri uri, Callback callback) {
+        decodeExecutor.execute(() -> {
+            Bitmap upload;
+            Bitmap preview;
+            try {
+                String contentHash = hash(uri);
+                int[] sourceSize = new int[2];
+                upload = decodeSampled(ImageDecoder.createSource(resolver, uri), DECODE_MAX_DIM, sourceSize);
+                int[] size = fitWithin(upload.getWidth(), upload.getHeight(), PREVIEW_MAX_DIM);
+                preview = Bitmap.createScaledBitmap(upload, size[0], size[1], true);
+                ImageQuality.Report quality = assess(preview, sourceSize[0], sourceSize[1]);
+                mainHandler.post(() -> callback.onDecoded(preview, contentHash, quality));
+            } catch (Exception e) {
+                mainHandler.post(() -> callback.onError(e));
+                return;
+            }
+            // Small photos are their own preview, which must stay alive
+            encode(upload, upload != preview, callback);
+        });
+    }
+
+    /**
+     * For a bitmap that is already in memory (a camera thumbnail): the quality check and the
+     * encode, on the same thread as decodes. Never calls {@link Callback#onError}; a photo that
+     * cannot be checked is delivered with a null report.
+     */
+    void assess(Bitmap bitmap, Callback callback) {
+        decodeExecutor.execute(() -> {
+            ImageQuality.Report quality = null;
+            try {
+                // The source size is unknown (0): only sharpness/brightness are checked
+                quality = assess(bitmap, 0, 0);
+            } catch (Exception e) {
+                Log.e("ImageQuality", "Could not assess captured image", e);
+            }
+            ImageQuality.Report report = quality;
+            mainHandler.post(() -> callback.onDecoded(bitmap, null, report));
+            encode(bitmap, false, callback);
+        });
+    }
+
+    void shutdown() {
+        decodeExecutor.shutdownNow();
+    }
+
+    private void encode(Bitmap upload, boolean recycle, Callback callback) {
+        UploadEncoder.Encoded encoded = null;
+        try {
+            encoded = encoder.encode(upload);
+        } catch (Exception e) {
+            Log.e("UploadEncoder", "Could not encode image", e);
+        } finally {
+            if (recycle) upload.recycle();
+        }
+        UploadEncoder.Encoded result = encoded;
+        mainHandler.post(() -> callback.onEncoded(result));
+    }
+
+    // Streamed: the picker hands out content Uris, which cannot be mapped
+    private String hash(Uri uri) throws IOException {
+        try (InputStream in = resolver.openInputStream(uri)) {
+            if (in == null) throw new IOException("Cannot open " + uri);
+            return ContentHash.sha256(in);
+        }
+    }
+
+    /**
+     * Blocking decode to at most {@code maxDim}; also applies EXIF orientation and stores the
+     * original width/height in {@code sourceSize} if non-null. Call off the main thread.
+     */
+    static Bitmap decodeSampled(ImageDecoder.Source source, int maxDim, int[] sourceSize) throws IOException {
+        InferenceTelemetry telemetry = InferenceTelemetry.get();
+        long t = telemetry.start();
+        Bitmap bitmap = ImageDecoder.decodeBitmap(source, (decoder, info, src) -> {
+            Size size = info.getSize();
+            if (sourceSize != null) {
+                sourceSize[0] = size.getWidth();
+                sourceSize[1] = size.getHeight();
+            }
+            int[] target = fitWithin(size.getWidth(), size.getHeight(), maxDim);
+            decoder.setTargetSize(target[0], target[1]);
+            // Software bitmap: the classifier and the encoder read pixels / draw it on a software canvas
+            decoder.setAllocator(ImageDecoder.ALLOCATOR_SOFTWARE);
+        });
+        telemetry.stop(InferenceTelemetry.Stage.DECODE, t);
+        return bitmap;
+    }
+
+    /**
+     * Runs the {@link ImageQuality} checks on a {@link ImageQuality#ANALYSIS_MAX_DIM} copy of
+     * {@code bitmap}. Pass 0 for an unknown source size. A few ms; call off the main thread.
+     */
+    static ImageQuality.Report assess(Bitmap bitmap, int sourceWidth, int sourceHeight) {
+        int[] size = fitWithin(bitmap.getWidth(), bitmap.getHeight(), ImageQuality.ANALYSIS_MAX_DIM);
+        Bitmap small = Bitmap.createScaledBitmap(bitmap, size[0], size[1], true);
+        int[] pixels = new int[size[0] * size[1]];
+        small.getPixels(pixels, 0, size[0], 0, 0, size[0], size[1]);
+        if (small != bitmap) small.recycle();
+        return ImageQuality.assess(pixels, size[0], size[1], sourceWidth, sourceHeight);
+    }
+
+    /** Scales (w, h) down to fit within maxDim on the longest edge, keeping aspect ratio. Never upscales. */
+    static int[] fitWithin(int width, int height, int maxDim) {
+        int longest = Math.max(width, height);
+        if (longest <= maxDim) return new int[]{width, height};
+        float scale = (float) maxDim / longest;
+        return new int[]{Math.max(1, Math.round(width * scale)), Math.max(1, Math.round(height * scale))};
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.ecolens;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.PorterDuff;
+import android.graphics.PorterDuffXfermode;
+import android.graphics.Rect;
+
+import org.tensorflow.lite.DataType;
+import org.tensorflow.lite.Tensor;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+/**
+ * Reusable Bitmap -> input tensor stage for a fixed model input size.
+ *
+ * All buffers (scaled bitmap, pixel array, direct input buffer) are allocated once and reused,
+ * so a classification run produces no garbage. FLOAT32 inputs are normalized to [0,1]; UINT8/INT8
+ * inputs are quantized with the tensor's own scale and zero-point.
+ *
+ * Not thread-safe: callers must serialise access, typically by owning one instance per interpreter.
+ */
+final class ImagePreprocessor {
+
+    private static final int CHANNELS = 3;
+
+    private final int width;
+    private final int height;
+    private final DataType dataType;
+    private final float scale;
+    private final int zeroPoint;
+
+    private final Bitmap scaled;
+    private final Canvas canvas;
+    private final Paint paint;
+    private final Rect srcRect = new Rect();
+    private final Rect dstRect;
+    private final int[] pixels;
+
+    private final ByteBuffer input;
+    private final FloatBuffer inputFloats;   // null for quantized inputs
+    private final byte[] quantTable;         // null for float inputs
+    private YuvToTensorConverter yuvConverter;   // created on the first camera frame
+
+    /** Builds a preprocessor matching an interpreter input tensor shaped [1, h, w, 3]. */
+    static ImagePreprocessor forTensor(Tensor tensor) {
+        int[] shape = tensor.shape();
+        Tensor.QuantizationParams q = tensor.quantizationParams();
+        return new ImagePreprocessor(shape[2], shape[1], tensor.dataType(), q.getScale(), q.getZeroPoint());
+    }
+
+    ImagePreprocessor(int width, int height, DataType dataType, float scale, int zeroPoint) {
+        this.width = width;
+        this.height = height;
+        this.dataType = dataType;
+        this.scale = scale;
+        this.zeroPoint = zeroPoint;
+
+        scaled = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        canvas = new Canvas(scaled);
+        paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+        // Overwrite (rather than blend with) the previous frame, same as a fresh createScaledBitmap
+        paint.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.SRC));
+        dstRect = new Rect(0, 0, width, height);
+        pixels = new int[width * height];
+
+        switch (dataType) {
+            case FLOAT32:
+                input = ByteBuffer.allocateDirect(width * height * CHANNELS * 4).order(ByteOrder.nativeOrder());
+                inputFloats = input.asFloatBuffer();
+                quantTable = null;
+                break;
+            case UINT8:
+            case INT8:
+                input = ByteBuffer.allocateDirect(width * height * CHANNELS).order(ByteOrder.nativeOrder());
+                inputFloats = null;
+                quantTable = TensorQuantization.inputTable(scale, zeroPoint, dataType == DataType.INT8);
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported input tensor type: " + dataType);
+        }
+    }
+
+    int getWidth() { return width; }
+
+    int getHeight() { return height; }
+
+    /** Bytes one image occupies in the input tensor. */
+    int inputBytes() { return input.capacity(); }
+
+    /** A fresh preprocessor with the same configuration, for another thread. */
+    ImagePreprocessor copy() {
+        return new ImagePreprocessor(width, height, dataType, scale, zeroPoint);
+    }
+
+    /**
+     * Scales {@code source} to the model input size and writes it into the shared input buffer.
+     * The returned buffer is rewound and can be handed straight to {@code Interpreter.run};
+     * its contents are only valid until the next call.
+     */
+    ByteBuffer process(Bitmap source) {
+        input.clear();
+        processInto(source, null, input);
+        input.rewind();
+        return input;
+    }
+
+    /**
+     * Writes {@code source} (or just its {@code crop}, when non-null) into {@code dst} from its
+     * current position (advancing it), e.g. one image's slice of a batched input. {@code dst} must
+     * use native byte order and have {@link #inputBytes()} remaining.
+     */
+    void processInto(Bitmap source, Rect crop, ByteBuffer dst) {
+        InferenceTelemetry telemetry = InferenceTelemetry.get();
+        long t = telemetry.start();
+        if (crop != null) {
+            srcRect.set(crop);
+        } else {
+            srcRect.set(0, 0, source.getWidth(), source.getHeight());
+        }
+        canvas.drawBitmap(source, srcRect, dstRect, paint);
+
+        // One JNI call for the whole frame instead of one getPixel per pixel
+        scaled.getPixels(pixels, 0, width, 0, 0, width, height);
+        telemetry.stop(InferenceTelemetry.Stage.RESIZE, t);
+
+        t = telemetry.start();
+        if (quantTable == null) {
+            FloatBuffer floats = dst == input ? inputFloats : dst.asFloatBuffer();
+            floats.clear();
+            PixelTensorWriter.writeRgb(pixels, pixels.length, floats, true);
+            dst.position(dst.position() + floats.position() * 4);
+        } else {
+            PixelTensorWriter.writeRgbQuantized(pixels, pixels.length, dst, quantTable);
+        }
+        telemetry.stop(InferenceTelemetry.Stage.PREPROCESS, t);
+    }
+
+    /**
+     * Converts a YUV camera frame straight into the shared input buffer (no Bitmap in between).
+     * Same contract as {@link #process}.
+     */
+    ByteBuffer processFrame(YuvToTensorConverter.Frame frame) {
+        if (yuvConverter == null) yuvConverter = new YuvToTensorConverter(width, height);
+        InferenceTelemetry telemetry = InferenceTelemetry.get();
+        long t = telemetry.start();
+        input.clear();
+        if (quantTable == null) {
+            inputFloats.clear();
+            yuvConverter.convert(frame, inputFloats);
+        } else {
+            yuvConverter.convert(frame, input, quantTable);
+        }
+        input.rewind();
+        telemetry.stop(InferenceTelemetry.Stage.PREPROCESS, t);
+        return input;
+    }
+
+    /** Black input (all channels 0), used for warm-up runs. */
+    ByteBuffer blankInput() {
+        input.clear();
+        if (inputFloats != null) {
+            inputFloats.clear();
+            while (inputFloats.hasRemaining()) inputFloats.put(0f);
+        } else {
+            byte black = quantTable[0];
+            while (input.hasRemaining()) input.put(black);
+        }
+        input.rewind();
+        return input;
+    }
+
+    void release() {
+        scaled.recycle();
+    }
+}
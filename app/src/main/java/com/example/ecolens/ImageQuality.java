@@ -0,0 +1,131 @@
+package com.example.ecolens;
+
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Cheap photo quality checks run before a photo is uploaded or classified: sharpness (variance of
+ * the Laplacian of the luma plane), mean brightness, and the source resolution.
+ *
+ * Works on a small downsampled copy (see {@link #ANALYSIS_MAX_DIM}); the thresholds are calibrated
+ * for that size. Pure Java so it can be tested with synthetic images on the JVM.
+ */
+public final class ImageQuality {
+
+    /** Longest edge of the copy the metrics are computed on. */
+    public static final int ANALYSIS_MAX_DIM = 256;
+
+    // Below this Laplacian variance (luma 0..255) a photo is treated as out of focus / motion blurred
+    static final double MIN_SHARPNESS = 50.0;
+    static final double MIN_BRIGHTNESS = 35.0;
+    static final double MAX_BRIGHTNESS = 230.0;
+    // Shortest edge of the original photo
+    static final int MIN_SHORT_EDGE = 480;
+
+    public enum Issue {
+        BLURRY("blurry"),
+        TOO_DARK("too dark"),
+        TOO_BRIGHT("overexposed"),
+        TOO_SMALL("too small");
+
+        public final String description;
+
+        Issue(String description) {
+            this.description = description;
+        }
+    }
+
+    public static final class Report {
+        public final double sharpness;
+        public final double brightness;
+        public final Set<Issue> issues;
+
+        Report(double sharpness, double brightness, Set<Issue> issues) {
+            this.sharpness = sharpness;
+            this.brightness = brightness;
+            this.issues = issues;
+        }
+
+        public boolean isAcceptable() {
+            return issues.isEmpty();
+        }
+
+        /** e.g. "blurry, too dark"; empty when acceptable. */
+        public String describe() {
+            StringBuilder sb = new StringBuilder();
+            for (Issue issue : issues) {
+                if (sb.length() > 0) sb.append(", ");
+                sb.append(issue.description);
+            }
+            return sb.toString();
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "sharpness=%.1f brightness=%.1f issues=%s", sharpness, brightness, issues);
+        }
+    }
+
+    private ImageQuality() {}
+
+    /**
+     * @param argb         downsampled pixels (row-major, {@code width * height})
+     * @param sourceWidth  original photo width, or 0 if unknown (skips the resolution check)
+     * @param sourceHeight original photo height, or 0 if unknown
+     */
+    public static Report assess(int[] argb, int width, int height, int sourceWidth, int sourceHeight) {
+        if (argb.length < width * height) {
+            throw new IllegalArgumentException("expected " + (width * height) + " pixels, got " + argb.length);
+        }
+        int[] luma = luma(argb, width * height);
+        double brightness = mean(luma);
+        double sharpness = laplacianVariance(luma, width, height);
+
+        Set<Issue> issues = EnumSet.noneOf(Issue.class);
+        if (sharpness < MIN_SHARPNESS) issues.add(Issue.BLURRY);
+        if (brightness < MIN_BRIGHTNESS) issues.add(Issue.TOO_DARK);
+        if (brightness > MAX_BRIGHTNESS) issues.add(Issue.TOO_BRIGHT);
+        if (sourceWidth > 0 && sourceHeight > 0 && Math.min(sourceWidth, sourceHeight) < MIN_SHORT_EDGE) {
+            issues.add(Issue.TOO_SMALL);
+        }
+        return new Report(sharpness, brightness, issues);
+    }
+
+    /** BT.601 luma in 0..255, fixed-point. */
+    static int[] luma(int[] argb, int count) {
+        int[] out = new int[count];
+        for (int i = 0; i < count; i++) {
+            int px = argb[i];
+            out[i] = (77 * ((px >> 16) & 0xFF) + 150 * ((px >> 8) & 0xFF) + 29 * (px & 0xFF)) >> 8;
+        }
+        return out;
+    }
+
+    static double mean(int[] values) {
+        if (values.length == 0) return 0;
+        long sum = 0;
+        for (int v : values) sum += v;
+        return (double) sum / values.length;
+    }
+
+    /** Variance of the 4-neighbour Laplacian over the interior pixels; 0 for images under 3x3. */
+    static double laplacianVariance(int[] luma, int width, int height) {
+        if (width < 3 || height < 3) return 0;
+        long sum = 0;
+        long sumSq = 0;
+        int n = 0;
+        for (int y = 1; y < height - 1; y++) {
+            int row = y * width;
+            for (int x = 1; x < width - 1; x++) {
+                int i = row + x;
+                int lap = luma[i - 1] + luma[i + 1] + luma[i - width] + luma[i + width] - 4 * luma[i];
+                sum += lap;
+                sumSq += (long) lap * lap;
+                n++;
+            }
+        }
+        double mean = (double) sum / n;
+        return (double) sumSq / n - mean * mean;
+    }
+}
@@ -0,0 +1,359 @@
+package com.example.ecolens;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded executor for model inference.
+ *
+ * <ul>
+ *   <li>A small pool of worker threads, each borrowing one of at most {@code poolSize} slots
+ *       (e.g. an Interpreter plus its buffers) so a slot is never used by two threads at once.</li>
+ *   <li>A bounded queue: when it is full, superseded jobs still waiting are cleared out first;
+ *       if that frees nothing the oldest waiting non-priority job is dropped (its listener gets a
+ *       {@link CancellationException}). Priority jobs (user-facing requests) are only dropped when
+ *       every waiting job is one, so a burst of camera frames cannot evict them.</li>
+ *   <li>Latest-wins per key: submitting a job with a key cancels any earlier job with the same key,
+ *       whether it is still queued or already running (a running job's result is discarded and
+ *       its listener gets a {@link CancellationException} instead).</li>
+ * </ul>
+ *
+ * Every listener is called exactly once, so callers can always release what a job holds.
+ *
+ * Pure Java (no Android types) so it can be tested and benchmarked on the JVM.
+ */
+final class InferenceExecutor<S> {
+
+    interface SlotFactory<S> {
+        S create() throws Exception;
+
+        void destroy(S slot);
+    }
+
+    interface Job<S, R> {
+        R run(S slot) throws Exception;
+    }
+
+    /** Called on the worker thread. */
+    interface Listener<R> {
+        void onResult(R result);
+
+        void onError(Exception e);
+    }
+
+    /** Handle for a submitted job. */
+    static final class Ticket {
+        private final String key;
+        private final boolean priority;
+        private final long enqueuedAtNanos = System.nanoTime();
+        private volatile boolean cancelled = false;
+        private volatile boolean superseded = false;
+
+        private Ticket(String key, boolean priority) {
+            this.key = key;
+            this.priority = priority;
+        }
+
+        boolean isCancelled() { return cancelled; }
+
+        /** Cancelled by a newer job with the same key (rather than dropped from a full queue). */
+        boolean isSuperseded() { return superseded; }
+
+        void cancel() { cancelled = true; }
+
+        private void supersede() {
+            superseded = true;
+            cancelled = true;
+        }
+    }
+
+    /** Point-in-time copy of the executor counters. */
+    static final class Metrics {
+        final int queueDepth;
+        final int maxQueueDepth;
+        final long submitted;
+        final long completed;
+        final long cancelled;
+        final long dropped;
+        final double avgWaitMs;
+        final double maxWaitMs;
+
+        Metrics(int queueDepth, int maxQueueDepth, long submitted, long completed, long cancelled,
+                long dropped, double avgWaitMs, double maxWaitMs) {
+            this.queueDepth = queueDepth;
+            this.maxQueueDepth = maxQueueDepth;
+            this.submitted = submitted;
+            this.completed = completed;
+            this.cancelled = cancelled;
+            this.dropped = dropped;
+            this.avgWaitMs = avgWaitMs;
+            this.maxWaitMs = maxWaitMs;
+        }
+
+        @Override
+        public String toString() {
+            return "queue=" + queueDepth + " (max " + maxQueueDepth + ")"
+                    + " submitted=" + submitted + " completed=" + completed
+                    + " cancelled=" + cancelled + " dropped=" + dropped
+                    + String.format(java.util.Locale.US, " wait avg=%.1fms max=%.1fms", avgWaitMs, maxWaitMs);
+        }
+    }
+
+    private final SlotFactory<S> slotFactory;
+    private final ThreadPoolExecutor pool;
+
+    // Slots not currently running a job; each tagged with the generation it was created in
+    private final BlockingQueue<Entry<S>> idleSlots;
+    private final AtomicInteger generation = new AtomicInteger();
+
+    // Guarded by "latest"
+    private final Map<String, Ticket> latest = new HashMap<>();
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong cancelled = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicInteger maxQueueDepth = new AtomicInteger();
+
+    private static final class Entry<S> {
+        final S slot;
+        final int generation;
+
+        Entry(S slot, int generation) {
+            this.slot = slot;
+            this.generation = generation;
+        }
+    }
+
+    InferenceExecutor(String name, int poolSize, int queueCapacity, SlotFactory<S> slotFactory) {
+        this.slotFactory = slotFactory;
+        this.idleSlots = new ArrayBlockingQueue<>(poolSize);
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        pool = new ThreadPoolExecutor(poolSize, poolSize, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, name + "-" + threadIndex.incrementAndGet());
+                    t.setPriority(Thread.NORM_PRIORITY - 1);
+                    return t;
+                },
+                (r, executor) -> {
+                    // After shutdown nothing runs the queue: refuse, submit() tells the listener
+                    if (executor.isShutdown()) throw new RejectedExecutionException("inference executor shut down");
+                    // Queue full: make room and retry once
+                    makeRoom(executor.getQueue());
+                    if (!executor.getQueue().offer(r)) {
+                        ((Droppable) r).drop("inference queue full");
+                    }
+                });
+        pool.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Queues {@code job}. If {@code key} is non-null any earlier job submitted with the same key is
+     * cancelled. {@code listener} is called exactly once: with the result, with the job's failure,
+     * with a {@link CancellationException} if the job was superseded, cancelled, evicted from a
+     * full queue or discarded by {@link #shutdown}, or with a {@link RejectedExecutionException}
+     * (before this returns) if the executor was already shut down.
+     */
+    <R> Ticket submit(String key, Job<S, R> job, Listener<R> listener) {
+        return submit(key, false, job, listener);
+    }
+
+    /** As {@link #submit(String, Job, Listener)}; a {@code priority} job is the last to be dropped. */
+    <R> Ticket submit(String key, boolean priority, Job<S, R> job, Listener<R> listener) {
+        Ticket ticket = new Ticket(key, priority);
+        if (key != null) {
+            synchronized (latest) {
+                Ticket previous = latest.put(key, ticket);
+                if (previous != null) previous.supersede();
+            }
+        }
+        submitted.incrementAndGet();
+        try {
+            pool.execute(new Task<>(ticket, job, listener));
+        } catch (RejectedExecutionException e) {
+            // Shut down; a full queue never throws
+            forget(ticket);
+            listener.onError(e);
+        }
+        int depth = pool.getQueue().size();
+        maxQueueDepth.accumulateAndGet(depth, Math::max);
+        return ticket;
+    }
+
+    /**
+     * Destroys all idle slots and retires those currently in use, so they are destroyed as soon as
+     * their job finishes. New jobs create fresh slots on demand.
+     */
+    void retireSlots() {
+        generation.incrementAndGet();
+        Entry<S> e;
+        while ((e = idleSlots.poll()) != null) {
+            destroy(e);
+        }
+    }
+
+    /** Interrupts running jobs and cancels queued ones; later submissions are rejected. */
+    void shutdown() {
+        for (Runnable r : pool.shutdownNow()) {
+            ((Droppable) r).drop("inference executor shut down");
+        }
+        retireSlots();
+    }
+
+    Metrics metrics() {
+        long done = completed.get() + cancelled.get();
+        long started = Math.max(1, done);
+        return new Metrics(pool.getQueue().size(), maxQueueDepth.get(),
+                submitted.get(), completed.get(), cancelled.get(), dropped.get(),
+                totalWaitNanos.get() / 1e6 / started, maxWaitNanos.get() / 1e6);
+    }
+
+    // ---------------------------
+    // Slot borrowing
+    // ---------------------------
+    private Entry<S> borrow() throws Exception {
+        int gen = generation.get();
+        Entry<S> e;
+        while ((e = idleSlots.poll()) != null) {
+            if (e.generation == gen) return e;
+            destroy(e);
+        }
+        // One worker thread per slot, so we can never exceed poolSize here
+        return new Entry<>(slotFactory.create(), gen);
+    }
+
+    private void giveBack(Entry<S> e) {
+        if (e.generation != generation.get() || !idleSlots.offer(e)) {
+            destroy(e);
+        }
+    }
+
+    private void destroy(Entry<S> e) {
+        slotFactory.destroy(e.slot);
+    }
+
+    // ---------------------------
+    // Overflow
+    // ---------------------------
+
+    // Called with the queue full. Tasks a worker takes meanwhile are left alone (remove() fails).
+    private void makeRoom(BlockingQueue<Runnable> queue) {
+        boolean freed = false;
+        for (Runnable r : queue.toArray(new Runnable[0])) {
+            Droppable task = (Droppable) r;
+            if (task.ticket().isCancelled() && queue.remove(task)) {
+                task.skip();
+                freed = true;
+            }
+        }
+        if (freed) return;
+
+        Droppable victim = null;
+        for (Runnable r : queue.toArray(new Runnable[0])) {
+            Droppable task = (Droppable) r;
+            if (!task.ticket().priority) {
+                victim = task;
+                break;
+            }
+            if (victim == null) victim = task;   // all priority: the oldest
+        }
+        if (victim != null && queue.remove(victim)) victim.drop("inference queue full");
+    }
+
+    private interface Droppable extends Runnable {
+        Ticket ticket();
+
+        void drop(String reason);
+
+        void skip();
+    }
+
+    private void forget(Ticket ticket) {
+        if (ticket.key != null) {
+            synchronized (latest) {
+                latest.remove(ticket.key, ticket);
+            }
+        }
+    }
+
+    private final class Task<R> implements Droppable {
+        private final Ticket ticket;
+        private final Job<S, R> job;
+        private final Listener<R> listener;
+
+        Task(Ticket ticket, Job<S, R> job, Listener<R> listener) {
+            this.ticket = ticket;
+            this.job = job;
+            this.listener = listener;
+        }
+
+        @Override
+        public Ticket ticket() {
+            return ticket;
+        }
+
+        // Evicted from a full queue, or discarded at shutdown
+        @Override
+        public void drop(String reason) {
+            ticket.cancel();
+            dropped.incrementAndGet();
+            forget(ticket);
+            listener.onError(new CancellationException(reason));
+        }
+
+        // Superseded and cleared out of the queue before it ran
+        @Override
+        public void skip() {
+            cancelled.incrementAndGet();
+            forget(ticket);
+            listener.onError(new CancellationException("superseded"));
+        }
+
+        @Override
+        public void run() {
+            long waited = System.nanoTime() - ticket.enqueuedAtNanos;
+            totalWaitNanos.addAndGet(waited);
+            maxWaitNanos.accumulateAndGet(waited, Math::max);
+
+            try {
+                if (ticket.isCancelled()) {
+                    cancelled.incrementAndGet();
+                    listener.onError(new CancellationException("superseded"));
+                    return;
+                }
+                R result;
+                Entry<S> slot = borrow();
+                try {
+                    result = job.run(slot.slot);
+                } finally {
+                    giveBack(slot);
+                }
+                if (ticket.isCancelled()) {
+                    // Superseded while running: drop the stale result
+                    cancelled.incrementAndGet();
+                    listener.onError(new CancellationException("superseded"));
+                    return;
+                }
+                completed.incrementAndGet();
+                listener.onResult(result);
+            } catch (Exception e) {
+                completed.incrementAndGet();
+                listener.onError(e);
+            } finally {
+                forget(ticket);
+            }
+        }
+    }
+}
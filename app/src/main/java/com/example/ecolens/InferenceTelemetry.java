@@ -0,0 +1,89 @@
+package com.example.ecolens;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Process-wide latency telemetry for the classification pipeline, one histogram per stage.
+ *
+ * Usage: {@code long t = telemetry.start(); ...; telemetry.stop(Stage.INVOKE, t);}. At
+ * {@link Level#OFF} both calls are no-ops (no clock reads); at {@link Level#DETAILED} callers may
+ * additionally log individual runs (see {@link #isDetailed()}). Pure Java.
+ */
+public final class InferenceTelemetry {
+
+    public enum Stage {
+        MODEL_LOAD,   // mapping the model + creating an interpreter
+        DECODE,       // Uri -> subsampled Bitmap
+        RESIZE,       // Bitmap -> model-size pixels
+        PREPROCESS,   // pixels -> input tensor
+        INVOKE,       // Interpreter.run
+        POSTPROCESS   // output tensor -> label
+    }
+
+    public enum Level {
+        OFF,        // record nothing
+        SUMMARY,    // histograms only
+        DETAILED    // histograms + per-run logging by callers
+    }
+
+    private static final InferenceTelemetry INSTANCE = new InferenceTelemetry();
+
+    private final Map<Stage, LatencyHistogram> histograms = new EnumMap<>(Stage.class);
+    private volatile Level level = Level.SUMMARY;
+
+    InferenceTelemetry() {
+        for (Stage stage : Stage.values()) {
+            histograms.put(stage, new LatencyHistogram());
+        }
+    }
+
+    public static InferenceTelemetry get() {
+        return INSTANCE;
+    }
+
+    public void setLevel(Level level) {
+        this.level = level;
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    public boolean isDetailed() {
+        return level == Level.DETAILED;
+    }
+
+    /** Start timestamp for a stage, or 0 when telemetry is off. */
+    public long start() {
+        return level == Level.OFF ? 0 : System.nanoTime();
+    }
+
+    /** Records the time since {@code startNanos} for {@code stage}; returns the elapsed nanos (0 when off). */
+    public long stop(Stage stage, long startNanos) {
+        if (level == Level.OFF || startNanos == 0) return 0;
+        long elapsed = System.nanoTime() - startNanos;
+        histograms.get(stage).record(elapsed);
+        return elapsed;
+    }
+
+    public LatencyHistogram histogram(Stage stage) {
+        return histograms.get(stage);
+    }
+
+    public void reset() {
+        for (LatencyHistogram h : histograms.values()) h.reset();
+    }
+
+    /** Human-readable report, one line per stage. */
+    public String summary() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("level=").append(level).append('\n');
+        for (Stage stage : Stage.values()) {
+            sb.append(String.format(Locale.US, "%-12s", stage.name()))
+                    .append(histograms.get(stage).summary()).append('\n');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.ecolens;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.content.pm.PackageManager;
+import android.os.Build;
+import android.util.Log;
+
+import org.tensorflow.lite.Interpreter;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Picks the fastest CPU {@link Interpreter.Options} (thread count, XNNPACK on/off) for this device.
+ *
+ * On first use (and again after an app update or OS update) every candidate configuration is
+ * benchmarked against each model; the winner is persisted per model, device fingerprint and app
+ * version so later launches just read it back.
+ */
+final class InterpreterTuner {
+
+    private static final String TAG = "InterpreterTuner";
+
+    private static final String PREFS_NAME   = "InterpreterProfile";
+    // Stored per model as "<model>.<key>"
+    private static final String KEY_PROFILE  = "profileKey";   // fingerprint + app version the result belongs to
+    private static final String KEY_THREADS  = "numThreads";
+    private static final String KEY_XNNPACK  = "useXnnpack";
+    private static final String KEY_MEDIAN   = "medianMs";
+
+    /** Tuned settings for one model. */
+    private static final class Profile {
+        final int numThreads;
+        final boolean useXnnpack;
+        final long medianMs;
+
+        Profile(int numThreads, boolean useXnnpack, long medianMs) {
+            this.numThreads = numThreads;
+            this.useXnnpack = useXnnpack;
+            this.medianMs = medianMs;
+        }
+    }
+
+    private static final int WARM_UP_RUNS = 2;
+    private static final int TIMED_RUNS = 5;
+
+    private final Context appContext;
+
+    // Guarded by "this"
+    private final Map<String, Profile> profiles = new HashMap<>();
+
+    InterpreterTuner(Context context) {
+        this.appContext = context.getApplicationContext();
+    }
+
+    /**
+     * Returns a fresh Options object carrying the tuned settings for {@code model}, calibrating
+     * first if this device/app version has no stored profile for these model bytes. Calibration
+     * takes a few hundred ms per model, so call off the main thread.
+     */
+    synchronized Interpreter.Options options(ModelRegistry.Model model) {
+        Profile p = profile(model);
+        return build(p.numThreads, p.useXnnpack);
+    }
+
+    /** Median latency of {@code model} with its tuned settings (calibrating if needed). */
+    synchronized long medianMs(ModelRegistry.Model model) {
+        return profile(model).medianMs;
+    }
+
+    /** Forgets all stored profiles so the next {@link #options} call re-benchmarks. */
+    synchronized void reset() {
+        profiles.clear();
+        prefs().edit().clear().apply();
+    }
+
+    // By version (name + checksum): an update installed under the same file name is a different model
+    private Profile profile(ModelRegistry.Model model) {
+        Profile p = profiles.get(model.version);
+        if (p == null) {
+            p = loadOrCalibrate(model);
+            profiles.put(model.version, p);
+        }
+        return p;
+    }
+
+    private Profile loadOrCalibrate(ModelRegistry.Model model) {
+        SharedPreferences prefs = prefs();
+        String modelName = model.name;
+        // One stored profile per file name, valid only for the same bytes on the same device build
+        String prefix = modelName + ".";
+        String profileKey = deviceProfileKey(appContext) + "#" + model.sha256;
+        if (profileKey.equals(prefs.getString(prefix + KEY_PROFILE, null))) {
+            Profile stored = new Profile(prefs.getInt(prefix + KEY_THREADS, 1),
+                    prefs.getBoolean(prefix + KEY_XNNPACK, true),
+                    prefs.getLong(prefix + KEY_MEDIAN, Long.MAX_VALUE));
+            Log.d(TAG, modelName + ": using stored profile threads=" + stored.numThreads
+                    + " xnnpack=" + stored.useXnnpack);
+            return stored;
+        }
+
+        long bestMs = Long.MAX_VALUE;
+        int bestThreads = 1;
+        boolean bestXnnpack = true;
+        for (int threads : threadCandidates()) {
+            for (boolean xnnpack : new boolean[]{true, false}) {
+                long ms = benchmark(model.buffer, threads, xnnpack);
+                Log.d(TAG, modelName + ": threads=" + threads + " xnnpack=" + xnnpack + " -> " + ms + " ms");
+                if (ms < bestMs) {
+                    bestMs = ms;
+                    bestThreads = threads;
+                    bestXnnpack = xnnpack;
+                }
+            }
+        }
+
+        prefs.edit()
+                .putString(prefix + KEY_PROFILE, profileKey)
+                .putInt(prefix + KEY_THREADS, bestThreads)
+                .putBoolean(prefix + KEY_XNNPACK, bestXnnpack)
+                .putLong(prefix + KEY_MEDIAN, bestMs)
+                .apply();
+        Log.d(TAG, modelName + ": calibrated threads=" + bestThreads + " xnnpack=" + bestXnnpack
+                + " (" + bestMs + " ms)");
+        return new Profile(bestThreads, bestXnnpack, bestMs);
+    }
+
+    /** Median wall time of {@link #TIMED_RUNS} inferences on a blank input, or MAX_VALUE if the config fails. */
+    private static long benchmark(ByteBuffer model, int threads, boolean xnnpack) {
+        Interpreter interpreter = null;
+        try {
+            interpreter = new Interpreter(model, build(threads, xnnpack));
+            ByteBuffer input = ByteBuffer.allocateDirect(interpreter.getInputTensor(0).numBytes())
+                    .order(ByteOrder.nativeOrder());
+            ByteBuffer output = ByteBuffer.allocateDirect(interpreter.getOutputTensor(0).numBytes())
+                    .order(ByteOrder.nativeOrder());
+
+            for (int i = 0; i < WARM_UP_RUNS; i++) {
+                interpreter.run(input, output);
+                input.rewind();
+                output.rewind();
+            }
+            long[] times = new long[TIMED_RUNS];
+            for (int i = 0; i < TIMED_RUNS; i++) {
+                long start = System.nanoTime();
+                interpreter.run(input, output);
+                times[i] = System.nanoTime() - start;
+                input.rewind();
+                output.rewind();
+            }
+            Arrays.sort(times);
+            return times[TIMED_RUNS / 2] / 1_000_000;
+        } catch (Exception e) {
+            Log.w(TAG, "Config threads=" + threads + " xnnpack=" + xnnpack + " failed", e);
+            return Long.MAX_VALUE;
+        } finally {
+            if (interpreter != null) interpreter.close();
+        }
+    }
+
+    private static Interpreter.Options build(int threads, boolean xnnpack) {
+        return new Interpreter.Options()
+                .setNumThreads(threads)
+                .setUseXNNPACK(xnnpack);
+    }
+
+    private static List<Integer> threadCandidates() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        List<Integer> candidates = new ArrayList<>();
+        for (int t = 1; t <= Math.min(cores, 4); t *= 2) {
+            candidates.add(t);
+        }
+        return candidates;
+    }
+
+    /**
+     * Identifies this device build + app version; stored results are discarded when it (or the
+     * model's checksum, appended per model) changes.
+     */
+    static String deviceProfileKey(Context context) {
+        long versionCode = 0;
+        try {
+            versionCode = context.getPackageManager()
+                    .getPackageInfo(context.getPackageName(), 0).getLongVersionCode();
+        } catch (PackageManager.NameNotFoundException ignored) {}
+        return Build.FINGERPRINT + "#" + versionCode;
+    }
+
+    private SharedPreferences prefs() {
+        return appContext.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.ecolens;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with power-of-two microsecond buckets (1 µs .. ~67 s).
+ * Recording is a few atomic adds and never allocates. Percentiles are reported as the upper
+ * bound of the bucket they fall in, so they are accurate to within 2x. Pure Java.
+ */
+public final class LatencyHistogram {
+
+    private static final int BUCKETS = 27;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalMicros = new AtomicLong();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    public void record(long nanos) {
+        long micros = Math.max(0, nanos / 1_000);
+        int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+        counts.incrementAndGet(bucket);
+        count.incrementAndGet();
+        totalMicros.addAndGet(micros);
+        maxMicros.accumulateAndGet(micros, Math::max);
+    }
+
+    public long count() {
+        return count.get();
+    }
+
+    public double meanMillis() {
+        long n = count.get();
+        return n == 0 ? 0 : totalMicros.get() / 1_000.0 / n;
+    }
+
+    public double maxMillis() {
+        return maxMicros.get() / 1_000.0;
+    }
+
+    /** Approximate percentile in ms, {@code p} in [0, 100]. */
+    public double percentileMillis(double p) {
+        long n = count.get();
+        if (n == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(n * p / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                long upperMicros = i == 0 ? 0 : (1L << i) - 1;
+                return Math.min(upperMicros, maxMicros.get()) / 1_000.0;
+            }
+        }
+        return maxMillis();
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) counts.set(i, 0);
+        count.set(0);
+        totalMicros.set(0);
+        maxMicros.set(0);
+    }
+
+    /** One-line summary, e.g. {@code n=12 mean=8.1ms p50=7.2ms p90=15.4ms p99=15.4ms max=15.0ms}. */
+    public String summary() {
+        return String.format(Locale.US, "n=%d mean=%.1fms p50=%.1fms p90=%.1fms p99=%.1fms max=%.1fms",
+                count(), meanMillis(), percentileMillis(50), percentileMillis(90),
+                percentileMillis(99), maxMillis());
+    }
+}
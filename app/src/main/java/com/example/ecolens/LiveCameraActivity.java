@@ -0,0 +1,197 @@
+package com.example.ecolens;
+
+import android.Manifest;
+import android.content.Intent;
+import android.content.pm.PackageManager;
+import android.net.Uri;
+import android.os.Bundle;
+import android.util.Log;
+import android.util.Size;
+import android.widget.Button;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import androidx.annotation.NonNull;
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.camera.core.CameraSelector;
+import androidx.camera.core.ImageAnalysis;
+import androidx.camera.core.ImageCapture;
+import androidx.camera.core.ImageCaptureException;
+import androidx.camera.core.ImageProxy;
+import androidx.camera.core.Preview;
+import androidx.camera.core.resolutionselector.ResolutionSelector;
+import androidx.camera.core.resolutionselector.ResolutionStrategy;
+import androidx.camera.lifecycle.ProcessCameraProvider;
+import androidx.camera.view.PreviewView;
+import androidx.core.content.ContextCompat;
+
+import com.google.common.util.concurrent.ListenableFuture;
+
+import java.io.File;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * In-app camera that classifies frames live while the user frames the shot, so the predicted
+ * category is visible before the photo is taken.
+ *
+ * Analysis frames (YUV_420_888) go straight into the model input via {@link YuvToTensorConverter};
+ * {@link FrameThrottler} keeps at most one frame in inference and drops the rest. The captured
+ * photo is returned to the caller as a file Uri in the result intent's data.
+ */
+public class LiveCameraActivity extends AppCompatActivity {
+
+    private static final String TAG = "LiveCameraActivity";
+
+    private static final String CLASSIFY_KEY = "live-camera";
+    // Analysis resolution: plenty for a 224px model input, cheap to convert
+    private static final Size ANALYSIS_SIZE = new Size(640, 480);
+    // At most ~5 predictions per second; saves battery once inference is faster than that
+    private static final long MIN_FRAME_INTERVAL_NS = 200_000_000L;
+
+    private PreviewView previewView;
+    private TextView tvLiveLabel;
+    private Button btnCapture;
+
+    private PollutionClassifier classifier;
+    private final FrameThrottler throttler = new FrameThrottler(MIN_FRAME_INTERVAL_NS);
+    private ExecutorService analysisExecutor;
+    private ImageCapture imageCapture;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_live_camera);
+
+        previewView = findViewById(R.id.preview_view);
+        tvLiveLabel = findViewById(R.id.tv_live_label);
+        btnCapture  = findViewById(R.id.btn_capture);
+
+        findViewById(R.id.btn_close).setOnClickListener(v -> finish());
+        btnCapture.setOnClickListener(v -> takePhoto());
+
+        classifier = MyApplication.getClassifier(this);
+        classifier.acquire();
+        analysisExecutor = Executors.newSingleThreadExecutor(r -> new Thread(r, "camera-analysis"));
+
+        // The caller asks for CAMERA before offering this screen; bail out if it was revoked since
+        if (ContextCompat.checkSelfPermission(this, Manifest.permission.CAMERA) != PackageManager.PERMISSION_GRANTED) {
+            Toast.makeText(this, "Camera permission is required", Toast.LENGTH_SHORT).show();
+            finish();
+            return;
+        }
+        startCamera();
+    }
+
+    // ---------------------------
+    // Camera setup
+    // ---------------------------
+    private void startCamera() {
+        ListenableFuture<ProcessCameraProvider> future = ProcessCameraProvider.getInstance(this);
+        future.addListener(() -> {
+            try {
+                bindUseCases(future.get());
+            } catch (ExecutionException | InterruptedException e) {
+                Log.e(TAG, "Camera unavailable", e);
+                Toast.makeText(this, "Camera unavailable", Toast.LENGTH_SHORT).show();
+                finish();
+            }
+        }, ContextCompat.getMainExecutor(this));
+    }
+
+    private void bindUseCases(ProcessCameraProvider provider) {
+        Preview preview = new Preview.Builder().build();
+        preview.setSurfaceProvider(previewView.getSurfaceProvider());
+
+        ImageAnalysis analysis = new ImageAnalysis.Builder()
+                .setResolutionSelector(new ResolutionSelector.Builder()
+                        .setResolutionStrategy(new ResolutionStrategy(ANALYSIS_SIZE,
+                                ResolutionStrategy.FALLBACK_RULE_CLOSEST_HIGHER_THEN_LOWER))
+                        .build())
+                // Never queue frames behind a slow inference; the throttler drops the rest
+                .setBackpressureStrategy(ImageAnalysis.STRATEGY_KEEP_ONLY_LATEST)
+                .setOutputImageFormat(ImageAnalysis.OUTPUT_IMAGE_FORMAT_YUV_420_888)
+                .build();
+        analysis.setAnalyzer(analysisExecutor, this::analyze);
+
+        imageCapture = new ImageCapture.Builder()
+                .setCaptureMode(ImageCapture.CAPTURE_MODE_MINIMIZE_LATENCY)
+                .build();
+
+        provider.unbindAll();
+        provider.bindToLifecycle(this, CameraSelector.DEFAULT_BACK_CAMERA, preview, analysis, imageCapture);
+    }
+
+    // ---------------------------
+    // Live classification
+    // ---------------------------
+    private void analyze(@NonNull ImageProxy image) {
+        if (!throttler.tryBegin(System.nanoTime())) {
+            image.close();
+            return;
+        }
+        // The planes are read on the inference thread, so the image stays open until the callback
+        ImageProxy.PlaneProxy[] planes = image.getPlanes();
+        YuvToTensorConverter.Frame frame = new YuvToTensorConverter.Frame(
+                image.getWidth(), image.getHeight(), image.getImageInfo().getRotationDegrees(),
+                planes[0].getBuffer(), planes[0].getRowStride(), planes[0].getPixelStride(),
+                planes[1].getBuffer(), planes[2].getBuffer(), planes[1].getRowStride(), planes[1].getPixelStride());
+
+        classifier.classifyFrame(CLASSIFY_KEY, frame, new PollutionClassifier.Callback() {
+            @Override
+            public void onResult(ClassificationResult result) {
+                finishFrame(image);
+                tvLiveLabel.setText(getString(R.string.live_label, result.label, Math.round(result.confidence * 100)));
+            }
+
+            @Override
+            public void onError(Exception e) {
+                finishFrame(image);
+            }
+        });
+    }
+
+    private void finishFrame(ImageProxy image) {
+        image.close();
+        throttler.end(System.nanoTime());
+    }
+
+    // ---------------------------
+    // Capture
+    // ---------------------------
+    private void takePhoto() {
+        if (imageCapture == null) return;
+        btnCapture.setEnabled(false);
+
+        File dir = new File(getCacheDir(), "captures");
+        if (!dir.exists() && !dir.mkdirs()) Log.w(TAG, "Could not create " + dir);
+        File file = new File(dir, "capture-" + System.currentTimeMillis() + ".jpg");
+
+        ImageCapture.OutputFileOptions options = new ImageCapture.OutputFileOptions.Builder(file).build();
+        imageCapture.takePicture(options, ContextCompat.getMainExecutor(this), new ImageCapture.OnImageSavedCallback() {
+            @Override
+            public void onImageSaved(@NonNull ImageCapture.OutputFileResults results) {
+                setResult(RESULT_OK, new Intent().setData(Uri.fromFile(file)));
+                finish();
+            }
+
+            @Override
+            public void onError(@NonNull ImageCaptureException e) {
+                Log.e(TAG, "Capture failed", e);
+                Toast.makeText(LiveCameraActivity.this, "Could not take photo", Toast.LENGTH_SHORT).show();
+                btnCapture.setEnabled(true);
+            }
+        });
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (analysisExecutor != null) analysisExecutor.shutdown();
+        if (classifier != null) classifier.release();
+        if (isFinishing()) {
+            Log.d(TAG, "Live frames: " + throttler.admitted() + " classified, " + throttler.dropped() + " dropped");
+        }
+    }
+}
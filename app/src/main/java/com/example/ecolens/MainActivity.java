@@ -2,6 +2,7 @@ package com.example.ecolens;
 
 import android.content.Intent;
 import android.content.SharedPreferences;
+import android.content.pm.ApplicationInfo;
 import android.os.Bundle;
 import android.widget.Toast;
 
@@ -52,6 +53,14 @@ public class MainActivity extends AppCompatActivity {
         findViewById(R.id.ibProfile).setOnClickListener(v ->
                 startActivity(new Intent(MainActivity.this, Profile.class))
         );
+
+        // Debug builds only: long-press the profile icon for inference telemetry
+        if ((getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0) {
+            findViewById(R.id.ibProfile).setOnLongClickListener(v -> {
+                startActivity(new Intent(MainActivity.this, TelemetryActivity.class));
+                return true;
+            });
+        }
     }
 
     @Override
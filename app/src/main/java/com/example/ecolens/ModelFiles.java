@@ -0,0 +1,114 @@
+package com.example.ecolens;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * File-level helpers for model updates: mapping, checksum and shape validation, atomic install.
+ *
+ * A model file {@code x.tflite} is accompanied by a {@code x.tflite.sha256} sidecar holding its
+ * hex SHA-256 (the first token, so {@code sha256sum} output works as-is). Pure Java.
+ */
+final class ModelFiles {
+
+    static final String CHECKSUM_SUFFIX = ".sha256";
+
+    private ModelFiles() {}
+
+    /** Read-only mapping of {@code file}; the mapping stays valid after the channel is closed. */
+    static MappedByteBuffer map(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    static File checksumFile(File model) {
+        return new File(model.getPath() + CHECKSUM_SUFFIX);
+    }
+
+    /** Parses a sidecar checksum: first whitespace-separated token, lower-cased. */
+    static String parseChecksum(String text) throws IOException {
+        String token = text.trim().split("\\s+", 2)[0].toLowerCase(Locale.US);
+        if (!token.matches("[0-9a-f]{64}")) throw new IOException("Malformed SHA-256: " + token);
+        return token;
+    }
+
+    static String readChecksum(InputStream in) throws IOException {
+        byte[] buffer = new byte[256];
+        int length = 0;
+        int read;
+        while (length < buffer.length && (read = in.read(buffer, length, buffer.length - length)) != -1) {
+            length += read;
+        }
+        return parseChecksum(new String(buffer, 0, length, StandardCharsets.US_ASCII));
+    }
+
+    /** Hashes {@code model} (without moving its position) and fails unless it equals {@code expected}. */
+    static String verifyChecksum(ByteBuffer model, String expected) throws IOException {
+        String actual = ContentHash.sha256(model.duplicate());
+        if (!actual.equals(expected)) {
+            throw new IOException("Checksum mismatch: expected " + expected + ", got " + actual);
+        }
+        return actual;
+    }
+
+    /** The classifier expects an image input [1, h, w, 3] and one score per label. */
+    static void verifyShapes(int[] input, int[] output, int labelCount) throws IOException {
+        if (input.length != 4 || input[0] != 1 || input[3] != 3 || input[1] <= 0 || input[2] <= 0) {
+            throw new IOException("Unexpected input shape " + Arrays.toString(input) + ", want [1, h, w, 3]");
+        }
+        int scores = 1;
+        for (int d : output) scores *= d;
+        if (scores != labelCount) {
+            throw new IOException("Output shape " + Arrays.toString(output) + " has " + scores
+                    + " scores, want " + labelCount);
+        }
+    }
+
+    /**
+     * Copies {@code source} to {@code target} via a temp file + rename, writing the checksum sidecar
+     * first. Each file is replaced atomically, but the pair is not: between the two renames (or
+     * after a crash there) a reader pairs the new checksum with the old model and rejects it, so
+     * callers must serialize installs with their reads (as {@link ModelRegistry} does) and re-read
+     * once the model file changes. A new model never passes with a stale checksum.
+     */
+    static void install(File source, String sha256, File target) throws IOException {
+        File parent = target.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("Cannot create " + parent);
+        }
+        try (InputStream in = new ByteArrayInputStream((sha256 + "\n").getBytes(StandardCharsets.US_ASCII))) {
+            writeAtomically(checksumFile(target), in);
+        }
+        try (InputStream in = new FileInputStream(source)) {
+            writeAtomically(target, in);
+        }
+    }
+
+    private static void writeAtomically(File target, InputStream in) throws IOException {
+        File tmp = new File(target.getPath() + ".tmp");
+        try (OutputStream out = new FileOutputStream(tmp)) {
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        }
+        if (!tmp.renameTo(target)) {
+            throw new IOException("Cannot replace " + target);
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.example.ecolens;
+
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.util.Log;
+
+import org.tensorflow.lite.Interpreter;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Owns every model the classifier can run and decides which one is active.
+ *
+ * Each model (bundled asset or downloaded file) is memory-mapped, checksummed and shape-checked
+ * against {@link ClassificationResult#LABELS} exactly once. A validated model placed at
+ * {@code files/models/pollution.tflite} (with its {@code .sha256} sidecar, see {@link ModelFiles})
+ * takes precedence over the bundled float model ({@link #BUNDLED_MODEL}). Either may be float or
+ * quantized; {@link ModelSlot} handles both.
+ *
+ * {@link #checkForUpdate()} swaps to a newer downloaded file without a restart. The swap is a single
+ * reference write; the listener retires the executor's interpreters, so jobs already running finish
+ * on the old model and new jobs build interpreters for the new one.
+ */
+final class ModelRegistry {
+
+    private static final String TAG = "ModelRegistry";
+
+    static final String MODELS_DIR = "models";
+    static final String UPDATE_MODEL = "pollution.tflite";
+    static final String BUNDLED_MODEL = "best_float32.tflite";
+
+    /** A validated, memory-mapped model with a content-derived version string. */
+    static final class Model {
+        final String name;
+        final MappedByteBuffer buffer;
+        final String sha256;
+        final String version;
+
+        Model(String name, MappedByteBuffer buffer, String sha256) {
+            this.name = name;
+            this.buffer = buffer;
+            this.sha256 = sha256;
+            // Cached results are invalidated whenever the model bytes change
+            this.version = name + "@" + sha256.substring(0, 16);
+        }
+    }
+
+    interface Listener {
+        void onModelChanged(Model model);
+    }
+
+    private final Context appContext;
+    private final File updateFile;
+    private final ExecutorService updateExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "model-update");
+        t.setPriority(Thread.MIN_PRIORITY);
+        return t;
+    });
+
+    private volatile Model active;
+    private volatile Listener listener;
+
+    // Guarded by "this"
+    private final Map<String, Model> assets = new HashMap<>();
+    private long updateStamp;   // length + mtime of the update file the active model came from (0 = none)
+
+    ModelRegistry(Context context) {
+        this.appContext = context.getApplicationContext();
+        this.updateFile = new File(new File(appContext.getFilesDir(), MODELS_DIR), UPDATE_MODEL);
+    }
+
+    void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /** The model new interpreters should be built from, resolving it on first call. Call off the main thread. */
+    Model active() throws IOException {
+        Model current = active;
+        if (current != null) return current;
+        synchronized (this) {
+            if (active == null) {
+                Model updated = loadUpdate();
+                active = updated != null ? updated : asset(BUNDLED_MODEL);
+                Log.d(TAG, "Active model: " + active.version);
+            }
+            return active;
+        }
+    }
+
+    /** Bundled model by asset name, mapped and validated once per process. */
+    synchronized Model asset(String assetName) throws IOException {
+        Model model = assets.get(assetName);
+        if (model == null) {
+            MappedByteBuffer buffer = mapAsset(assetName);
+            // A bundled sidecar is optional (the APK is signed) but checked when present
+            String expected = assetChecksum(assetName);
+            String sha256 = expected != null
+                    ? ModelFiles.verifyChecksum(buffer, expected)
+                    : ContentHash.sha256(buffer.duplicate());
+            model = new Model(assetName, buffer, sha256);
+            verifyShapes(model);
+            assets.put(assetName, model);
+        }
+        return model;
+    }
+
+    /** Runs {@link #checkForUpdate()} on a background thread. */
+    void checkForUpdateAsync() {
+        updateExecutor.execute(() -> {
+            try {
+                checkForUpdate();
+            } catch (Exception e) {
+                Log.w(TAG, "Model update check failed", e);
+            }
+        });
+    }
+
+    /**
+     * Activates the downloaded model if it changed since it was last looked at and passes
+     * validation. A file that fails validation is ignored and the current model stays active;
+     * deleting the file reverts to the bundled model.
+     *
+     * @return true if the active model changed
+     */
+    boolean checkForUpdate() throws IOException {
+        Model changed;
+        synchronized (this) {
+            long stamp = stamp(updateFile);
+            if (stamp == updateStamp) return false;
+            Model updated = loadUpdate();
+            if (updated == null && stamp == 0 && active != null && UPDATE_MODEL.equals(active.name)) {
+                updated = asset(BUNDLED_MODEL);
+            }
+            if (updated == null || (active != null && updated.sha256.equals(active.sha256))) return false;
+            active = updated;
+            changed = updated;
+        }
+        Log.d(TAG, "Switched to model " + changed.version);
+        Listener l = listener;
+        if (l != null) l.onModelChanged(changed);
+        return true;
+    }
+
+    /**
+     * Verifies {@code source} against {@code sha256}, copies it into app storage and activates it.
+     * Call off the main thread.
+     */
+    boolean install(File source, String sha256) throws IOException {
+        ModelFiles.verifyChecksum(ModelFiles.map(source), ModelFiles.parseChecksum(sha256));
+        // Under the lock checkForUpdate() reads with, so it never sees the new sidecar with the old model
+        synchronized (this) {
+            ModelFiles.install(source, sha256, updateFile);
+        }
+        return checkForUpdate();
+    }
+
+    // ---------------------------
+    // Loading / validation
+    // ---------------------------
+
+    // Caller holds the lock. Returns null if there is no usable update file.
+    private Model loadUpdate() {
+        long stamp = stamp(updateFile);
+        updateStamp = stamp;
+        if (stamp == 0) return null;
+        try (InputStream in = new FileInputStream(ModelFiles.checksumFile(updateFile))) {
+            String expected = ModelFiles.readChecksum(in);
+            MappedByteBuffer buffer = ModelFiles.map(updateFile);
+            Model model = new Model(UPDATE_MODEL, buffer, ModelFiles.verifyChecksum(buffer, expected));
+            verifyShapes(model);
+            return model;
+        } catch (IOException | RuntimeException e) {
+            Log.w(TAG, "Rejected " + updateFile, e);
+            return null;
+        }
+    }
+
+    private static void verifyShapes(Model model) throws IOException {
+        Interpreter interpreter;
+        try {
+            interpreter = new Interpreter(model.buffer);
+        } catch (RuntimeException e) {
+            throw new IOException("Not a loadable TFLite model: " + model.name, e);
+        }
+        try {
+            ModelFiles.verifyShapes(interpreter.getInputTensor(0).shape(),
+                    interpreter.getOutputTensor(0).shape(), ClassificationResult.LABELS.length);
+        } finally {
+            interpreter.close();
+        }
+    }
+
+    private static long stamp(File file) {
+        if (!file.isFile()) return 0;
+        return file.length() * 31 + file.lastModified();
+    }
+
+    private String assetChecksum(String assetName) {
+        try (InputStream in = appContext.getAssets().open(assetName + ModelFiles.CHECKSUM_SUFFIX)) {
+            return ModelFiles.readChecksum(in);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private MappedByteBuffer mapAsset(String assetName) throws IOException {
+        try (AssetFileDescriptor fileDescriptor = appContext.getAssets().openFd(assetName);
+             java.io.FileInputStream inputStream = new FileInputStream(fileDescriptor.getFileDescriptor());
+             FileChannel fileChannel = inputStream.getChannel()) {
+            // The mapping stays valid after the descriptor and channel are closed
+            return fileChannel.map(FileChannel.MapMode.READ_ONLY,
+                    fileDescriptor.getStartOffset(), fileDescriptor.getDeclaredLength());
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.example.ecolens;
+
+import android.graphics.Bitmap;
+import android.graphics.Rect;
+
+import org.tensorflow.lite.DataType;
+import org.tensorflow.lite.Interpreter;
+import org.tensorflow.lite.Tensor;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * One interpreter plus the buffers it reuses. Handles FLOAT32 as well as UINT8/INT8 quantized
+ * input and output tensors. Only ever used by one thread at a time.
+ *
+ * Several images (or crops of one image) can be classified in one invocation: the input is resized
+ * to [N, h, w, 3] and the images are preprocessed into it in parallel, one {@link ImagePreprocessor}
+ * per worker.
+ */
+final class ModelSlot implements ClassifierBackend {
+
+    final Interpreter interpreter;
+    final ImagePreprocessor preprocessor;
+    final String modelVersion;
+
+    // Largest batch per invocation; bigger requests are split (bounds the input buffer size)
+    static final int MAX_BATCH = 8;
+
+    private final ExecutorService preprocessPool;   // null: preprocess batches on the calling thread
+    private final int preprocessWorkers;
+    private final ImagePreprocessor[] workerPreprocessors;
+    private final int[] inputShape;
+
+    private ByteBuffer output;
+    private ByteBuffer batchInput;   // allocated on the first batch, room for MAX_BATCH images
+    private int batchSize = 1;
+    private final int numScores;
+    private final DataType outputType;
+    private final float outputScale;
+    private final int outputZeroPoint;
+
+    ModelSlot(ByteBuffer model, String modelVersion, Interpreter.Options options) {
+        this(model, modelVersion, options, null, 1);
+    }
+
+    ModelSlot(ByteBuffer model, String modelVersion, Interpreter.Options options,
+              ExecutorService preprocessPool, int preprocessWorkers) {
+        this.modelVersion = modelVersion;
+        this.preprocessPool = preprocessPool;
+        this.preprocessWorkers = Math.max(1, preprocessWorkers);
+        interpreter = new Interpreter(model, options);
+        preprocessor = ImagePreprocessor.forTensor(interpreter.getInputTensor(0));
+        inputShape = interpreter.getInputTensor(0).shape();
+        workerPreprocessors = new ImagePreprocessor[this.preprocessWorkers];
+        workerPreprocessors[0] = preprocessor;
+
+        Tensor out = interpreter.getOutputTensor(0);
+        numScores = out.numElements();   // per image, the interpreter starts with batch size 1
+        outputType = out.dataType();
+        outputScale = out.quantizationParams().getScale();
+        outputZeroPoint = out.quantizationParams().getZeroPoint();
+        if (outputType != DataType.FLOAT32 && outputType != DataType.UINT8 && outputType != DataType.INT8) {
+            interpreter.close();
+            throw new IllegalArgumentException("Unsupported output tensor type: " + outputType);
+        }
+        output = ByteBuffer.allocateDirect(out.numBytes()).order(ByteOrder.nativeOrder());
+    }
+
+    @Override
+    public String name() {
+        return "interpreter";
+    }
+
+    /** Runs the model on {@code bitmap} and returns a fresh array of (dequantized) scores. */
+    @Override
+    public float[] scores(Bitmap bitmap) {
+        resizeBatch(1);
+        run(preprocessor.process(bitmap));
+        return readScores();
+    }
+
+    /** Runs the model on {@code bitmap} and maps its scores to a label. */
+    ClassificationResult classify(Bitmap bitmap, float threshold) {
+        resizeBatch(1);
+        run(preprocessor.process(bitmap));
+
+        InferenceTelemetry telemetry = InferenceTelemetry.get();
+        long t = telemetry.start();
+        ClassificationResult result = ClassificationResult.fromScores(readScores(), ClassificationResult.LABELS, threshold);
+        telemetry.stop(InferenceTelemetry.Stage.POSTPROCESS, t);
+        return result;
+    }
+
+    /** Classifies one YUV camera frame, converted directly into the input tensor. */
+    ClassificationResult classifyFrame(YuvToTensorConverter.Frame frame, float threshold) {
+        resizeBatch(1);
+        run(preprocessor.processFrame(frame));
+        return ClassificationResult.fromScores(readScores(), ClassificationResult.LABELS, threshold);
+    }
+
+    /** Runs the model once on a blank input. */
+    @Override
+    public void warmUp() {
+        resizeBatch(1);
+        run(preprocessor.blankInput());
+    }
+
+    /**
+     * Scores every bitmap, batching up to {@link #MAX_BATCH} images per interpreter invocation.
+     * Returns one fresh (dequantized) score array per bitmap, in order.
+     */
+    float[][] scoresBatch(List<Bitmap> bitmaps) throws Exception {
+        return scoresRegions(bitmaps, null);
+    }
+
+    /**
+     * Like {@link #scoresBatch}, but entry {@code i} scores only the {@code regions.get(i)} crop of
+     * {@code bitmaps.get(i)} (scaled to the model input, without an intermediate Bitmap). A null
+     * list or null entry means the whole bitmap.
+     */
+    float[][] scoresRegions(List<Bitmap> bitmaps, List<TileGrid.Tile> regions) throws Exception {
+        float[][] scores = new float[bitmaps.size()][];
+        for (int start = 0; start < bitmaps.size(); start += MAX_BATCH) {
+            int n = Math.min(MAX_BATCH, bitmaps.size() - start);
+            run(preprocessBatch(bitmaps, regions, start, n));
+            float[] all = readScores();
+            for (int i = 0; i < n; i++) {
+                scores[start + i] = Arrays.copyOfRange(all, i * numScores, (i + 1) * numScores);
+            }
+        }
+        return scores;
+    }
+
+    private ByteBuffer preprocessBatch(List<Bitmap> bitmaps, List<TileGrid.Tile> regions,
+                                       int start, int n) throws Exception {
+        resizeBatch(n);
+        int bytesPerImage = preprocessor.inputBytes();
+        if (batchInput == null || batchInput.capacity() < n * bytesPerImage) {
+            batchInput = ByteBuffer.allocateDirect(MAX_BATCH * bytesPerImage).order(ByteOrder.nativeOrder());
+        }
+        ByteBuffer input = batchInput;
+        ParallelFor.run(preprocessPool, n, preprocessWorkers, (worker, i) -> {
+            ImagePreprocessor p = workerPreprocessor(worker);
+            ByteBuffer slice = input.duplicate().order(ByteOrder.nativeOrder());
+            slice.position(i * bytesPerImage);
+            slice.limit((i + 1) * bytesPerImage);
+            TileGrid.Tile tile = regions != null ? regions.get(start + i) : null;
+            Rect crop = tile != null ? new Rect(tile.x, tile.y, tile.x + tile.width, tile.y + tile.height) : null;
+            p.processInto(bitmaps.get(start + i), crop, slice.slice().order(ByteOrder.nativeOrder()));
+        });
+        ByteBuffer view = batchInput.duplicate().order(ByteOrder.nativeOrder());
+        view.position(0);
+        view.limit(n * bytesPerImage);
+        return view;
+    }
+
+    // Each worker id is used by one thread at a time; the lock only publishes lazily created copies
+    private ImagePreprocessor workerPreprocessor(int worker) {
+        synchronized (workerPreprocessors) {
+            if (workerPreprocessors[worker] == null) workerPreprocessors[worker] = preprocessor.copy();
+            return workerPreprocessors[worker];
+        }
+    }
+
+    /** Resizes the input to [n, h, w, 3] (and the output buffer to match) if the batch size changed. */
+    private void resizeBatch(int n) {
+        if (n == batchSize) return;
+        interpreter.resizeInput(0, new int[]{n, inputShape[1], inputShape[2], inputShape[3]});
+        interpreter.allocateTensors();
+        output = ByteBuffer.allocateDirect(interpreter.getOutputTensor(0).numBytes()).order(ByteOrder.nativeOrder());
+        batchSize = n;
+    }
+
+    private void run(ByteBuffer input) {
+        InferenceTelemetry telemetry = InferenceTelemetry.get();
+        long t = telemetry.start();
+        output.rewind();
+        interpreter.run(input, output);
+        telemetry.stop(InferenceTelemetry.Stage.INVOKE, t);
+    }
+
+    private float[] readScores() {
+        float[] scores = new float[numScores * batchSize];
+        if (outputType == DataType.FLOAT32) {
+            output.rewind();
+            output.asFloatBuffer().get(scores);
+        } else {
+            TensorQuantization.dequantize(output, scores.length, outputScale, outputZeroPoint,
+                    outputType == DataType.INT8, scores);
+        }
+        return scores;
+    }
+
+    @Override
+    public void close() {
+        interpreter.close();
+        for (ImagePreprocessor p : workerPreprocessors) {
+            if (p != null) p.release();
+        }
+    }
+}
@@ -1,12 +1,54 @@
 package com.example.ecolens;
 
 import android.app.Application;
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+
 import com.google.firebase.FirebaseApp;
 
 public class MyApplication extends Application {
+
+    private PollutionClassifier classifier;
+
     @Override
     public void onCreate() {
         super.onCreate();
         FirebaseApp.initializeApp(this); // Initialize Firebase here
+        FirestoreProvider.get();          // apply the cache settings before anything reads
+
+        // Histograms are always on (cheap); per-run logging only in debuggable builds
+        boolean debuggable = (getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0;
+        InferenceTelemetry.get().setLevel(debuggable ? InferenceTelemetry.Level.DETAILED : InferenceTelemetry.Level.SUMMARY);
+        // The classifier is created on first use: WorkManager jobs (uploads, outbox flushes) start
+        // this process too and never classify. Screens that do warm it up via acquire().
+    }
+
+    public static PollutionClassifier getClassifier(Context context) {
+        MyApplication app = (MyApplication) context.getApplicationContext();
+        synchronized (app) {
+            if (app.classifier == null) app.classifier = new PollutionClassifier(app);
+            return app.classifier;
+        }
+    }
+
+    // Null until a screen has asked for the classifier
+    private synchronized PollutionClassifier loadedClassifier() {
+        return classifier;
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        PollutionClassifier loaded = loadedClassifier();
+        if (level >= TRIM_MEMORY_BACKGROUND && loaded != null) {
+            loaded.trimMemory();
+        }
+    }
+
+    @Override
+    public void onLowMemory() {
+        super.onLowMemory();
+        PollutionClassifier loaded = loadedClassifier();
+        if (loaded != null) loaded.trimMemory();
     }
 }
@@ -0,0 +1,102 @@
+package com.example.ecolens;
+
+import android.util.Log;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * "Reports within R km" without downloading the whole collection: the circle is covered by a few
+ * {@link GeoHash} ranges ({@link GeoHash#cover}), each a range query on the stored geohash, and
+ * the merged results are filtered by real distance, nearest first.
+ *
+ * New reports get their geohash fields from {@link #geohashFields}; reports written before that
+ * have none and are not found.
+ */
+final class NearbyReportsQuery {
+
+    private static final String TAG = "NearbyReportsQuery";
+
+    // Full-precision geohash (~1 m cells) for range queries
+    static final String FIELD_GEOHASH = "geohash";
+    static final int GEOHASH_PRECISION = 10;
+    // Prefixes for equality / whereIn lookups of a cell and its neighbours
+    static final String FIELD_GEOHASH_5 = "geohash5";   // ~4.9 km x 4.9 km
+    static final String FIELD_GEOHASH_7 = "geohash7";   // ~153 m x 153 m
+
+    // Cells per query; merged runs usually make it fewer range queries
+    static final int MAX_CELLS = 8;
+
+    /** One report and its distance from the query point. */
+    static final class Result {
+        final DocumentSnapshot doc;
+        final double distanceMeters;
+
+        Result(DocumentSnapshot doc, double distanceMeters) {
+            this.doc = doc;
+            this.distanceMeters = distanceMeters;
+        }
+    }
+
+    interface Callback {
+        void onResult(List<Result> results);
+
+        void onError(Exception e);
+    }
+
+    private final CollectionReference reports;
+
+    NearbyReportsQuery() {
+        this.reports = FirestoreProvider.get().collection("reports");
+    }
+
+    /** The geohash fields stored with a report at (lat, lon). */
+    static Map<String, Object> geohashFields(double lat, double lon) {
+        String geohash = GeoHash.encode(lat, lon, GEOHASH_PRECISION);
+        Map<String, Object> fields = new HashMap<>();
+        fields.put(FIELD_GEOHASH, geohash);
+        fields.put(FIELD_GEOHASH_5, geohash.substring(0, 5));
+        fields.put(FIELD_GEOHASH_7, geohash.substring(0, 7));
+        return fields;
+    }
+
+    /** Reports within {@code radiusKm} of (lat, lon), nearest first; callback on the main thread. */
+    void find(double lat, double lon, double radiusKm, Callback callback) {
+        double radiusMeters = radiusKm * 1000;
+        List<GeoHash.Range> ranges = GeoHash.cover(lat, lon, radiusMeters, MAX_CELLS);
+        List<Task<QuerySnapshot>> queries = new ArrayList<>();
+        for (GeoHash.Range range : ranges) {
+            queries.add(reports.orderBy(FIELD_GEOHASH).startAt(range.start).endAt(range.end + "~").get());
+        }
+        Log.d(TAG, radiusKm + " km around " + lat + "," + lon + ": " + ranges);
+
+        Tasks.whenAllSuccess(queries)
+                .addOnSuccessListener(snapshots -> {
+                    // Ranges do not overlap, but a report can move between them between queries
+                    Map<String, Result> byId = new LinkedHashMap<>();
+                    for (Object snapshot : snapshots) {
+                        for (DocumentSnapshot doc : ((QuerySnapshot) snapshot).getDocuments()) {
+                            Double docLat = doc.getDouble("latitude");
+                            Double docLon = doc.getDouble("longitude");
+                            if (docLat == null || docLon == null) continue;
+                            double d = GeoHash.distanceMeters(lat, lon, docLat, docLon);
+                            if (d <= radiusMeters) byId.put(doc.getId(), new Result(doc, d));
+                        }
+                    }
+                    List<Result> results = new ArrayList<>(byId.values());
+                    results.sort(Comparator.comparingDouble(r -> r.distanceMeters));
+                    callback.onResult(results);
+                })
+                .addOnFailureListener(callback::onError);
+    }
+}
@@ -0,0 +1,273 @@
+package com.example.ecolens;
+
+import android.content.Context;
+import android.net.Uri;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkInfo;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.WriteBatch;
+import com.google.firebase.storage.FirebaseStorage;
+import com.google.firebase.storage.StorageException;
+import com.google.firebase.storage.StorageReference;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes queued {@link ReportOutbox} reports to Firestore in batches whenever the device is online.
+ *
+ * Each report's photos are confirmed first (already uploaded by {@link UploadWorker}, else uploaded
+ * here from the local file); the report stores their Storage paths, which screens load through
+ * {@link StorageImageLoader}. Documents are written with their client-generated ids, so a batch
+ * that is retried after an unknown outcome just rewrites the same documents. Failed entries back
+ * off individually ({@link RetryBackoff}); a follow-up run is scheduled for the earliest one.
+ *
+ * Immediate flushes and the delayed follow-up are separate unique works, so a report submitted
+ * while a backoff retry is pending (up to hours away) is still sent as soon as the device is
+ * online instead of waiting behind it. Runs never overlap ({@link #FLUSH_LOCK}).
+ */
+public class OutboxFlushWorker extends Worker {
+
+    private static final String TAG = "OutboxFlushWorker";
+
+    static final String WORK_NAME = "outbox-flush";
+    static final String RETRY_WORK_NAME = "outbox-flush-retry";
+    private static final int BATCH_SIZE = 20;
+    private static final long NETWORK_TIMEOUT_S = 60;
+    private static final RetryBackoff BACKOFF = new RetryBackoff(
+            TimeUnit.SECONDS.toMillis(30), TimeUnit.HOURS.toMillis(6), 0.3);
+    // Staged photos that no queued report or running upload needs are removed after this long
+    private static final long ORPHAN_AGE_MS = TimeUnit.DAYS.toMillis(7);
+
+    // An immediate run and a retry can both be started; one flushes while the other waits
+    private static final Object FLUSH_LOCK = new Object();
+
+    private final Random random = new Random();
+
+    public OutboxFlushWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    /**
+     * Flushes as soon as the device is online; a run already in progress is followed by another.
+     * Only undelayed runs are ever in this chain, so a pending backoff retry never holds it up.
+     */
+    static void schedule(Context context) {
+        WorkManager.getInstance(context).enqueueUniqueWork(WORK_NAME, ExistingWorkPolicy.APPEND_OR_REPLACE, request(0));
+    }
+
+    // The earliest backoff, recomputed after every run, supersedes any retry scheduled before
+    // (including the calling retry run itself, which has finished its work by then)
+    private static void scheduleRetry(Context context, long delayMs) {
+        WorkManager.getInstance(context).enqueueUniqueWork(RETRY_WORK_NAME, ExistingWorkPolicy.REPLACE, request(delayMs));
+    }
+
+    private static OneTimeWorkRequest request(long delayMs) {
+        return new OneTimeWorkRequest.Builder(OutboxFlushWorker.class)
+                .setConstraints(new Constraints.Builder()
+                        .setRequiredNetworkType(NetworkType.CONNECTED)
+                        .build())
+                .setInitialDelay(delayMs, TimeUnit.MILLISECONDS)
+                .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, 30, TimeUnit.SECONDS)
+                .build();
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        synchronized (FLUSH_LOCK) {
+            return flush();
+        }
+    }
+
+    private Result flush() {
+        ReportOutbox outbox = ReportOutbox.get(getApplicationContext());
+        FirebaseFirestore db = FirestoreProvider.get();
+        int written = 0;
+
+        // Every entry returned by due() is either removed or pushed into the future, so this ends
+        List<ReportOutbox.Entry> due;
+        while (!isStopped() && !(due = outbox.due(System.currentTimeMillis(), BATCH_SIZE)).isEmpty()) {
+            WriteBatch batch = db.batch();
+            List<ReportOutbox.Entry> ready = new ArrayList<>();
+            for (ReportOutbox.Entry entry : due) {
+                try {
+                    confirmPhotos(outbox, entry);
+                } catch (Exception e) {
+                    fail(outbox, entry, e);
+                    continue;
+                }
+                batch.set(db.collection("reports").document(entry.id), document(entry));
+                ready.add(entry);
+            }
+            if (ready.isEmpty()) continue;
+
+            try {
+                Tasks.await(batch.commit(), NETWORK_TIMEOUT_S, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                for (ReportOutbox.Entry entry : ready) fail(outbox, entry, e);
+                continue;
+            }
+            List<String> ids = new ArrayList<>();
+            for (ReportOutbox.Entry entry : ready) {
+                ids.add(entry.id);
+                for (ReportOutbox.Photo photo : entry.photos) {
+                    for (String file : photo.localFiles()) deleteLocal(file);
+                }
+            }
+            outbox.remove(ids);
+            written += ready.size();
+        }
+
+        if (written > 0) Log.d(TAG, "Flushed " + written + " report(s)");
+        deleteOrphans(outbox);
+
+        long next = outbox.nextAttemptAt();
+        if (next >= 0) scheduleRetry(getApplicationContext(), Math.max(0, next - System.currentTimeMillis()));
+        return Result.success();
+    }
+
+    /**
+     * Makes sure every photo exists in Storage, uploading local files that no upload has produced
+     * yet. Photos that can no longer be uploaded are dropped from the report.
+     */
+    private void confirmPhotos(ReportOutbox outbox, ReportOutbox.Entry entry) throws Exception {
+        boolean changed = false;
+        try {
+            for (Iterator<ReportOutbox.Photo> it = entry.photos.iterator(); it.hasNext(); ) {
+                ReportOutbox.Photo photo = it.next();
+                if (photo.uploaded) continue;
+                if (photo.path == null || !confirmPhoto(photo)) {
+                    // Nothing left to upload; better a report missing a photo than no report
+                    Log.w(TAG, "A photo of report " + entry.id + " is gone; sending it without");
+                    it.remove();
+                } else {
+                    photo.uploaded = true;
+                }
+                changed = true;
+            }
+        } finally {
+            // Keep what was confirmed even if a later photo failed
+            if (changed) outbox.updatePhotos(entry);
+        }
+    }
+
+    /** True once the photo is in Storage; false if it is not and its local file is gone. */
+    private boolean confirmPhoto(ReportOutbox.Photo photo) throws Exception {
+        // Variants first, as in UploadWorker; one that is lost only costs the report its thumbnails
+        if (photo.variants) {
+            for (UploadEncoder.Variant v : UploadEncoder.Variant.values()) {
+                String localFile = photo.localFile != null ? v.name(photo.localFile) : null;
+                if (!confirmObject(photo.path, v.name(photo.path), localFile)) photo.variants = false;
+            }
+        }
+        return confirmObject(photo.path, photo.path, photo.localFile);
+    }
+
+    /** Makes sure {@code path} exists, uploading {@code localFile} if needed; false if it cannot. */
+    private boolean confirmObject(String photoPath, String path, String localFile) throws Exception {
+        UploadedObjects index = UploadWorker.uploadedObjects(getApplicationContext());
+        if (index.contains(path)) return true;
+        StorageReference ref = FirebaseStorage.getInstance().getReference(path);
+        try {
+            Tasks.await(ref.getMetadata(), NETWORK_TIMEOUT_S, TimeUnit.SECONDS);
+            index.add(path);
+            return true;
+        } catch (Exception e) {
+            if (!isNotFound(e)) throw e;
+        }
+        if (uploadRunning(photoPath)) throw new IllegalStateException("photo upload still running");
+
+        File file = localFile != null ? new File(localFile) : null;
+        if (file == null || !file.exists()) return false;
+        Tasks.await(ref.putFile(Uri.fromFile(file), UploadWorker.metadata(UploadEncoder.Format.of(path).mimeType)),
+                NETWORK_TIMEOUT_S * 5, TimeUnit.SECONDS);
+        index.add(path);
+        return true;
+    }
+
+    private boolean uploadRunning(String photoPath) {
+        try {
+            for (WorkInfo info : WorkManager.getInstance(getApplicationContext())
+                    .getWorkInfosForUniqueWork(UploadWorker.workName(photoPath)).get()) {
+                if (!info.getState().isFinished()) return true;
+            }
+        } catch (Exception e) {
+            Log.w(TAG, "Could not query upload state", e);
+        }
+        return false;
+    }
+
+    private static Map<String, Object> document(ReportOutbox.Entry entry) {
+        Map<String, Object> data = new HashMap<>(entry.fields);
+        // Storage paths rather than download URLs: no URL lookup per upload, and shorter documents
+        List<String> paths = new ArrayList<>();
+        // Index-aligned with photoPaths; "" where a photo has no variants (queued before they existed)
+        List<String> thumbnails = new ArrayList<>();
+        List<String> mediums = new ArrayList<>();
+        for (ReportOutbox.Photo photo : entry.photos) {
+            paths.add(photo.path);
+            thumbnails.add(photo.variants ? UploadEncoder.Variant.SMALL.name(photo.path) : "");
+            mediums.add(photo.variants ? UploadEncoder.Variant.MEDIUM.name(photo.path) : "");
+        }
+        data.put("photoPaths", paths);
+        data.put("photoPath", paths.isEmpty() ? "" : paths.get(0));
+        data.put("thumbnailPaths", thumbnails);
+        data.put("mediumPaths", mediums);
+        // When the report was made, not when it finally got through
+        data.put("timestamp", new Timestamp(new Date(entry.createdAt)));
+        return data;
+    }
+
+    private void fail(ReportOutbox outbox, ReportOutbox.Entry entry, Exception e) {
+        long delay = BACKOFF.delayMillis(entry.attempts, random.nextDouble());
+        Log.w(TAG, "Report " + entry.id + " attempt " + (entry.attempts + 1) + " failed; retrying in "
+                + delay / 1000 + " s", e);
+        outbox.markFailed(entry.id, entry.attempts + 1, System.currentTimeMillis() + delay, String.valueOf(e.getMessage()));
+    }
+
+    private static boolean isNotFound(Exception e) {
+        Throwable cause = e.getCause() != null ? e.getCause() : e;
+        return cause instanceof StorageException
+                && ((StorageException) cause).getErrorCode() == StorageException.ERROR_OBJECT_NOT_FOUND;
+    }
+
+    private static void deleteLocal(String path) {
+        if (path == null) return;
+        File file = new File(path);
+        if (file.exists() && !file.delete()) Log.w(TAG, "Could not delete " + file);
+    }
+
+    // Photos staged for forms that were abandoned before submitting
+    private void deleteOrphans(ReportOutbox outbox) {
+        File[] files = UploadWorker.stagingDir(getApplicationContext()).listFiles();
+        if (files == null) return;
+        Set<String> referenced = new HashSet<>(outbox.localFiles());
+        long cutoff = System.currentTimeMillis() - ORPHAN_AGE_MS;
+        for (File file : files) {
+            if (file.lastModified() < cutoff && !referenced.contains(file.getAbsolutePath())) deleteLocal(file.getAbsolutePath());
+        }
+    }
+}
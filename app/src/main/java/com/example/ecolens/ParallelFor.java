@@ -0,0 +1,58 @@
+package com.example.ecolens;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Minimal parallel loop over {@code [0, count)} for CPU-bound batch work (e.g. preprocessing the
+ * images of a batch). Worker {@code w} handles indexes {@code w, w + workers, ...}, so each worker
+ * can own non-thread-safe scratch state indexed by its id. The calling thread acts as worker 0.
+ * Pure Java.
+ */
+final class ParallelFor {
+
+    interface Body {
+        void run(int worker, int index) throws Exception;
+    }
+
+    private ParallelFor() {}
+
+    /**
+     * Runs {@code body} for every index using up to {@code workers} threads ({@code pool} supplies
+     * all but the caller's). Blocks until every index is done; rethrows the first failure.
+     */
+    static void run(ExecutorService pool, int count, int workers, Body body) throws Exception {
+        int w = Math.max(1, Math.min(workers, count));
+        if (w == 1 || pool == null) {
+            for (int i = 0; i < count; i++) body.run(0, i);
+            return;
+        }
+
+        List<Future<?>> futures = new ArrayList<>(w - 1);
+        for (int worker = 1; worker < w; worker++) {
+            final int id = worker;
+            futures.add(pool.submit(() -> {
+                for (int i = id; i < count; i += w) body.run(id, i);
+                return null;
+            }));
+        }
+
+        Exception failure = null;
+        try {
+            for (int i = 0; i < count; i += w) body.run(0, i);
+        } catch (Exception e) {
+            failure = e;
+        }
+        for (Future<?> f : futures) {
+            try {
+                f.get();
+            } catch (ExecutionException e) {
+                if (failure == null) failure = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+            }
+        }
+        if (failure != null) throw failure;
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.ecolens;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Small disk-backed LRU map, shared by the app's local caches and indexes.
+ *
+ * The whole map is one text file with an entry per line ("key" or "key \t value"), loaded lazily
+ * and rewritten atomically. Rewrites happen on a background thread shortly after a put, so a burst
+ * of puts costs one write and callers never wait on disk; entries put just before the process dies
+ * may be lost, so only data that can be recomputed belongs here. A failed write is retried on the
+ * next put. Pure Java; thread-safe.
+ */
+public final class PersistedLru<V> {
+
+    /** Turns values into the text after a key's tab and back. */
+    public interface Codec<V> {
+        /** Must not contain a newline; an empty string stores the bare key. */
+        String encode(V value);
+
+        /** Parses what {@link #encode} wrote; null or an IllegalArgumentException skips the line. */
+        V decode(String text);
+    }
+
+    // Puts within this window are persisted together
+    static final long SAVE_DELAY_MS = 2000;
+    private static final ScheduledExecutorService SAVER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "persisted-lru");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final File file;
+    private final int maxEntries;
+    private final Codec<V> codec;
+    private final Executor saveExecutor;
+
+    // Guarded by "this"; access-ordered so iteration runs from least to most recently used
+    private final LinkedHashMap<String, V> entries;
+    private boolean loaded = false;
+    private boolean savePending = false;
+    private boolean saveFailed = false;
+
+    public PersistedLru(File file, int maxEntries, Codec<V> codec) {
+        this(file, maxEntries, codec, r -> SAVER.schedule(r, SAVE_DELAY_MS, TimeUnit.MILLISECONDS));
+    }
+
+    /** {@code saveExecutor} runs the (debounced) rewrites; must not run two at once. */
+    PersistedLru(File file, int maxEntries, Codec<V> codec, Executor saveExecutor) {
+        this.file = file;
+        this.maxEntries = maxEntries;
+        this.codec = codec;
+        this.saveExecutor = saveExecutor;
+        this.entries = new LinkedHashMap<String, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                return size() > PersistedLru.this.maxEntries;
+            }
+        };
+    }
+
+    public synchronized V get(String key) {
+        ensureLoaded();
+        return entries.get(key);
+    }
+
+    public synchronized void put(String key, V value) {
+        ensureLoaded();
+        V old = entries.put(key, value);
+        if (value.equals(old) && !saveFailed) return;   // nothing new to write
+        if (savePending) return;                        // the queued save will include this entry
+        savePending = true;
+        saveExecutor.execute(this::persist);
+    }
+
+    public synchronized int size() {
+        ensureLoaded();
+        return entries.size();
+    }
+
+    // ---------------------------
+    // Persistence
+    // ---------------------------
+    private void ensureLoaded() {
+        if (loaded) return;
+        loaded = true;
+        if (!file.exists()) return;
+
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) continue;
+                int tab = line.indexOf('\t');
+                try {
+                    V value = codec.decode(tab < 0 ? "" : line.substring(tab + 1));
+                    if (value != null) entries.put(tab < 0 ? line : line.substring(0, tab), value);
+                } catch (IllegalArgumentException ignored) {
+                    // Skip corrupt line
+                }
+            }
+        } catch (IOException e) {
+            entries.clear();
+        }
+    }
+
+    // Snapshot under the lock (microseconds), write outside it
+    private void persist() {
+        String contents;
+        synchronized (this) {
+            savePending = false;
+            saveFailed = false;
+            contents = serialize();
+        }
+        try {
+            save(contents);
+        } catch (IOException e) {
+            // Best-effort: keep the in-memory entries, retry persisting on the next put
+            synchronized (this) {
+                saveFailed = true;
+            }
+        }
+    }
+
+    private String serialize() {
+        StringBuilder sb = new StringBuilder(entries.size() * 64);
+        for (Map.Entry<String, V> e : entries.entrySet()) {
+            sb.append(e.getKey());
+            String value = codec.encode(e.getValue());
+            if (!value.isEmpty()) sb.append('\t').append(value);
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    private void save(String contents) throws IOException {
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("Cannot create " + parent);
+        }
+        File tmp = new File(file.getPath() + ".tmp");
+        try (BufferedWriter writer = new BufferedWriter(
+                new OutputStreamWriter(new FileOutputStream(tmp), StandardCharsets.UTF_8))) {
+            writer.write(contents);
+        }
+        if (!tmp.renameTo(file)) {
+            throw new IOException("Cannot replace " + file);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.ecolens;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+/**
+ * Converts packed ARGB_8888 pixels (the layout returned by {@code Bitmap.getPixels})
+ * into the NHWC RGB layout expected by the pollution model, either as floats or as quantized bytes.
+ *
+ * Deliberately free of Android types so it can be unit-tested and benchmarked on the JVM.
+ */
+public final class PixelTensorWriter {
+
+    private static final float INV_255 = 1.0f / 255.0f;
+
+    private PixelTensorWriter() {}
+
+    /**
+     * Writes {@code count} pixels from {@code argb} into {@code out} as consecutive R, G, B floats,
+     * starting at the buffer's current position. Alpha is ignored.
+     *
+     * @param normalize scale channels to [0,1] (float models) instead of leaving them in [0,255]
+     */
+    public static void writeRgb(int[] argb, int count, FloatBuffer out, boolean normalize) {
+        if (count > argb.length) {
+            throw new IllegalArgumentException("count " + count + " exceeds pixel array length " + argb.length);
+        }
+        if (out.remaining() < count * 3) {
+            throw new IllegalArgumentException("output buffer too small: need " + (count * 3)
+                    + " floats, have " + out.remaining());
+        }
+
+        final float scale = normalize ? INV_255 : 1.0f;
+        int pos = out.position();
+        for (int i = 0; i < count; i++) {
+            int px = argb[i];
+            out.put(pos++, ((px >> 16) & 0xFF) * scale);
+            out.put(pos++, ((px >> 8) & 0xFF) * scale);
+            out.put(pos++, (px & 0xFF) * scale);
+        }
+        out.position(pos);
+    }
+
+    /**
+     * Quantized variant of {@link #writeRgb}: writes one byte per channel using a lookup table from
+     * {@link TensorQuantization#inputTable}, starting at the buffer's current position.
+     */
+    public static void writeRgbQuantized(int[] argb, int count, ByteBuffer out, byte[] table) {
+        if (count > argb.length) {
+            throw new IllegalArgumentException("count " + count + " exceeds pixel array length " + argb.length);
+        }
+        if (out.remaining() < count * 3) {
+            throw new IllegalArgumentException("output buffer too small: need " + (count * 3)
+                    + " bytes, have " + out.remaining());
+        }
+
+        int pos = out.position();
+        for (int i = 0; i < count; i++) {
+            int px = argb[i];
+            out.put(pos++, table[(px >> 16) & 0xFF]);
+            out.put(pos++, table[(px >> 8) & 0xFF]);
+            out.put(pos++, table[px & 0xFF]);
+        }
+        out.position(pos);
+    }
+}
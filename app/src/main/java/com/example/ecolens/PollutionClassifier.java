@@ -0,0 +1,414 @@
+package com.example.ecolens;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import org.tensorflow.lite.Interpreter;
+import org.tensorflow.lite.Tensor;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Process-wide owner of the pollution TFLite model, hosted by {@link MyApplication}.
+ *
+ * It is created lazily by {@link MyApplication#getClassifier} the first time a screen needs it, so
+ * background workers never load the model. Activities borrow the classifier with
+ * {@link #acquire()} / {@link #release()}; the first borrower maps and warms up the model on a
+ * background thread. On memory pressure the native interpreters are closed as soon as nobody is
+ * borrowing them and reloaded lazily on the next request.
+ *
+ * The model comes from {@link ModelRegistry} (a downloaded update, else the bundled model), and
+ * interpreters are built with the per-device options chosen by {@link InterpreterTuner}
+ * (calibrated on first run). Inference runs on an
+ * {@link InferenceExecutor} with a small pool of interpreters, a bounded queue and latest-wins
+ * cancellation per request key.
+ */
+public class PollutionClassifier {
+
+    private static final String TAG = "PollutionClassifier";
+
+    static final float CONFIDENCE_THRESHOLD = 0.80f; // using 0.80 for model acceptance
+
+    // Interpreter pool / queue sizing: enough to overlap two requests without oversubscribing the CPU
+    private static final int POOL_SIZE = 2;
+    private static final int QUEUE_CAPACITY = 4;
+    private static final String WARM_UP_KEY = "warm-up";
+    private static final int CACHE_ENTRIES = 256;
+    // Tiled mode: overlapping crops at model resolution, as many as fit the latency budget on this device
+    private static final long TILE_BUDGET_MS = 400;
+    private static final int MAX_TILES = 16;
+    private static final float TILE_OVERLAP = 0.25f;
+    private static final String TILED_VERSION_SUFFIX = "#tiled";
+    // Batch preprocessing threads shared by all interpreters (the inference thread itself is one more worker)
+    private static final int PREPROCESS_WORKERS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+    public interface Callback {
+        void onResult(ClassificationResult result);
+
+        void onError(Exception e);
+    }
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final InferenceExecutor<ModelSlot> executor;
+    private final InterpreterTuner tuner;
+    private final ModelRegistry registry;
+    private final ClassificationCache cache;
+    private final InferenceTelemetry telemetry = InferenceTelemetry.get();
+    private final ExecutorService preprocessPool = PREPROCESS_WORKERS > 1
+            ? Executors.newFixedThreadPool(PREPROCESS_WORKERS - 1, r -> {
+                Thread t = new Thread(r, "tflite-preprocess");
+                t.setDaemon(true);
+                return t;
+            })
+            : null;
+
+    // Guarded by "this"
+    private int borrowers = 0;
+    private boolean trimRequested = false;
+
+    PollutionClassifier(Context context) {
+        Context appContext = context.getApplicationContext();
+        this.tuner = new InterpreterTuner(appContext);
+        this.registry = new ModelRegistry(appContext);
+        this.cache = new ClassificationCache(new File(appContext.getCacheDir(), "classifications.tsv"), CACHE_ENTRIES);
+        this.executor = new InferenceExecutor<>("tflite-classifier", POOL_SIZE, QUEUE_CAPACITY,
+                new InferenceExecutor.SlotFactory<ModelSlot>() {
+                    @Override
+                    public ModelSlot create() throws IOException {
+                        long t = telemetry.start();
+                        ModelRegistry.Model model = registry.active();
+                        ModelSlot slot = new ModelSlot(model.buffer, model.version,
+                                tuner.options(model), preprocessPool, PREPROCESS_WORKERS);
+                        long elapsed = telemetry.stop(InferenceTelemetry.Stage.MODEL_LOAD, t);
+                        if (telemetry.isDetailed()) {
+                            Log.d(TAG, model.name + " interpreter created in " + elapsed / 1_000_000 + " ms");
+                            logModelInfo(slot.interpreter);
+                        }
+                        return slot;
+                    }
+
+                    @Override
+                    public void destroy(ModelSlot slot) {
+                        slot.close();
+                        if (telemetry.isDetailed()) Log.d(TAG, "Interpreter released");
+                    }
+                });
+        // Idle interpreters are closed now; busy ones finish their job on the old model and are
+        // closed when handed back, so the next request builds interpreters for the new model
+        registry.setListener(model -> executor.retireSlots());
+    }
+
+    /** Loads the model and runs one dummy inference in the background. Safe to call repeatedly. */
+    void warmUpAsync() {
+        executor.submit(WARM_UP_KEY, slot -> {
+            long start = System.nanoTime();
+            slot.warmUp();
+            return (System.nanoTime() - start) / 1_000_000;
+        }, new InferenceExecutor.Listener<Long>() {
+            @Override
+            public void onResult(Long ms) {
+                Log.d(TAG, "Warm-up inference took " + ms + " ms");
+            }
+
+            @Override
+            public void onError(Exception e) {
+                // A newer warm-up took over
+                if (e instanceof CancellationException) return;
+                Log.e(TAG, "Failed to load/warm up tflite model", e);
+            }
+        });
+    }
+
+    /**
+     * Marks the classifier as in use; pair with {@link #release()} (e.g. in onCreate / onDestroy).
+     * The first borrower also triggers a check for a newly downloaded model and the warm-up, so
+     * only screens that classify load the model (not background jobs sharing the process), and
+     * interpreters closed by {@link #trimMemory()} are back before the next request.
+     */
+    public void acquire() {
+        boolean first;
+        synchronized (this) {
+            first = borrowers++ == 0;
+        }
+        if (first) {
+            registry.checkForUpdateAsync();
+            warmUpAsync();
+        }
+    }
+
+    /**
+     * Verifies a downloaded model against its SHA-256, installs it and switches to it without a
+     * restart. Call off the main thread.
+     *
+     * @return true if the active model changed
+     */
+    public boolean installModel(File model, String sha256) throws IOException {
+        return registry.install(model, sha256);
+    }
+
+    public void release() {
+        boolean closeNow;
+        synchronized (this) {
+            if (borrowers > 0) borrowers--;
+            closeNow = borrowers == 0 && trimRequested;
+            if (closeNow) trimRequested = false;
+        }
+        if (closeNow) executor.retireSlots();
+    }
+
+    /**
+     * Frees the native interpreters. If an activity is still borrowing the classifier the close is
+     * deferred until the last {@link #release()}.
+     */
+    void trimMemory() {
+        synchronized (this) {
+            if (borrowers > 0) {
+                trimRequested = true;
+                return;
+            }
+        }
+        executor.retireSlots();
+    }
+
+    /**
+     * Classifies {@code bitmap} in the background and delivers the result on the main thread.
+     * A newer request with the same {@code key} supersedes this one; superseded requests get no callback.
+     *
+     * @param contentHash hash of the source image bytes (see {@link ContentHash}); when non-null a
+     *                    cached result for the same image and model version is returned without inference
+     */
+    public void classify(String key, Bitmap bitmap, String contentHash, Callback callback) {
+        InferenceExecutor.Ticket[] ticket = new InferenceExecutor.Ticket[1];
+        // Priority: a burst of camera frames must not evict the user's request
+        ticket[0] = executor.submit(key, true, slot -> {
+            String cacheKey = contentHash != null ? ClassificationCache.key(contentHash, slot.modelVersion) : null;
+            if (cacheKey != null) {
+                ClassificationResult cached = cache.get(cacheKey);
+                if (cached != null) return cached;
+            }
+            ClassificationResult result = slot.classify(bitmap, CONFIDENCE_THRESHOLD);
+            if (telemetry.isDetailed()) logScores(result);
+            if (cacheKey != null) cache.put(cacheKey, result);
+            return result;
+        }, new InferenceExecutor.Listener<ClassificationResult>() {
+            @Override
+            public void onResult(ClassificationResult result) {
+                mainHandler.post(() -> {
+                    // May have been superseded between finishing and reaching the main thread
+                    if (ticket[0] == null || !ticket[0].isCancelled()) callback.onResult(result);
+                });
+            }
+
+            @Override
+            public void onError(Exception e) {
+                // Superseded requests get no callback; dropped ones do
+                if (ticket[0] != null && ticket[0].isSuperseded()) return;
+                if (!(e instanceof CancellationException)) Log.e(TAG, "classification failed", e);
+                mainHandler.post(() -> callback.onError(e));
+            }
+        });
+    }
+
+    /**
+     * Classifies a live camera frame. Frames are never cached. Unlike {@link #classify}, a frame that
+     * is superseded or dropped still gets {@link Callback#onError} (with a CancellationException), so
+     * the caller can always hand the frame's buffers back to the camera.
+     */
+    public void classifyFrame(String key, YuvToTensorConverter.Frame frame, Callback callback) {
+        InferenceExecutor.Ticket[] ticket = new InferenceExecutor.Ticket[1];
+        ticket[0] = executor.submit(key, slot -> slot.classifyFrame(frame, CONFIDENCE_THRESHOLD),
+                new InferenceExecutor.Listener<ClassificationResult>() {
+                    @Override
+                    public void onResult(ClassificationResult result) {
+                        mainHandler.post(() -> {
+                            if (ticket[0] == null || !ticket[0].isCancelled()) {
+                                callback.onResult(result);
+                            } else {
+                                callback.onError(new CancellationException("superseded"));
+                            }
+                        });
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        if (!(e instanceof CancellationException)) Log.e(TAG, "frame classification failed", e);
+                        mainHandler.post(() -> callback.onError(e));
+                    }
+                });
+    }
+
+    /**
+     * Classifies all photos of one report and delivers a single report-level result (scores
+     * averaged over the photos, see {@link ClassificationResult#fromBatch}) on the main thread.
+     * Photos without a cached result are scored together in one batched interpreter invocation.
+     * Same latest-wins semantics per {@code key} as {@link #classify}.
+     *
+     * @param contentHashes one entry per bitmap; null entries (or a null list) skip the cache
+     */
+    public void classifyAll(String key, List<Bitmap> bitmaps, List<String> contentHashes, Callback callback) {
+        classifyAll(key, bitmaps, contentHashes, false, callback);
+    }
+
+    /**
+     * @param tiled high-detail mode: each photo is also scored as overlapping crops at model
+     *              resolution (all crops of all photos in the same batched invocations) and the crop
+     *              scores are max-pooled per photo, so small pollution sources are not scaled away.
+     *              The crop count is capped by a latency budget derived from this device's measured
+     *              single-inference time.
+     */
+    public void classifyAll(String key, List<Bitmap> bitmaps, List<String> contentHashes, boolean tiled,
+                            Callback callback) {
+        List<Bitmap> images = new ArrayList<>(bitmaps);
+        List<String> hashes = contentHashes != null ? new ArrayList<>(contentHashes) : null;
+        InferenceExecutor.Ticket[] ticket = new InferenceExecutor.Ticket[1];
+        // Priority: a burst of camera frames must not evict the user's request
+        ticket[0] = executor.submit(key, true, slot -> {
+            int n = images.size();
+            float[][] scores = new float[n][];
+            String[] cacheKeys = new String[n];
+            // Tiled: the crop budget is split over the whole pick, so each photo's grid is known
+            // before the cache lookup and is part of its key (another pick may tile it differently)
+            List<List<TileGrid.Tile>> plans = tiled ? planTiles(slot, images, tilesPerPhoto(n)) : null;
+            List<Integer> pending = new ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                String hash = hashes != null && i < hashes.size() ? hashes.get(i) : null;
+                if (hash != null) {
+                    // Tiled and whole-image scores differ, so they are cached separately
+                    cacheKeys[i] = ClassificationCache.key(hash,
+                            tiled ? tiledVersion(slot.modelVersion, plans.get(i)) : slot.modelVersion);
+                    ClassificationResult cached = cache.get(cacheKeys[i]);
+                    if (cached != null) {
+                        scores[i] = cached.scores;
+                        continue;
+                    }
+                }
+                pending.add(i);
+            }
+
+            if (!pending.isEmpty()) {
+                List<Bitmap> batch = new ArrayList<>(pending.size());
+                List<List<TileGrid.Tile>> batchPlans = new ArrayList<>(pending.size());
+                for (int i : pending) {
+                    batch.add(images.get(i));
+                    if (tiled) batchPlans.add(plans.get(i));
+                }
+                float[][] fresh = tiled
+                        ? scoreTiled(slot, batch, batchPlans)
+                        : slot.scoresBatch(batch);
+                for (int j = 0; j < fresh.length; j++) {
+                    int i = pending.get(j);
+                    scores[i] = fresh[j];
+                    if (cacheKeys[i] != null) {
+                        cache.put(cacheKeys[i], ClassificationResult.fromScores(
+                                fresh[j], ClassificationResult.LABELS, CONFIDENCE_THRESHOLD));
+                    }
+                }
+            }
+
+            long t = telemetry.start();
+            ClassificationResult result = ClassificationResult.fromBatch(
+                    scores, ClassificationResult.LABELS, CONFIDENCE_THRESHOLD);
+            telemetry.stop(InferenceTelemetry.Stage.POSTPROCESS, t);
+            if (telemetry.isDetailed()) {
+                Log.d(TAG, "Batch of " + n + " (" + pending.size() + " uncached)");
+                logScores(result);
+            }
+            return result;
+        }, new InferenceExecutor.Listener<ClassificationResult>() {
+            @Override
+            public void onResult(ClassificationResult result) {
+                mainHandler.post(() -> {
+                    if (ticket[0] == null || !ticket[0].isCancelled()) callback.onResult(result);
+                });
+            }
+
+            @Override
+            public void onError(Exception e) {
+                if (ticket[0] != null && ticket[0].isSuperseded()) return;
+                if (!(e instanceof CancellationException)) Log.e(TAG, "batch classification failed", e);
+                mainHandler.post(() -> callback.onError(e));
+            }
+        });
+    }
+
+    private static List<List<TileGrid.Tile>> planTiles(ModelSlot slot, List<Bitmap> photos, int tilesPerPhoto) {
+        List<List<TileGrid.Tile>> plans = new ArrayList<>(photos.size());
+        for (Bitmap photo : photos) {
+            plans.add(TileGrid.plan(photo.getWidth(), photo.getHeight(),
+                    slot.preprocessor.getWidth(), slot.preprocessor.getHeight(), TILE_OVERLAP, tilesPerPhoto));
+        }
+        return plans;
+    }
+
+    // Cache version of tiled scores: the grid (crop count and size) decides the scores as much as the model
+    private static String tiledVersion(String modelVersion, List<TileGrid.Tile> plan) {
+        String grid = plan.size() > 1 ? plan.size() + "x" + plan.get(1).width + "x" + plan.get(1).height : "1";
+        return modelVersion + TILED_VERSION_SUFFIX + grid;
+    }
+
+    // One batched run over the planned crops of every photo, then max-pooled back to one score array per photo
+    private float[][] scoreTiled(ModelSlot slot, List<Bitmap> photos, List<List<TileGrid.Tile>> plans) throws Exception {
+        List<Bitmap> sources = new ArrayList<>();
+        List<TileGrid.Tile> regions = new ArrayList<>();
+        int[] firstTile = new int[photos.size() + 1];
+        for (int p = 0; p < photos.size(); p++) {
+            Bitmap photo = photos.get(p);
+            firstTile[p] = regions.size();
+            for (TileGrid.Tile tile : plans.get(p)) {
+                sources.add(photo);
+                regions.add(tile);
+            }
+        }
+        firstTile[photos.size()] = regions.size();
+
+        float[][] tileScores = slot.scoresRegions(sources, regions);
+        float[][] perPhoto = new float[photos.size()][];
+        for (int p = 0; p < photos.size(); p++) {
+            perPhoto[p] = TileGrid.maxPool(Arrays.copyOfRange(tileScores, firstTile[p], firstTile[p + 1]));
+        }
+        if (telemetry.isDetailed()) Log.d(TAG, "Tiled: " + regions.size() + " crops for " + photos.size() + " photo(s)");
+        return perPhoto;
+    }
+
+    // Crops per photo that fit TILE_BUDGET_MS, using the tuned single-inference median as the per-crop cost
+    private int tilesPerPhoto(int photos) throws IOException {
+        ModelRegistry.Model model = registry.active();
+        long perTileMs = Math.max(1, tuner.medianMs(model));
+        int total = (int) Math.min(MAX_TILES, TILE_BUDGET_MS / perTileMs);
+        return Math.max(1, total / Math.max(1, photos));
+    }
+
+    /** Queue depth / wait-time counters, for diagnostics. */
+    InferenceExecutor.Metrics getMetrics() {
+        return executor.metrics();
+    }
+
+    // ---------------------------
+    // Diagnostics (logged only at InferenceTelemetry.Level.DETAILED)
+    // ---------------------------
+    private static void logScores(ClassificationResult result) {
+        StringBuilder sb = new StringBuilder("Scores:");
+        for (int i = 0; i < result.scores.length && i < ClassificationResult.LABELS.length; i++) {
+            sb.append(' ').append(ClassificationResult.LABELS[i]).append('=').append(result.scores[i]);
+        }
+        sb.append(" -> ").append(result.label);
+        Log.d(TAG, sb.toString());
+    }
+
+    private static void logModelInfo(Interpreter interpreter) {
+        Tensor in = interpreter.getInputTensor(0);
+        Tensor out = interpreter.getOutputTensor(0);
+        Log.d(TAG, "Input shape: " + Arrays.toString(in.shape()) + " | Input dtype: " + in.dataType()
+                + " || Output shape: " + Arrays.toString(out.shape()) + " | Output dtype: " + out.dataType());
+    }
+}
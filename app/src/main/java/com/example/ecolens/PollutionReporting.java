@@ -1,9 +1,10 @@
 package com.example.ecolens;
 
 import android.app.Dialog;
+import android.content.ClipData;
 import android.content.Intent;
+import android.content.SharedPreferences;
 import android.content.pm.PackageManager;
-import android.content.res.AssetFileDescriptor;
 import android.graphics.Bitmap;
 import android.net.Uri;
 import android.os.Bundle;
@@ -14,22 +15,29 @@ import android.util.Log;
 import android.view.View;
 import android.view.Window;
 import android.widget.Button;
+import android.widget.CheckBox;
 import android.widget.EditText;
 import android.widget.FrameLayout;
 import android.widget.ImageButton;
 import android.widget.ImageView;
+import android.widget.ProgressBar;
 import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.activity.EdgeToEdge;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
 import androidx.core.graphics.Insets;
 import androidx.core.view.ViewCompat;
 import androidx.core.view.WindowInsetsCompat;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.Observer;
+import androidx.work.WorkInfo;
+import androidx.work.WorkManager;
 
 import com.google.android.gms.maps.CameraUpdateFactory;
 import com.google.android.gms.maps.GoogleMap;
@@ -40,27 +48,34 @@ import com.google.android.gms.maps.model.Marker;
 import com.google.android.gms.maps.model.MarkerOptions;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
-import com.google.firebase.firestore.FieldValue;
-import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.storage.FirebaseStorage;
 import com.google.firebase.storage.StorageReference;
-import com.google.firebase.storage.UploadTask;
 
-import org.tensorflow.lite.Interpreter;
-
-import java.io.ByteArrayOutputStream;
-import java.io.FileInputStream;
+import java.io.File;
 import java.io.IOException;
-import java.nio.MappedByteBuffer;
-import java.nio.channels.FileChannel;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 public class PollutionReporting extends AppCompatActivity implements OnMapReadyCallback {
 
     private static final int REQUEST_IMAGE_PICK = 1;
     private static final int REQUEST_LOCATION_PICK = 2;
     private static final int REQUEST_CAMERA_PERMISSION = 1002;
+    private static final String CLASSIFY_KEY = "report-form";
+    private static final String KEY_TILED_CLASSIFICATION = "tiled_classification";
+    private static final String STATE_UPLOAD_PATHS = "upload_paths";
+    private static final String STATE_UPLOAD_FILES = "upload_files";
+    private static final String STATE_UPLOAD_DONE = "upload_done";
+    private static final String STATE_UPLOAD_WORKS = "upload_works";
+    // Likely duplicates: same category, reported this close and this recently
+    private static final double DUPLICATE_RADIUS_M = 150;
+    private static final long DUPLICATE_WINDOW_MS = TimeUnit.DAYS.toMillis(7);
+    private static final int MAX_DUPLICATES_SHOWN = 3;
 
     private FrameLayout framePreview;
     private TextView tvPlaceholder;
@@ -77,7 +92,6 @@ public class PollutionReporting extends AppCompatActivity implements OnMapReadyC
     private String titleText = "";
     private String descriptionText = "";
     private String status = "pending";
-    private String photoUrl = "";
 
     private EditText etTitle, etDescription;
     private Button[] categoryButtons;
@@ -88,23 +102,32 @@ public class PollutionReporting extends AppCompatActivity implements OnMapReadyC
 
     private StorageReference storageReference;
 
-    private int uploadsInProgress = 0;
+    // Uploads of the accepted pick, one slot per photo; replaced by the next pick, after which the
+    // older tracker no longer drives the progress bar
+    private UploadTracker uploads;
+    private ProgressBar uploadProgress;
 
-    // Multi-select flags for categories
-    private boolean isAir = false;
-    private boolean isSoil = false;
-    private boolean isWater = false;
-    private boolean isOther = false;
+    // Multi-select state for categories
+    private final CategorySelection categories = new CategorySelection();
 
-    // TFLite interpreter & classification result
-    private Interpreter tflite = null;
+    // Shared, pre-warmed classifier (owned by MyApplication) & classification result
+    private PollutionClassifier classifier;
+    private ImagePipeline imagePipeline;
     private String modelCategory = ""; // new field to upload to Firestore
-    private static final float CONFIDENCE_THRESHOLD = 0.80f; // using 0.80 for model acceptance
 
-    // Assumed model labels order — change if your model uses a different label order:
-    private final String[] LABELS = new String[]{
-            "Air", "Soil", "Water", "Air+Soil", "Air+Water", "Soil+Water", "Air+Soil+Water"
-    };
+    // Photos of the current pick, decoded for classification (index-aligned); a new pick replaces them.
+    // pickedUploads holds each photo's encoded upload until the quality gate passes and it is staged
+    // (null once staged, or if encoding failed); dropped photos have a null bitmap.
+    private Bitmap[] pickedBitmaps = new Bitmap[0];
+    private UploadEncoder.Encoded[] pickedUploads = new UploadEncoder.Encoded[0];
+    private boolean[] pickedEncoded = new boolean[0];
+    private int[] pickedSlots = new int[0];   // upload slot of each kept photo, once accepted
+    private String[] pickedHashes = new String[0];
+    private ImageQuality.Report[] pickedQuality = new ImageQuality.Report[0];
+    private boolean pickAccepted = false;   // passed (or overrode) the quality gate
+    private int pendingDecodes = 0;
+    private int pickGeneration = 0;
+    private boolean tiledClassification = false;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -112,16 +135,10 @@ public class PollutionReporting extends AppCompatActivity implements OnMapReadyC
         EdgeToEdge.enable(this);
         setContentView(R.layout.activity_pollution_reporting);
 
-        // Initialize tflite interpreter
-        try {
-            tflite = new Interpreter(loadModelFile("best_float32.tflite"));
-            // Log model I/O info for diagnostics
-            logModelInfo();
-        } catch (IOException e) {
-            Log.e("TFLite", "Failed to load tflite model", e);
-            // If model loading fails, app still runs but classification won't happen.
-            tflite = null;
-        }
+        // Borrow the app-wide classifier; the model is already loaded/warming in the background
+        classifier = MyApplication.getClassifier(this);
+        classifier.acquire();
+        imagePipeline = new ImagePipeline(this);
 
         storageReference = FirebaseStorage.getInstance().getReference().child("reports_images");
 
@@ -146,6 +163,10 @@ public class PollutionReporting extends AppCompatActivity implements OnMapReadyC
         framePreview    = findViewById(R.id.frame_image_preview);
         tvPlaceholder   = findViewById(R.id.tv_placeholder);
         imagePreviewBtn = findViewById(R.id.image_preview_btn);
+        uploadProgress  = findViewById(R.id.pb_upload);
+
+        // Recreated (e.g. after process death): re-attach to uploads still running in WorkManager
+        if (savedInstanceState != null) restoreUploads(savedInstanceState);
 
         imagePreviewBtn.setOnClickListener(v -> {
             if (imagePreviewBtn.getDrawable() != null) {
@@ -156,6 +177,17 @@ public class PollutionReporting extends AppCompatActivity implements OnMapReadyC
         Button btn_upload_image = findViewById(R.id.btn_upload_image);
         btn_upload_image.setOnClickListener(v -> openImagePicker());
 
+        // Tiled classification is opt-in (costs several inferences) and remembered across reports
+        SharedPreferences prefs = getSharedPreferences("app_prefs", MODE_PRIVATE);
+        tiledClassification = prefs.getBoolean(KEY_TILED_CLASSIFICATION, false);
+        CheckBox cbDetailed = findViewById(R.id.cb_detailed_analysis);
+        cbDetailed.setChecked(tiledClassification);
+        cbDetailed.setOnCheckedChangeListener((button, checked) -> {
+            tiledClassification = checked;
+            prefs.edit().putBoolean(KEY_TILED_CLASSIFICATION, checked).apply();
+            if (pickAccepted) runClassification(); // re-classify the current photos
+        });
+
         framePreview.setOnClickListener(v -> openImagePicker());
 
         locationText = findViewById(R.id.txt_location);
@@ -222,33 +254,6 @@ public class PollutionReporting extends AppCompatActivity implements OnMapReadyC
         btnSubmitReport.setOnClickListener(v -> submitReport());
     }
 
-    // ---------------------------
-    // Diagnostic: log model I/O info
-    // ---------------------------
-    private void logModelInfo() {
-        if (tflite == null) {
-            Log.d("TFLiteInfo", "Interpreter is null — model not loaded.");
-            return;
-        }
-        try {
-            int[] inShape = tflite.getInputTensor(0).shape();
-            org.tensorflow.lite.DataType inType = tflite.getInputTensor(0).dataType();
-            int[] outShape = tflite.getOutputTensor(0).shape();
-            org.tensorflow.lite.DataType outType = tflite.getOutputTensor(0).dataType();
-
-            String info = "Input shape: ";
-            for (int s : inShape) info += s + " ";
-            info += " | Input dtype: " + inType.toString();
-            info += " || Output shape: ";
-            for (int s : outShape) info += s + " ";
-            info += " | Output dtype: " + outType.toString();
-
-            Log.d("TFLiteInfo", info);
-        } catch (Exception e) {
-            Log.e("TFLiteInfo", "Failed to read model I/O info", e);
-        }
-    }
-
     // ---------------------------
     // Category selection logic
     // ---------------------------
@@ -256,46 +261,16 @@ public class PollutionReporting extends AppCompatActivity implements OnMapReadyC
         String tag = (String) btn.getTag();
         if (tag == null) return;
 
-        switch (tag) {
-            case "Other":
-                // Toggle Other. If turning ON, clear Air/Soil/Water
-                if (!isOther) {
-                    isOther = true;
-                    isAir = isSoil = isWater = false;
-                } else {
-                    isOther = false;
-                }
-                break;
-            case "Air":
-                if (isOther) isOther = false;
-                isAir = !isAir;
-                break;
-            case "Soil":
-                if (isOther) isOther = false;
-                isSoil = !isSoil;
-                break;
-            case "Water":
-                if (isOther) isOther = false;
-                isWater = !isWater;
-                break;
-        }
-
+        categories.toggle(tag);
         updateCategoryButtonsUI();
-        buildSelectedCategoryString();
+        selectedCategory = categories.toCategoryString(); // may be empty if nothing selected
     }
 
     private void updateCategoryButtonsUI() {
         for (Button btn : categoryButtons) {
             String tag = (String) btn.getTag();
             if (tag == null) continue;
-            boolean selected = false;
-            switch (tag) {
-                case "Air": selected = isAir; break;
-                case "Soil": selected = isSoil; break;
-                case "Water": selected = isWater; break;
-                case "Other": selected = isOther; break;
-            }
-            setButtonSelected(btn, selected);
+            setButtonSelected(btn, categories.isSelected(tag));
         }
     }
 
@@ -317,26 +292,6 @@ public class PollutionReporting extends AppCompatActivity implements OnMapReadyC
         button.setBackgroundColor(getResources().getColor(R.color.selectedButtonColor));
     }
 
-    private void buildSelectedCategoryString() {
-        if (isOther) {
-            selectedCategory = "Other";
-            return;
-        }
-
-        StringBuilder sb = new StringBuilder();
-        // Consistent order: Air, Soil, Water
-        if (isAir) sb.append("Air");
-        if (isSoil) {
-            if (sb.length() > 0) sb.append("+");
-            sb.append("Soil");
-        }
-        if (isWater) {
-            if (sb.length() > 0) sb.append("+");
-            sb.append("Water");
-        }
-        selectedCategory = sb.toString(); // may be empty if nothing selected
-    }
-
     // ---------------------------
     // Image picking & uploading
     // ---------------------------
@@ -350,10 +305,13 @@ public class PollutionReporting extends AppCompatActivity implements OnMapReadyC
 
     private void launchImagePicker() {
         Intent pickIntent = new Intent(Intent.ACTION_PICK, MediaStore.Images.Media.EXTERNAL_CONTENT_URI);
+        pickIntent.putExtra(Intent.EXTRA_ALLOW_MULTIPLE, true);
         Intent takePictureIntent = new Intent(MediaStore.ACTION_IMAGE_CAPTURE);
+        // In-app camera with a live prediction; returns a full-resolution photo Uri like the picker
+        Intent liveCameraIntent = new Intent(this, LiveCameraActivity.class);
 
         Intent chooserIntent = Intent.createChooser(pickIntent, "Select or Take a New Picture");
-        chooserIntent.putExtra(Intent.EXTRA_INITIAL_INTENTS, new Intent[]{takePictureIntent});
+        chooserIntent.putExtra(Intent.EXTRA_INITIAL_INTENTS, new Intent[]{liveCameraIntent, takePictureIntent});
 
         startActivityForResult(chooserIntent, REQUEST_IMAGE_PICK);
     }
@@ -384,18 +342,12 @@ public class PollutionReporting extends AppCompatActivity implements OnMapReadyC
 
         if (resultCode == RESULT_OK && data != null) {
             if (requestCode == REQUEST_IMAGE_PICK) {
-                photoUrl = "";
-                if (data.getData() != null) {
-                    Uri selectedImageUri = data.getData();
-                    displayPreview(selectedImageUri);
-                    // upload and then classify
-                    uploadImageFromUri(selectedImageUri);
+                List<Uri> uris = pickedUris(data);
+                if (!uris.isEmpty()) {
+                    decodePicked(uris);
                 } else if (data.getExtras() != null) {
                     Bitmap capturedBitmap = (Bitmap) data.getExtras().get("data");
-                    if (capturedBitmap != null) {
-                        displayPreview(capturedBitmap);
-                        uploadImageFromBitmap(capturedBitmap);
-                    }
+                    if (capturedBitmap != null) assessCaptured(capturedBitmap);
                 }
             } else if (requestCode == REQUEST_LOCATION_PICK) {
                 double lat = data.getDoubleExtra("latitude", 0);
@@ -404,14 +356,195 @@ public class PollutionReporting extends AppCompatActivity implements OnMapReadyC
                 selectedLocation = new LatLng(lat, lng);
                 locationText.setText("Selected Location: " + lat + ", " + lng);
                 updateMapLocation(selectedLocation);
+                // Start syncing recent reports here, so they are indexed by the time the user submits
+                RecentReports.get().watch(lat, lng);
             }
         }
     }
 
-    private void displayPreview(Uri uri) {
-        tvPlaceholder.setVisibility(View.GONE);
-        imagePreviewBtn.setVisibility(View.VISIBLE);
-        imagePreviewBtn.setImageURI(uri);
+    private static List<Uri> pickedUris(Intent data) {
+        List<Uri> uris = new ArrayList<>();
+        ClipData clip = data.getClipData();
+        if (clip != null) {
+            for (int i = 0; i < clip.getItemCount(); i++) {
+                if (clip.getItemAt(i).getUri() != null) uris.add(clip.getItemAt(i).getUri());
+            }
+        } else if (data.getData() != null) {
+            uris.add(data.getData());
+        }
+        return uris;
+    }
+
+    private void startPick(int count) {
+        pickGeneration++;
+        pickAccepted = false;
+        uploads = null;
+        uploadProgress.setVisibility(View.GONE);
+        pickedBitmaps = new Bitmap[count];
+        pickedUploads = new UploadEncoder.Encoded[count];
+        pickedEncoded = new boolean[count];
+        pickedSlots = new int[count];
+        pickedHashes = new String[count];
+        pickedQuality = new ImageQuality.Report[count];
+    }
+
+    /**
+     * Decodes every picked photo once (off the main thread, subsampled); preview, classification and
+     * upload all work from that decode. The first one is previewed; when all are decoded they go
+     * through the quality gate before anything is uploaded or classified. Encodes finish in the
+     * background meanwhile; only their (small) results wait for the gate.
+     */
+    private void decodePicked(List<Uri> uris) {
+        startPick(uris.size());
+        int generation = pickGeneration;
+        pendingDecodes = uris.size();
+        for (int i = 0; i < uris.size(); i++) {
+            final int index = i;
+            imagePipeline.decode(uris.get(i), new ImagePipeline.Callback() {
+                @Override
+                public void onDecoded(Bitmap bitmap, String contentHash, ImageQuality.Report quality) {
+                    if (generation != pickGeneration) return; // superseded by a newer pick
+                    pickedBitmaps[index] = bitmap;
+                    pickedHashes[index] = contentHash;
+                    pickedQuality[index] = quality;
+                    if (index == 0) displayPreview(bitmap);
+                    if (--pendingDecodes == 0) checkPickedQuality();
+                }
+
+                @Override
+                public void onEncoded(UploadEncoder.Encoded upload) {
+                    if (generation == pickGeneration) encoded(index, upload);
+                }
+
+                @Override
+                public void onError(Exception e) {
+                    if (generation != pickGeneration) return;
+                    Log.e("ImagePipeline", "Failed to decode picked image", e);
+                    Toast.makeText(PollutionReporting.this, "Could not read image", Toast.LENGTH_SHORT).show();
+                    if (--pendingDecodes == 0) checkPickedQuality();
+                }
+            });
+        }
+    }
+
+    /**
+     * A camera capture: a one-off, so it skips the result cache, and already a (tiny) bitmap, so
+     * only the quality check and the encode run, on the pipeline thread like the decodes.
+     */
+    private void assessCaptured(Bitmap captured) {
+        startPick(1);
+        int generation = pickGeneration;
+        pendingDecodes = 1;
+        displayPreview(captured);
+        imagePipeline.assess(captured, new ImagePipeline.Callback() {
+            @Override
+            public void onDecoded(Bitmap bitmap, String contentHash, ImageQuality.Report quality) {
+                if (generation != pickGeneration) return;
+                // A null report: unchecked, but still usable
+                pickedBitmaps[0] = bitmap;
+                pickedQuality[0] = quality;
+                pendingDecodes = 0;
+                checkPickedQuality();
+            }
+
+            @Override
+            public void onEncoded(UploadEncoder.Encoded upload) {
+                if (generation == pickGeneration) encoded(0, upload);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                // Not called for in-memory bitmaps
+            }
+        });
+    }
+
+    // ---------------------------
+    // Quality gate
+    // ---------------------------
+
+    /** Warns about blurry / dark / tiny photos before any bytes go to Storage or the model. */
+    private void checkPickedQuality() {
+        StringBuilder problems = new StringBuilder();
+        int flagged = 0;
+        for (int i = 0; i < pickedBitmaps.length; i++) {
+            ImageQuality.Report q = pickedQuality[i];
+            if (pickedBitmaps[i] == null || q == null || q.isAcceptable()) continue;
+            Log.d("ImageQuality", "Photo " + (i + 1) + ": " + q);
+            flagged++;
+            if (pickedBitmaps.length > 1) problems.append(getString(R.string.photo_number, i + 1)).append(' ');
+            problems.append(q.describe()).append('\n');
+        }
+        if (flagged == 0) {
+            acceptPicked();
+            return;
+        }
+
+        int generation = pickGeneration;
+        new AlertDialog.Builder(this)
+                .setTitle(R.string.photo_quality_title)
+                .setMessage(getString(R.string.photo_quality_message, problems.toString().trim()))
+                .setPositiveButton(R.string.use_anyway, (d, w) -> {
+                    if (generation == pickGeneration) acceptPicked();
+                })
+                .setNegativeButton(R.string.choose_another, (d, w) -> {
+                    if (generation == pickGeneration) dropFlaggedPhotos();
+                })
+                .setCancelable(false)
+                .show();
+    }
+
+    private void dropFlaggedPhotos() {
+        boolean anyLeft = false;
+        for (int i = 0; i < pickedBitmaps.length; i++) {
+            ImageQuality.Report q = pickedQuality[i];
+            if (q != null && !q.isAcceptable()) {
+                pickedBitmaps[i] = null;
+                pickedUploads[i] = null;   // an encode still running is ignored once it finishes
+            }
+            anyLeft |= pickedBitmaps[i] != null;
+        }
+        if (anyLeft) {
+            acceptPicked();
+        } else {
+            clearPreview();
+            openImagePicker();
+        }
+    }
+
+    /** The user kept these photos: classify them and upload all of them. */
+    private void acceptPicked() {
+        pickAccepted = true;
+        List<Integer> kept = new ArrayList<>();
+        for (int i = 0; i < pickedBitmaps.length; i++) {
+            if (pickedBitmaps[i] != null) kept.add(i);
+        }
+        if (kept.isEmpty()) return;
+        displayPreview(pickedBitmaps[kept.get(0)]);
+
+        // Photos still encoding are staged as they finish; UploadWorker limits how many transfers run at once
+        UploadTracker tracker = new UploadTracker(kept.size());
+        uploads = tracker;
+        showUploadProgress(tracker);
+        for (int slot = 0; slot < kept.size(); slot++) {
+            int i = kept.get(slot);
+            pickedSlots[i] = slot;
+            if (pickedEncoded[i]) stageUpload(i);
+        }
+        runClassification();
+    }
+
+    private void encoded(int index, UploadEncoder.Encoded upload) {
+        if (pickedBitmaps[index] == null) return; // failed to decode, or dropped at the quality gate
+        pickedUploads[index] = upload;
+        pickedEncoded[index] = true;
+        if (pickAccepted) stageUpload(index);
+    }
+
+    private void clearPreview() {
+        imagePreviewBtn.setImageDrawable(null);
+        imagePreviewBtn.setVisibility(View.GONE);
+        tvPlaceholder.setVisibility(View.VISIBLE);
     }
 
     private void displayPreview(Bitmap bmp) {
@@ -431,145 +564,164 @@ public class PollutionReporting extends AppCompatActivity implements OnMapReadyC
     }
 
     // ---------------------------
-    // Upload image (Uri)
+    // Upload image (encoded)
     // ---------------------------
-    private void uploadImageFromUri(Uri imageUri) {
-        uploadsInProgress++;
-        StorageReference imageRef = storageReference.child(System.currentTimeMillis() + ".jpg");
-        UploadTask uploadTask = imageRef.putFile(imageUri);
-        uploadTask.addOnSuccessListener(taskSnapshot ->
-                imageRef.getDownloadUrl().addOnSuccessListener(uri -> {
-                    photoUrl = uri.toString();
-                    Toast.makeText(PollutionReporting.this, "Image uploaded", Toast.LENGTH_SHORT).show();
-                    uploadsInProgress--;
-
-                    // Attempt to load bitmap from Uri and run model classification (if model loaded)
-                    if (tflite != null) {
-                        try {
-                            Bitmap bitmap = MediaStore.Images.Media.getBitmap(getContentResolver(), imageUri);
-                            if (bitmap != null) runClassification(bitmap);
-                        } catch (IOException e) {
-                            Log.e("Classification", "Failed to read bitmap for classification", e);
-                        }
-                    } else {
-                        // If no model, mark modelCategory empty
-                        modelCategory = "";
-                    }
-                })
-        ).addOnFailureListener(e -> {
+
+    // Re-encoded (downscaled, EXIF stripped, under the byte budget) instead of the original file
+    private void stageUpload(int index) {
+        UploadEncoder.Encoded encoded = pickedUploads[index];
+        pickedUploads[index] = null;
+        int slot = pickedSlots[index];
+        if (encoded == null) {
             Toast.makeText(PollutionReporting.this, "Failed to upload image", Toast.LENGTH_SHORT).show();
-            Log.e("UploadError", e.getMessage());
-            uploadsInProgress--;
-        });
+            uploads.encodeFailed(slot);
+            showUploadProgress(uploads);
+            return;
+        }
+        uploadEncoded(uploads, slot, encoded);
     }
 
-    // ---------------------------
-    // Upload image (Bitmap)
-    // ---------------------------
-    private void uploadImageFromBitmap(Bitmap bitmap) {
-        uploadsInProgress++;
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        bitmap.compress(Bitmap.CompressFormat.JPEG, 80, baos);
-        byte[] data = baos.toByteArray();
-
-        StorageReference imageRef = storageReference.child(System.currentTimeMillis() + ".jpg");
-        UploadTask uploadTask = imageRef.putBytes(data);
-        uploadTask.addOnSuccessListener(taskSnapshot ->
-                imageRef.getDownloadUrl().addOnSuccessListener(uri -> {
-                    photoUrl = uri.toString();
-                    Toast.makeText(PollutionReporting.this, "Image uploaded", Toast.LENGTH_SHORT).show();
-                    uploadsInProgress--;
-
-                    // Run classification (bitmap is already available)
-                    if (tflite != null) {
-                        runClassification(bitmap);
-                    } else {
-                        modelCategory = "";
-                    }
-                })
-        ).addOnFailureListener(e -> {
+    // Hands the bytes to UploadWorker via a file in app storage, so the upload outlives this activity
+    private void uploadEncoded(UploadTracker tracker, int slot, UploadEncoder.Encoded encoded) {
+        // Staged under a name of its own: the same photo may be picked twice and be uploading already
+        File dir = UploadWorker.stagingDir(this);
+        File file = new File(dir, System.currentTimeMillis() + "_" + slot + "." + encoded.format.extension);
+        try {
+            if (!dir.exists() && !dir.mkdirs()) throw new IOException("Cannot create " + dir);
+            encoded.writeTo(file);
+        } catch (IOException e) {
             Toast.makeText(PollutionReporting.this, "Failed to upload image", Toast.LENGTH_SHORT).show();
-            Log.e("UploadError", e.getMessage());
-            uploadsInProgress--;
-        });
+            Log.e("UploadError", "Could not stage image for upload", e);
+            tracker.encodeFailed(slot);
+            showUploadProgress(tracker);
+            return;
+        }
+        // Remembered so a report submitted before the upload finishes can still reference the photo
+        String path = storageReference.child(encoded.objectName()).getPath();
+        String work = UploadWorker.enqueue(this, file, path, encoded.format.mimeType);
+        tracker.staged(slot, path, file.getAbsolutePath(), work);
+        observeUpload(tracker, slot, work);
     }
 
-    // ---------------------------
-    // Classification helpers
-    // ---------------------------
-    private void runClassification(Bitmap bitmap) {
-        if (tflite == null) return;
-
-        new Thread(() -> {
-            try {
-                // Determine input size from model (expects [1, height, width, 3])
-                int[] inputShape = tflite.getInputTensor(0).shape(); // {1, h, w, 3}
-                int inputH = inputShape[1];
-                int inputW = inputShape[2];
-
-                // Resize bitmap
-                Bitmap resized = Bitmap.createScaledBitmap(bitmap, inputW, inputH, true);
-
-                // Prepare input: float[1][h][w][3], normalized [0,1] if model expects float
-                float[][][][] input = new float[1][inputH][inputW][3];
-
-                org.tensorflow.lite.DataType inputType = tflite.getInputTensor(0).dataType();
-                boolean isFloatModel = (inputType == org.tensorflow.lite.DataType.FLOAT32);
-
-                for (int y = 0; y < inputH; y++) {
-                    for (int x = 0; x < inputW; x++) {
-                        int px = resized.getPixel(x, y);
-                        float r = (float) ((px >> 16) & 0xFF);
-                        float g = (float) ((px >> 8) & 0xFF);
-                        float b = (float) (px & 0xFF);
-
-                        if (isFloatModel) {
-                            // Normalize to [0,1] exactly like the Python preprocessing
-                            r /= 255.0f;
-                            g /= 255.0f;
-                            b /= 255.0f;
-                        }
-                        input[0][y][x][0] = r;
-                        input[0][y][x][1] = g;
-                        input[0][y][x][2] = b;
-                    }
+    /** Follows one photo's {@link UploadWorker} until it finishes, feeding the shared progress bar. */
+    private void observeUpload(UploadTracker tracker, int slot, String work) {
+        LiveData<List<WorkInfo>> live = WorkManager.getInstance(this).getWorkInfosForUniqueWorkLiveData(work);
+        live.observe(this, new Observer<List<WorkInfo>>() {
+            @Override
+            public void onChanged(List<WorkInfo> infos) {
+                if (infos == null || infos.isEmpty()) return;
+                WorkInfo info = infos.get(0);
+                if (!info.getState().isFinished()) {
+                    long total = info.getProgress().getLong(UploadWorker.PROGRESS_TOTAL, 0);
+                    long bytes = info.getProgress().getLong(UploadWorker.PROGRESS_BYTES, 0);
+                    if (total > 0) tracker.progress(slot, bytes, total);
+                    showUploadProgress(tracker);
+                    return;
                 }
 
-                // Output: float[1][7] (assumes float output)
-                float[][] output = new float[1][LABELS.length];
-                tflite.run(input, output);
-
-                float[] scores = output[0];
-                int maxIdx = 0;
-                float maxScore = scores[0];
-                for (int i = 1; i < scores.length; i++) {
-                    if (scores[i] > maxScore) {
-                        maxScore = scores[i];
-                        maxIdx = i;
-                    }
+                live.removeObserver(this);
+                if (info.getState() == WorkInfo.State.SUCCEEDED) {
+                    tracker.uploaded(slot);
+                } else {
+                    // Stays in the tracker: the outbox uploads the staged file itself
+                    tracker.uploadFailed(slot);
+                    Log.e("UploadError", "Upload " + work + " ended as " + info.getState());
                 }
+                // A photo that was since replaced must not touch the bar or toast about itself
+                if (tracker != uploads) return;
+                showUploadProgress(tracker);
+                if (!tracker.isBusy()) {
+                    Toast.makeText(PollutionReporting.this,
+                            tracker.allUploaded() ? "Images uploaded" : "Failed to upload image",
+                            Toast.LENGTH_SHORT).show();
+                }
+            }
+        });
+    }
 
-                final float confidence = maxScore;
-                final String predictedLabel = (confidence >= CONFIDENCE_THRESHOLD) ? LABELS[maxIdx] : "Other";
+    // One bar for the whole pick, hidden once every upload has finished
+    private void showUploadProgress(UploadTracker tracker) {
+        if (tracker != uploads) return;
+        uploadProgress.setVisibility(tracker.isBusy() ? View.VISIBLE : View.GONE);
+        uploadProgress.setProgress((int) (100 * tracker.progress()));
+    }
 
-                // Log detailed output for debugging
-                StringBuilder logScores = new StringBuilder();
-                for (int i = 0; i < scores.length; i++) {
-                    logScores.append(LABELS[i]).append(": ").append(String.format("%.3f", scores[i])).append("  ");
-                }
-                Log.d("TFLiteOutput", "Scores: " + logScores.toString());
+    @Override
+    protected void onSaveInstanceState(@NonNull Bundle outState) {
+        super.onSaveInstanceState(outState);
+        if (uploads == null) return;
+        int n = uploads.size();
+        String[] paths = new String[n], files = new String[n], works = new String[n];
+        boolean[] done = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            UploadTracker.Photo p = uploads.photo(i);
+            paths[i] = p.path;
+            files[i] = p.localFile;
+            works[i] = p.work;
+            done[i] = p.state == UploadTracker.State.UPLOADED;
+        }
+        outState.putStringArray(STATE_UPLOAD_PATHS, paths);
+        outState.putStringArray(STATE_UPLOAD_FILES, files);
+        outState.putBooleanArray(STATE_UPLOAD_DONE, done);
+        outState.putStringArray(STATE_UPLOAD_WORKS, works);
+    }
 
-                runOnUiThread(() -> {
-                    modelCategory = predictedLabel;
-                    // NOTE: Intentionally NOT applying model category to user's selection or UI.
-                    String msg = "Model: " + predictedLabel + " (conf: " + String.format("%.2f", confidence) + ")";
-                    Toast.makeText(PollutionReporting.this, msg, Toast.LENGTH_SHORT).show();
-                });
+    private void restoreUploads(Bundle state) {
+        String[] paths = state.getStringArray(STATE_UPLOAD_PATHS);
+        String[] files = state.getStringArray(STATE_UPLOAD_FILES);
+        boolean[] done = state.getBooleanArray(STATE_UPLOAD_DONE);
+        String[] works = state.getStringArray(STATE_UPLOAD_WORKS);
+        if (paths == null || files == null || done == null || works == null) return;
+
+        UploadTracker tracker = new UploadTracker(paths.length);
+        uploads = tracker;
+        for (int i = 0; i < paths.length; i++) {
+            if (paths[i] == null) {
+                // Still encoding when the activity went away; that photo is lost
+                tracker.encodeFailed(i);
+                continue;
+            }
+            tracker.staged(i, paths[i], files[i], works[i]);
+            if (done[i]) tracker.uploaded(i);
+        }
+        showUploadProgress(tracker);
+        for (int i = 0; i < paths.length; i++) {
+            if (paths[i] != null && !done[i]) observeUpload(tracker, i, works[i]);
+        }
+    }
 
-            } catch (Exception e) {
-                Log.e("TFLiteClassify", "classification failed", e);
+    // ---------------------------
+    // Classification helpers
+    // ---------------------------
+    private void runClassification() {
+        // Skip photos that failed to decode
+        List<Bitmap> bitmaps = new ArrayList<>();
+        List<String> hashes = new ArrayList<>();
+        for (int i = 0; i < pickedBitmaps.length; i++) {
+            if (pickedBitmaps[i] != null) {
+                bitmaps.add(pickedBitmaps[i]);
+                hashes.add(pickedHashes[i]);
+            }
+        }
+        if (bitmaps.isEmpty()) return;
+
+        // Latest-wins: retaking/re-picking photos drops the superseded pick's inference
+        classifier.classifyAll(CLASSIFY_KEY, bitmaps, hashes, tiledClassification, new PollutionClassifier.Callback() {
+            @Override
+            public void onResult(ClassificationResult result) {
+                modelCategory = result.label;
+                // NOTE: Intentionally NOT applying model category to user's selection or UI.
+                String msg = "Model: " + result.label + " (conf: " + String.format("%.2f", result.confidence) + ")";
+                Toast.makeText(PollutionReporting.this, msg, Toast.LENGTH_SHORT).show();
             }
-        }).start();
+
+            @Override
+            public void onError(Exception e) {
+                // If the model can't be loaded (or the request was dropped) the app still runs,
+                // just without a model category
+                modelCategory = "";
+            }
+        });
     }
 
     // ---------------------------
@@ -588,20 +740,68 @@ public class PollutionReporting extends AppCompatActivity implements OnMapReadyC
     }
 
     // ---------------------------
-    // Submit report to Firestore
+    // Submit report (via the outbox)
     // ---------------------------
     private void submitReport() {
-        if (uploadsInProgress > 0) {
-            Toast.makeText(PollutionReporting.this, "Please wait, image is being uploaded", Toast.LENGTH_SHORT).show();
+        // Only the (short) encodes have to finish; the uploads themselves may still be running or queued
+        if (uploads != null && uploads.isEncoding()) {
+            Toast.makeText(PollutionReporting.this, "Please wait, image is being prepared", Toast.LENGTH_SHORT).show();
             return;
         }
 
         if (titleText.isEmpty() || descriptionText.isEmpty() || selectedCategory.isEmpty() ||
-                selectedSeverity.isEmpty() || selectedLocation == null || photoUrl.isEmpty()) {
+                selectedSeverity.isEmpty() || selectedLocation == null || uploads == null || uploads.photos().isEmpty()) {
             Toast.makeText(PollutionReporting.this, "Please fill in all required details and add a photo", Toast.LENGTH_SHORT).show();
             return;
         }
 
+        List<ReportSpatialIndex.Match> duplicates = findDuplicates();
+        if (duplicates.isEmpty()) {
+            queueReport();
+        } else {
+            showDuplicates(duplicates);
+        }
+    }
+
+    // Recent reports of the same category around the selected location, nearest first
+    private List<ReportSpatialIndex.Match> findDuplicates() {
+        long start = System.nanoTime();
+        List<ReportSpatialIndex.Match> matches = RecentReports.get().index().nearby(
+                selectedLocation.latitude, selectedLocation.longitude, DUPLICATE_RADIUS_M, selectedCategory,
+                System.currentTimeMillis() - DUPLICATE_WINDOW_MS, MAX_DUPLICATES_SHOWN);
+        Log.d("DuplicateCheck", matches.size() + " possible duplicates in "
+                + (System.nanoTime() - start) / 1000 + " us");
+        return matches;
+    }
+
+    private void showDuplicates(List<ReportSpatialIndex.Match> duplicates) {
+        StringBuilder list = new StringBuilder();
+        String nearestSentId = null;
+        for (ReportSpatialIndex.Match m : duplicates) {
+            String title = m.entry.title == null || m.entry.title.isEmpty() ? selectedCategory : m.entry.title;
+            int item = m.entry.pending ? R.string.duplicate_item_pending : R.string.duplicate_item;
+            list.append("\u2022 ").append(getString(item, title, Math.round(m.distanceMeters))).append('\n');
+            if (nearestSentId == null && !m.entry.pending) nearestSentId = m.entry.id;
+        }
+        AlertDialog.Builder dialog = new AlertDialog.Builder(this)
+                .setTitle(R.string.duplicate_title)
+                .setMessage(getString(R.string.duplicate_message, list.toString().trim()))
+                .setPositiveButton(R.string.submit_anyway, (d, w) -> queueReport())
+                .setNeutralButton(android.R.string.cancel, null);
+        // Reports still in the outbox have no document for ReportDetails to open
+        if (nearestSentId != null) {
+            String reportId = nearestSentId;
+            dialog.setNegativeButton(R.string.view_report, (d, w) -> {
+                Intent intent = new Intent(PollutionReporting.this, ReportDetails.class);
+                intent.putExtra("reportId", reportId);
+                startActivity(intent);
+            });
+        }
+        dialog.show();
+    }
+
+    private void queueReport() {
+        // photoPaths and timestamp are added by OutboxFlushWorker when the report is written
         Map<String, Object> reportData = new HashMap<>();
         reportData.put("title", titleText);
         reportData.put("description", descriptionText);
@@ -611,40 +811,45 @@ public class PollutionReporting extends AppCompatActivity implements OnMapReadyC
         reportData.put("latitude", selectedLocation.latitude);
         reportData.put("longitude", selectedLocation.longitude);
         reportData.put("pincode", pincode);
-        reportData.put("photoUrl", photoUrl);
+        // Spatial keys, so reports can be queried by proximity (NearbyReportsQuery)
+        reportData.putAll(NearbyReportsQuery.geohashFields(selectedLocation.latitude, selectedLocation.longitude));
         reportData.put("userName", userName);
         reportData.put("uid", uid);
         reportData.put("status", status);
-        reportData.put("timestamp", FieldValue.serverTimestamp());
-
-        FirebaseFirestore db = FirebaseFirestore.getInstance();
-        db.collection("reports")
-                .add(reportData)
-                .addOnSuccessListener(documentReference -> {
-                    Toast.makeText(PollutionReporting.this, "Report submitted successfully", Toast.LENGTH_SHORT).show();
-                    startActivity(new Intent(PollutionReporting.this, MainActivity.class));
-                    finish();
-                })
-                .addOnFailureListener(e -> {
-                    Toast.makeText(PollutionReporting.this, "Failed to submit report: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-                });
+
+        // Document id generated locally (no network), so retried writes are idempotent
+        String id = FirestoreProvider.get().collection("reports").document().getId();
+        List<ReportOutbox.Photo> photos = new ArrayList<>();
+        Set<String> paths = new HashSet<>();
+        for (UploadTracker.Photo p : uploads.photos()) {
+            // The same photo picked twice has one (content-addressed) path; list it once
+            if (!paths.add(p.path)) continue;
+            photos.add(new ReportOutbox.Photo(p.state == UploadTracker.State.UPLOADED, p.path, p.localFile, true));
+        }
+        ReportOutbox.Entry entry = new ReportOutbox.Entry(id, reportData, System.currentTimeMillis(), photos, 0);
+
+        ReportOutbox.get(this).addAsync(entry, added -> {
+            if (!added) {
+                Toast.makeText(PollutionReporting.this, "Failed to save report", Toast.LENGTH_SHORT).show();
+                return;
+            }
+            OutboxFlushWorker.schedule(this);
+            // A second submit (or another report nearby) should see this one too; pending until the
+            // listener sees its document
+            RecentReports.get().index().upsert(new ReportSpatialIndex.Entry(id, selectedLocation.latitude,
+                    selectedLocation.longitude, selectedCategory, entry.createdAt, titleText, true));
+            Toast.makeText(PollutionReporting.this, "Report queued for sending", Toast.LENGTH_SHORT).show();
+            startActivity(new Intent(PollutionReporting.this, MainActivity.class));
+            finish();
+        });
     }
 
     @Override
     protected void onDestroy() {
         super.onDestroy();
         // No reward listeners to remove anymore
-    }
-
-    // ---------------------------
-    // TFLite model loader
-    // ---------------------------
-    private MappedByteBuffer loadModelFile(String modelFilename) throws IOException {
-        AssetFileDescriptor fileDescriptor = getAssets().openFd(modelFilename);
-        FileInputStream inputStream = new FileInputStream(fileDescriptor.getFileDescriptor());
-        FileChannel fileChannel = inputStream.getChannel();
-        long startOffset = fileDescriptor.getStartOffset();
-        long declaredLength = fileDescriptor.getDeclaredLength();
-        return fileChannel.map(FileChannel.MapMode.READ_ONLY, startOffset, declaredLength);
+        classifier.release();
+        imagePipeline.shutdown();
+        RecentReports.get().stop();
     }
 }
@@ -70,7 +70,7 @@ public class Profile extends AppCompatActivity {
 
         // Initialize Firebase components
         mAuth = FirebaseAuth.getInstance();
-        db = FirebaseFirestore.getInstance();
+        db = FirestoreProvider.get();
         storage = FirebaseStorage.getInstance();
 
         // Find views
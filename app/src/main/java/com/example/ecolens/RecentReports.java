@@ -0,0 +1,141 @@
+package com.example.ecolens;
+
+import android.util.Log;
+
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.ListenerRegistration;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recent reports around the user, kept in a {@link ReportSpatialIndex} for instant duplicate checks.
+ *
+ * {@link #watch} listens to the reports of the last {@link #WINDOW_MS} in the geohash5 cell
+ * around a point and its eight neighbours (roughly 15 km x 15 km); Firestore sends those once and
+ * then only changes, which are applied to the index one by one. The query needs the composite
+ * index (geohash5, timestamp) declared in firestore.indexes.json. The time bound is fixed when
+ * the listener attaches, so reports that age out while it runs are pruned locally.
+ *
+ * Until that listener's first snapshot arrives, the pin itself is covered by a narrow
+ * {@link NearbyReportsQuery} range query ({@link #SEED_RADIUS_KM}), so a report submitted right
+ * after picking the location is still checked.
+ */
+final class RecentReports {
+
+    private static final String TAG = "RecentReports";
+
+    // Grid cell about the duplicate radius, so a query touches a handful of cells
+    private static final double CELL_METERS = 250;
+    private static final int MAX_ENTRIES = 5000;
+    static final long WINDOW_MS = TimeUnit.DAYS.toMillis(30);
+    private static final String FIELD_TIMESTAMP = "timestamp";
+    // Well beyond the duplicate radius, small enough for a handful of geohash range queries
+    static final double SEED_RADIUS_KM = 0.5;
+
+    private static RecentReports instance;
+
+    private final ReportSpatialIndex index = new ReportSpatialIndex(CELL_METERS, MAX_ENTRIES);
+    private ListenerRegistration registration;
+    private String watchedCell;
+    private boolean synced;   // the watched area's first snapshot has been applied
+
+    private RecentReports() {}
+
+    static synchronized RecentReports get() {
+        if (instance == null) instance = new RecentReports();
+        return instance;
+    }
+
+    ReportSpatialIndex index() {
+        return index;
+    }
+
+    /** Keeps the index current around (lat, lon); only seeds the pin if that area is already watched. */
+    synchronized void watch(double lat, double lon) {
+        String cell = GeoHash.encode(lat, lon, 5);
+        if (!cell.equals(watchedCell)) listen(cell);
+        if (!synced) seed(lat, lon);
+    }
+
+    private void listen(String cell) {
+        stop();
+        watchedCell = cell;
+
+        List<String> cells = new ArrayList<>();
+        cells.add(cell);
+        cells.addAll(GeoHash.neighbors(cell));
+        registration = FirestoreProvider.get().collection("reports")
+                .whereIn(NearbyReportsQuery.FIELD_GEOHASH_5, cells)
+                .whereGreaterThan(FIELD_TIMESTAMP, new Timestamp(new Date(System.currentTimeMillis() - WINDOW_MS)))
+                .addSnapshotListener((snapshots, error) -> {
+                    if (error != null) {
+                        Log.w(TAG, "Listening around " + cell + " failed", error);
+                        return;
+                    }
+                    if (snapshots == null) return;
+                    for (DocumentChange dc : snapshots.getDocumentChanges()) {
+                        DocumentSnapshot doc = dc.getDocument();
+                        if (dc.getType() == DocumentChange.Type.REMOVED) {
+                            index.remove(doc.getId());
+                        } else {
+                            ReportSpatialIndex.Entry entry = toEntry(doc);
+                            if (entry != null) index.upsert(entry);
+                        }
+                    }
+                    index.prune(System.currentTimeMillis() - WINDOW_MS);
+                    // A snapshot from the local cache may be missing reports; keep seeding until the server's
+                    if (!snapshots.getMetadata().isFromCache()) {
+                        synchronized (RecentReports.this) {
+                            if (cell.equals(watchedCell)) synced = true;
+                        }
+                    }
+                    Log.d(TAG, snapshots.getDocumentChanges().size() + " changes around " + cell + ", " + index.size() + " indexed");
+                });
+    }
+
+    synchronized void stop() {
+        if (registration != null) {
+            registration.remove();
+            registration = null;
+        }
+        watchedCell = null;
+        synced = false;
+    }
+
+    // Once the listener has synced its state is newer (a report may have been removed since), so late results are dropped
+    private void seed(double lat, double lon) {
+        long since = System.currentTimeMillis() - WINDOW_MS;
+        new NearbyReportsQuery().find(lat, lon, SEED_RADIUS_KM, new NearbyReportsQuery.Callback() {
+            @Override
+            public void onResult(List<NearbyReportsQuery.Result> results) {
+                synchronized (RecentReports.this) {
+                    if (synced) return;
+                    for (NearbyReportsQuery.Result r : results) {
+                        ReportSpatialIndex.Entry entry = toEntry(r.doc);
+                        if (entry != null && entry.createdAt >= since) index.upsert(entry);
+                    }
+                }
+                Log.d(TAG, "Seeded " + results.size() + " report(s) within " + SEED_RADIUS_KM + " km");
+            }
+
+            @Override
+            public void onError(Exception e) {
+                Log.w(TAG, "Seeding around " + lat + "," + lon + " failed", e);
+            }
+        });
+    }
+
+    private static ReportSpatialIndex.Entry toEntry(DocumentSnapshot doc) {
+        Double lat = doc.getDouble("latitude");
+        Double lon = doc.getDouble("longitude");
+        Timestamp timestamp = doc.getTimestamp(FIELD_TIMESTAMP);
+        if (lat == null || lon == null || timestamp == null) return null;
+        return new ReportSpatialIndex.Entry(doc.getId(), lat, lon, doc.getString("category"),
+                timestamp.toDate().getTime(), doc.getString("title"));
+    }
+}
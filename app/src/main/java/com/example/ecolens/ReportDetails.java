@@ -32,6 +32,8 @@ import com.google.android.gms.maps.model.MarkerOptions;
 import com.google.firebase.Timestamp;
 import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.storage.FirebaseStorage;
+import com.google.firebase.storage.StorageReference;
 
 import java.text.SimpleDateFormat;
 import java.util.Date;
@@ -55,6 +57,7 @@ public class ReportDetails extends AppCompatActivity implements OnMapReadyCallba
     private FrameLayout frameImagePreview;
     private TextView tvPlaceholder;
     private ImageButton imagePreviewBtn;
+    private Object photoPreview;   // what imagePreviewBtn shows; placeholder while the full image loads
 
     // Resolved fields (from XML)
     private TextView tvResolutionLabel;
@@ -83,7 +86,7 @@ public class ReportDetails extends AppCompatActivity implements OnMapReadyCallba
             return insets;
         });
 
-        db = FirebaseFirestore.getInstance();
+        db = FirestoreProvider.get();
 
         btnClose = findViewById(R.id.btn_close);
         tvReportId = findViewById(R.id.tv_report_id);
@@ -150,34 +153,42 @@ public class ReportDetails extends AppCompatActivity implements OnMapReadyCallba
         if (imagePreviewBtn != null) {
             imagePreviewBtn.setOnClickListener(v -> {
                 Object tag = imagePreviewBtn.getTag();
-                if (tag instanceof String) {
-                    openFullScreenImage((String) tag);
+                if (tag != null) {
+                    openFullScreenImage(tag, photoPreview);
                 }
             });
         }
         if (imageResolvedPreviewBtn != null) {
             imageResolvedPreviewBtn.setOnClickListener(v -> {
                 Object tag = imageResolvedPreviewBtn.getTag();
-                if (tag instanceof String) {
-                    openFullScreenImage((String) tag);
+                if (tag != null) {
+                    openFullScreenImage(tag, null);
                 }
             });
         }
     }
 
     private void loadReportDetails() {
-        db.collection("reports").document(reportId).get()
-                .addOnSuccessListener(documentSnapshot -> {
-                    if (documentSnapshot.exists()) {
-                        populateReportDetails(documentSnapshot);
-                    } else {
-                        Toast.makeText(ReportDetails.this, "Report not found", Toast.LENGTH_SHORT).show();
+        // Cached copy first, then the server's if it changed (e.g. the status was updated)
+        FirestoreProvider.read(db.collection("reports").document(reportId),
+                new FirestoreProvider.Callback<DocumentSnapshot>() {
+                    @Override
+                    public void onResult(DocumentSnapshot documentSnapshot, boolean fromCache) {
+                        if (isFinishing() || isDestroyed()) return;
+                        if (documentSnapshot.exists()) {
+                            populateReportDetails(documentSnapshot);
+                        } else {
+                            Toast.makeText(ReportDetails.this, "Report not found", Toast.LENGTH_SHORT).show();
+                            finish();
+                        }
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        if (isFinishing() || isDestroyed()) return;
+                        Toast.makeText(ReportDetails.this, "Error: " + e.getMessage(), Toast.LENGTH_SHORT).show();
                         finish();
                     }
-                })
-                .addOnFailureListener(e -> {
-                    Toast.makeText(ReportDetails.this, "Error: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-                    finish();
                 });
     }
 
@@ -211,27 +222,24 @@ public class ReportDetails extends AppCompatActivity implements OnMapReadyCallba
             tvStatus.setTextColor(getResources().getColor(android.R.color.darker_gray));
         }
 
-        // IMAGE: single image handling (prefer "photoUrl", else first of "photoUrls")
-        String photoUrl = null;
-        if (doc.contains("photoUrl")) {
-            photoUrl = safeGetString(doc, "photoUrl");
-        } else if (doc.contains("photoUrls")) {
-            Object arr = doc.get("photoUrls");
-            if (arr instanceof List) {
-                List<?> list = (List<?>) arr;
-                if (!list.isEmpty() && list.get(0) instanceof String) {
-                    photoUrl = (String) list.get(0);
-                }
-            }
-        }
+        // IMAGE: single image handling (Storage path, or download URL on older reports)
+        Object photo = firstPhoto(doc);
 
-        if (photoUrl != null && !photoUrl.isEmpty()) {
-            final String finalPhotoUrl = photoUrl;
+        if (photo != null) {
+            final Object finalPhotoUrl = photo;
+            // The preview is the medium variant over the small one; the full image only opens full screen
+            Object medium = firstVariant(doc, "mediumPaths");
+            Object small = firstVariant(doc, "thumbnailPaths");
+            photoPreview = medium != null ? medium : finalPhotoUrl;
             if (imagePreviewBtn != null && frameImagePreview != null && tvPlaceholder != null) {
                 tvPlaceholder.setVisibility(View.GONE);
                 imagePreviewBtn.setVisibility(View.VISIBLE);
                 imagePreviewBtn.setAdjustViewBounds(true);
-                Glide.with(this).load(finalPhotoUrl).centerCrop().into(imagePreviewBtn);
+                Glide.with(this).load(photoPreview)
+                        .thumbnail(small != null ? Glide.with(this).load(small).centerCrop() : null)
+                        .error(Glide.with(this).load(finalPhotoUrl).centerCrop())
+                        .centerCrop()
+                        .into(imagePreviewBtn);
                 imagePreviewBtn.setTag(finalPhotoUrl);
             } else if (llImages != null) {
                 llImages.removeAllViews();
@@ -243,8 +251,11 @@ public class ReportDetails extends AppCompatActivity implements OnMapReadyCallba
                 iv.setLayoutParams(params);
                 iv.setScaleType(ImageView.ScaleType.CENTER_CROP);
                 iv.setAdjustViewBounds(true);
-                Glide.with(this).load(finalPhotoUrl).into(iv);
-                iv.setOnClickListener(v -> openFullScreenImage(finalPhotoUrl));
+                Glide.with(this).load(photoPreview)
+                        .thumbnail(small != null ? Glide.with(this).load(small) : null)
+                        .error(Glide.with(this).load(finalPhotoUrl))
+                        .into(iv);
+                iv.setOnClickListener(v -> openFullScreenImage(finalPhotoUrl, photoPreview));
                 llImages.addView(iv);
             }
         } else {
@@ -269,6 +280,7 @@ public class ReportDetails extends AppCompatActivity implements OnMapReadyCallba
                 imagePreviewBtn.setVisibility(View.VISIBLE);
                 Glide.with(this).load(newImageUrl).centerCrop().into(imagePreviewBtn);
                 imagePreviewBtn.setTag(newImageUrl);
+                photoPreview = null;
                 View label = findViewById(R.id.tv_new_images_label);
                 if (label != null) label.setVisibility(View.VISIBLE);
                 View hs = findViewById(R.id.hs_new_images);
@@ -393,19 +405,50 @@ public class ReportDetails extends AppCompatActivity implements OnMapReadyCallba
         startActivity(intent);
     }
 
-    private void openFullScreenImage(String imageUrl) {
-        if (imageUrl == null || imageUrl.isEmpty()) return;
+    // A download URL or a StorageReference; Glide loads either
+    private void openFullScreenImage(Object imageUrl, Object preview) {
+        if (imageUrl == null) return;
 
         Dialog dialog = new Dialog(this, android.R.style.Theme_Black_NoTitleBar_Fullscreen);
         dialog.setContentView(R.layout.dialog_fullscreen_image);
 
         ImageView fullImage = dialog.findViewById(R.id.full_image);
-        Glide.with(this).load(imageUrl).into(fullImage);
+        // The preview is already cached, so it shows at once while the full image downloads
+        Glide.with(this).load(imageUrl)
+                .thumbnail(preview != null ? Glide.with(this).load(preview) : null)
+                .into(fullImage);
 
         fullImage.setOnClickListener(view -> dialog.dismiss());
         dialog.show();
     }
 
+    /**
+     * The report's first photo: a {@link StorageReference} for reports that store paths
+     * ("photoPath" / "photoPaths"), else the download URL older reports stored, else null.
+     */
+    private Object firstPhoto(DocumentSnapshot doc) {
+        String path = firstString(doc, "photoPath", "photoPaths");
+        if (path != null) return FirebaseStorage.getInstance().getReference(path);
+        return firstString(doc, "photoUrl", "photoUrls");
+    }
+
+    /** The first photo's variant from a path list such as "thumbnailPaths", or null if it has none. */
+    private Object firstVariant(DocumentSnapshot doc, String list) {
+        String path = firstString(doc, null, list);
+        return path != null ? FirebaseStorage.getInstance().getReference(path) : null;
+    }
+
+    private String firstString(DocumentSnapshot doc, String single, String list) {
+        String value = single != null ? safeGetString(doc, single) : null;
+        if (value != null && !value.isEmpty()) return value;
+        Object arr = doc.get(list);
+        if (arr instanceof List && !((List<?>) arr).isEmpty() && ((List<?>) arr).get(0) instanceof String) {
+            value = (String) ((List<?>) arr).get(0);
+            if (!value.isEmpty()) return value;
+        }
+        return null;
+    }
+
     // Helper to safely read a string from DocumentSnapshot
     private String safeGetString(DocumentSnapshot doc, String key) {
         Object o = doc.get(key);
@@ -0,0 +1,278 @@
+package com.example.ecolens;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Durable queue of reports waiting to be written to Firestore (SQLite, app-private).
+ *
+ * Each entry holds the complete report fields plus its photo references: for each photo the
+ * Storage path, whether the upload is known to be done, and the local encoded file until it is, so
+ * nothing typed or photographed offline is lost. Entries are keyed by the
+ * client-generated Firestore document id, which makes flushing idempotent. Flushed by
+ * {@link OutboxFlushWorker}.
+ */
+final class ReportOutbox extends SQLiteOpenHelper {
+
+    private static final String DB_NAME = "outbox.db";
+    // v2: one "photos" JSON array instead of the single photo_url / photo_path / local_file
+    private static final int DB_VERSION = 2;
+    private static final String TABLE = "reports";
+    private static final String TAG = "ReportOutbox";
+
+    private static ReportOutbox instance;
+
+    private final ExecutorService writeExecutor = Executors.newSingleThreadExecutor(r -> new Thread(r, "report-outbox"));
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    /** One photo of a queued report. */
+    static final class Photo {
+        boolean uploaded;          // the object is known to exist at path
+        final String path;         // Storage object path
+        final String localFile;    // encoded photo on disk; deleted by whichever upload succeeds
+        boolean variants;          // UploadEncoder.Variant copies exist next to path (and localFile)
+
+        Photo(boolean uploaded, String path, String localFile, boolean variants) {
+            this.uploaded = uploaded;
+            this.path = path;
+            this.localFile = localFile;
+            this.variants = variants;
+        }
+
+        /** The staged photo and its variants, whether or not they still exist. */
+        List<String> localFiles() {
+            List<String> files = new ArrayList<>();
+            if (localFile == null) return files;
+            files.add(localFile);
+            if (variants) {
+                for (UploadEncoder.Variant v : UploadEncoder.Variant.values()) files.add(v.name(localFile));
+            }
+            return files;
+        }
+    }
+
+    /** One queued report. */
+    static final class Entry {
+        final String id;                    // Firestore document id, generated on the device
+        final Map<String, Object> fields;   // report fields except photos and timestamp
+        final long createdAt;
+        final List<Photo> photos;           // in pick order
+        int attempts;
+
+        Entry(String id, Map<String, Object> fields, long createdAt, List<Photo> photos, int attempts) {
+            this.id = id;
+            this.fields = fields;
+            this.createdAt = createdAt;
+            this.photos = photos;
+            this.attempts = attempts;
+        }
+    }
+
+    static synchronized ReportOutbox get(Context context) {
+        if (instance == null) instance = new ReportOutbox(context.getApplicationContext());
+        return instance;
+    }
+
+    private ReportOutbox(Context context) {
+        super(context, DB_NAME, null, DB_VERSION);
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE + " ("
+                + "id TEXT PRIMARY KEY, "
+                + "fields TEXT NOT NULL, "
+                + "created_at INTEGER NOT NULL, "
+                + "photos TEXT NOT NULL DEFAULT '[]', "
+                + "attempts INTEGER NOT NULL DEFAULT 0, "
+                + "next_attempt_at INTEGER NOT NULL DEFAULT 0, "
+                + "last_error TEXT)");
+        db.execSQL("CREATE INDEX " + TABLE + "_due ON " + TABLE + " (next_attempt_at)");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        if (oldVersion < 2) {
+            // The old single-photo columns stay (unused); DROP COLUMN needs a newer SQLite
+            db.execSQL("ALTER TABLE " + TABLE + " ADD COLUMN photos TEXT NOT NULL DEFAULT '[]'");
+            try (Cursor c = db.query(TABLE, new String[]{"id", "photo_url", "photo_path", "local_file"},
+                    null, null, null, null, null)) {
+                while (c.moveToNext()) {
+                    List<Photo> photos = new ArrayList<>();
+                    // v1 always recorded the path once a photo was queued
+                    if (c.getString(2) != null) {
+                        photos.add(new Photo(c.getString(1) != null, c.getString(2), c.getString(3), false));
+                    }
+                    ContentValues values = new ContentValues();
+                    values.put("photos", encodePhotos(photos));
+                    db.update(TABLE, values, "id = ?", new String[]{c.getString(0)});
+                }
+            }
+        }
+    }
+
+    /** Queues (or replaces) a report; due immediately. */
+    void add(Entry entry) {
+        ContentValues values = new ContentValues();
+        values.put("id", entry.id);
+        values.put("fields", new JSONObject(entry.fields).toString());
+        values.put("created_at", entry.createdAt);
+        values.put("photos", encodePhotos(entry.photos));
+        values.put("attempts", entry.attempts);
+        values.put("next_attempt_at", 0);
+        getWritableDatabase().insertWithOnConflict(TABLE, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+    }
+
+    interface Callback {
+        void onAdded(boolean added);
+    }
+
+    /**
+     * {@link #add} off the main thread; {@code onAdded} runs on the main thread with true once the
+     * entry is on disk, false if it could not be written.
+     */
+    void addAsync(Entry entry, Callback onAdded) {
+        writeExecutor.execute(() -> {
+            boolean ok;
+            try {
+                add(entry);
+                ok = true;
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Could not queue report " + entry.id, e);
+                ok = false;
+            }
+            boolean added = ok;
+            mainHandler.post(() -> onAdded.onAdded(added));
+        });
+    }
+
+    /** Entries whose backoff has expired, oldest first. */
+    List<Entry> due(long now, int limit) {
+        List<Entry> entries = new ArrayList<>();
+        try (Cursor c = getReadableDatabase().query(TABLE,
+                new String[]{"id", "fields", "created_at", "photos", "attempts"},
+                "next_attempt_at <= ?", new String[]{Long.toString(now)},
+                null, null, "created_at", Integer.toString(limit))) {
+            while (c.moveToNext()) {
+                entries.add(new Entry(c.getString(0), parseFields(c.getString(1)), c.getLong(2),
+                        parsePhotos(c.getString(3)), c.getInt(4)));
+            }
+        }
+        return entries;
+    }
+
+    /** Persists confirmed uploads, so they are not checked again after a failed write. */
+    void updatePhotos(Entry entry) {
+        ContentValues values = new ContentValues();
+        values.put("photos", encodePhotos(entry.photos));
+        getWritableDatabase().update(TABLE, values, "id = ?", new String[]{entry.id});
+    }
+
+    void markFailed(String id, int attempts, long nextAttemptAt, String error) {
+        ContentValues values = new ContentValues();
+        values.put("attempts", attempts);
+        values.put("next_attempt_at", nextAttemptAt);
+        values.put("last_error", error);
+        getWritableDatabase().update(TABLE, values, "id = ?", new String[]{id});
+    }
+
+    void remove(List<String> ids) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            for (String id : ids) db.delete(TABLE, "id = ?", new String[]{id});
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /** Earliest next_attempt_at of any entry, or -1 if the outbox is empty. */
+    long nextAttemptAt() {
+        try (Cursor c = getReadableDatabase().rawQuery("SELECT MIN(next_attempt_at) FROM " + TABLE, null)) {
+            return c.moveToFirst() && !c.isNull(0) ? c.getLong(0) : -1;
+        }
+    }
+
+    /** Local photo files still referenced by queued reports. */
+    List<String> localFiles() {
+        List<String> files = new ArrayList<>();
+        try (Cursor c = getReadableDatabase().query(TABLE, new String[]{"photos"}, null, null, null, null, null)) {
+            while (c.moveToNext()) {
+                for (Photo photo : parsePhotos(c.getString(0))) files.addAll(photo.localFiles());
+            }
+        }
+        return files;
+    }
+
+    private static String encodePhotos(List<Photo> photos) {
+        JSONArray array = new JSONArray();
+        try {
+            for (Photo photo : photos) {
+                array.put(new JSONObject()
+                        .put("uploaded", photo.uploaded)
+                        .put("path", photo.path != null ? photo.path : JSONObject.NULL)
+                        .put("file", photo.localFile != null ? photo.localFile : JSONObject.NULL)
+                        .put("variants", photo.variants));
+            }
+        } catch (JSONException e) {
+            throw new IllegalStateException(e);   // only thrown for non-finite numbers
+        }
+        return array.toString();
+    }
+
+    private static List<Photo> parsePhotos(String json) {
+        List<Photo> photos = new ArrayList<>();
+        try {
+            JSONArray array = new JSONArray(json);
+            for (int i = 0; i < array.length(); i++) {
+                JSONObject o = array.getJSONObject(i);
+                // Entries queued before paths replaced URLs have "url" instead of "uploaded"
+                boolean uploaded = o.has("uploaded") ? o.getBoolean("uploaded") : optString(o, "url") != null;
+                photos.add(new Photo(uploaded, optString(o, "path"), optString(o, "file"), o.optBoolean("variants")));
+            }
+        } catch (JSONException e) {
+            throw new IllegalStateException("Corrupt outbox entry", e);
+        }
+        return photos;
+    }
+
+    // optString() turns JSON null into "null"
+    private static String optString(JSONObject o, String key) {
+        return o.isNull(key) ? null : o.optString(key);
+    }
+
+    private static Map<String, Object> parseFields(String json) {
+        Map<String, Object> fields = new HashMap<>();
+        try {
+            JSONObject obj = new JSONObject(json);
+            for (Iterator<String> keys = obj.keys(); keys.hasNext(); ) {
+                String key = keys.next();
+                Object value = obj.get(key);
+                fields.put(key, value == JSONObject.NULL ? null : value);
+            }
+        } catch (JSONException e) {
+            // Written by add() from a Map, so this would mean a corrupted row
+            throw new IllegalStateException("Corrupt outbox entry", e);
+        }
+        return fields;
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.ecolens;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory spatial index of recent reports, for spotting likely duplicates before submitting.
+ *
+ * Reports are bucketed in a uniform lat/lon grid; a radius query only visits the few cells that
+ * overlap the circle's bounding box and then checks real distance, so it costs microseconds for
+ * thousands of reports. Updated incrementally ({@link #upsert}/{@link #remove}); the oldest reports
+ * are dropped beyond {@code maxEntries}. Pure Java; thread-safe.
+ */
+public final class ReportSpatialIndex {
+
+    /** One indexed report. */
+    public static final class Entry {
+        public final String id;
+        public final double lat;
+        public final double lon;
+        public final String category;   // as stored on reports, e.g. "Air+Water"
+        public final long createdAt;    // epoch millis
+        public final String title;
+        public final boolean pending;   // only in the local outbox: no Firestore document yet
+
+        public Entry(String id, double lat, double lon, String category, long createdAt, String title) {
+            this(id, lat, lon, category, createdAt, title, false);
+        }
+
+        public Entry(String id, double lat, double lon, String category, long createdAt, String title, boolean pending) {
+            this.id = id;
+            this.lat = lat;
+            this.lon = lon;
+            this.category = category;
+            this.createdAt = createdAt;
+            this.title = title;
+            this.pending = pending;
+        }
+    }
+
+    /** A report found near the query point. */
+    public static final class Match {
+        public final Entry entry;
+        public final double distanceMeters;
+
+        Match(Entry entry, double distanceMeters) {
+            this.entry = entry;
+            this.distanceMeters = distanceMeters;
+        }
+    }
+
+    private static final double METERS_PER_DEGREE = Math.toRadians(GeoHash.EARTH_RADIUS_M);
+
+    private final double cellDegrees;
+    private final long columns;
+    private final int maxEntries;
+
+    // Guarded by "this"
+    private final Map<Long, Map<String, Entry>> cells = new HashMap<>();
+    private final Map<String, Entry> byId = new HashMap<>();
+
+    /**
+     * @param cellMeters grid cell edge (north-south); about the typical query radius works best
+     */
+    public ReportSpatialIndex(double cellMeters, int maxEntries) {
+        if (cellMeters <= 0 || maxEntries < 1) throw new IllegalArgumentException("cell " + cellMeters + ", max " + maxEntries);
+        this.cellDegrees = cellMeters / METERS_PER_DEGREE;
+        this.columns = (long) Math.ceil(360 / cellDegrees);
+        this.maxEntries = maxEntries;
+    }
+
+    /** Adds a report, or moves/updates it if its id is already indexed. */
+    public synchronized void upsert(Entry entry) {
+        remove(entry.id);
+        byId.put(entry.id, entry);
+        cells.computeIfAbsent(cellOf(entry.lat, entry.lon), k -> new HashMap<>()).put(entry.id, entry);
+        if (byId.size() > maxEntries) remove(oldest().id);
+    }
+
+    public synchronized boolean remove(String id) {
+        Entry entry = byId.remove(id);
+        if (entry == null) return false;
+        long key = cellOf(entry.lat, entry.lon);
+        Map<String, Entry> cell = cells.get(key);
+        cell.remove(id);
+        if (cell.isEmpty()) cells.remove(key);
+        return true;
+    }
+
+    /** Drops reports created before {@code cutoff}. */
+    public synchronized void prune(long cutoff) {
+        for (Entry entry : new ArrayList<>(byId.values())) {
+            if (entry.createdAt < cutoff) remove(entry.id);
+        }
+    }
+
+    public synchronized int size() {
+        return byId.size();
+    }
+
+    /**
+     * Reports within {@code radiusMeters} of (lat, lon), created at or after {@code since} and
+     * sharing a category with {@code category} (null: any), nearest first, at most {@code limit}.
+     */
+    public synchronized List<Match> nearby(double lat, double lon, double radiusMeters, String category,
+                                           long since, int limit) {
+        double dLat = radiusMeters / METERS_PER_DEGREE;
+        double cos = Math.cos(Math.toRadians(Math.min(90, Math.abs(lat) + dLat)));
+        double dLon = cos <= 1e-12 ? 360 : dLat / cos;
+
+        long rowFrom = row(lat - dLat);
+        long rowTo = row(lat + dLat);
+        long colFrom = (long) Math.floor((lon - dLon + 180) / cellDegrees);
+        long colTo = (long) Math.floor((lon + dLon + 180) / cellDegrees);
+        if (colTo - colFrom + 1 >= columns) {
+            colFrom = 0;
+            colTo = columns - 1;
+        }
+
+        List<Match> matches = new ArrayList<>();
+        for (long row = rowFrom; row <= rowTo; row++) {
+            for (long col = colFrom; col <= colTo; col++) {
+                // Columns wrap around the antimeridian
+                Map<String, Entry> cell = cells.get(row * columns + Math.floorMod(col, columns));
+                if (cell == null) continue;
+                for (Entry entry : cell.values()) {
+                    if (entry.createdAt < since) continue;
+                    if (category != null && !sharesCategory(category, entry.category)) continue;
+                    double d = GeoHash.distanceMeters(lat, lon, entry.lat, entry.lon);
+                    if (d <= radiusMeters) matches.add(new Match(entry, d));
+                }
+            }
+        }
+        matches.sort(Comparator.comparingDouble(m -> m.distanceMeters));
+        return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+    }
+
+    /** Whether two category strings ("Air+Water", "Soil", ...) have a category in common. */
+    public static boolean sharesCategory(String a, String b) {
+        if (a == null || b == null) return false;
+        List<String> mine = new ArrayList<>();
+        Collections.addAll(mine, a.split("\\+"));
+        for (String c : b.split("\\+")) {
+            if (!c.isEmpty() && mine.contains(c)) return true;
+        }
+        return false;
+    }
+
+    private long cellOf(double lat, double lon) {
+        long col = Math.floorMod((long) Math.floor((lon + 180) / cellDegrees), columns);
+        return row(lat) * columns + col;
+    }
+
+    private long row(double lat) {
+        long rows = (long) Math.ceil(180 / cellDegrees);
+        return Math.max(0, Math.min(rows - 1, (long) Math.floor((lat + 90) / cellDegrees)));
+    }
+
+    private Entry oldest() {
+        Entry oldest = null;
+        for (Entry entry : byId.values()) {
+            if (oldest == null || entry.createdAt < oldest.createdAt) oldest = entry;
+        }
+        return oldest;
+    }
+}
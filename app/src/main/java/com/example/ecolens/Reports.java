@@ -3,6 +3,7 @@ package com.example.ecolens;
 import android.content.Intent;
 import android.graphics.Color;
 import android.os.Bundle;
+import android.view.View;
 import android.view.ViewGroup;
 import android.widget.Button;
 import android.widget.ImageButton;
@@ -20,6 +21,10 @@ import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
 import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.util.ArrayList;
+import java.util.List;
 
 public class Reports extends AppCompatActivity {
 
@@ -27,6 +32,7 @@ public class Reports extends AppCompatActivity {
     private FirebaseFirestore db;
     private FirebaseUser currentUser;
     private ImageButton btnClose;
+    private final List<View> reportCards = new ArrayList<>();   // replaced when fresher data arrives
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -43,7 +49,7 @@ public class Reports extends AppCompatActivity {
 
         btnClose = findViewById(R.id.btn_close);
         reportsLayout = findViewById(R.id.reports_layout);
-        db = FirebaseFirestore.getInstance();
+        db = FirestoreProvider.get();
         currentUser = FirebaseAuth.getInstance().getCurrentUser();
 
         // Set close button behavior
@@ -62,16 +68,24 @@ public class Reports extends AppCompatActivity {
     }
 
     private void loadReports() {
-        db.collection("reports").whereEqualTo("uid", currentUser.getUid())
-                .get()
-                .addOnSuccessListener(queryDocumentSnapshots -> {
-                    for (DocumentSnapshot doc : queryDocumentSnapshots.getDocuments()) {
-                        addReportButton(doc);
+        // Cached list first, then the server's if it differs
+        FirestoreProvider.read(db.collection("reports").whereEqualTo("uid", currentUser.getUid()),
+                new FirestoreProvider.Callback<QuerySnapshot>() {
+                    @Override
+                    public void onResult(QuerySnapshot queryDocumentSnapshots, boolean fromCache) {
+                        if (isFinishing() || isDestroyed()) return;
+                        for (View card : reportCards) reportsLayout.removeView(card);
+                        reportCards.clear();
+                        for (DocumentSnapshot doc : queryDocumentSnapshots.getDocuments()) {
+                            addReportButton(doc);
+                        }
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        Toast.makeText(Reports.this, "Error: " + e.getMessage(), Toast.LENGTH_LONG).show();
                     }
-                })
-                .addOnFailureListener(e ->
-                        Toast.makeText(Reports.this, "Error: " + e.getMessage(), Toast.LENGTH_LONG).show()
-                );
+                });
     }
 
     private void addReportButton(DocumentSnapshot doc) {
@@ -109,6 +123,7 @@ public class Reports extends AppCompatActivity {
 
         cardView.addView(btnReport);
         reportsLayout.addView(cardView);
+        reportCards.add(cardView);
     }
 
     private void openReportDetails(String reportId) {
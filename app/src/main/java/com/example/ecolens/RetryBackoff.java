@@ -0,0 +1,40 @@
+package com.example.ecolens;
+
+/**
+ * Capped exponential backoff with jitter: attempt {@code n} (0-based) waits about
+ * {@code base * 2^n}, at most {@code max}, scaled by a random factor in [1 - jitter, 1] so that
+ * many devices coming back online do not retry in lockstep.
+ *
+ * The random factor is passed in, so delays are deterministic in tests.
+ */
+public final class RetryBackoff {
+
+    private final long baseMillis;
+    private final long maxMillis;
+    private final double jitter;
+
+    /**
+     * @param jitter fraction of the delay that may be randomly removed, in [0, 1]
+     */
+    public RetryBackoff(long baseMillis, long maxMillis, double jitter) {
+        if (baseMillis <= 0 || maxMillis < baseMillis) {
+            throw new IllegalArgumentException("base " + baseMillis + ", max " + maxMillis);
+        }
+        if (jitter < 0 || jitter > 1) throw new IllegalArgumentException("jitter " + jitter);
+        this.baseMillis = baseMillis;
+        this.maxMillis = maxMillis;
+        this.jitter = jitter;
+    }
+
+    /**
+     * @param attempt number of failed attempts so far, minus one (0 for the first retry)
+     * @param random  uniform value in [0, 1)
+     */
+    public long delayMillis(int attempt, double random) {
+        // base << attempt only when it cannot pass the cap (and so cannot overflow)
+        long delay = attempt >= 0 && attempt < 63 && baseMillis <= (maxMillis >> attempt)
+                ? baseMillis << attempt
+                : maxMillis;
+        return Math.round(delay * (1 - jitter * random));
+    }
+}
@@ -130,7 +130,7 @@ public class SignUpActivity extends AppCompatActivity {
                     .addOnCompleteListener(task -> {
                         if (task.isSuccessful()) {
                             // Set a flag in Firestore to indicate registration is complete
-                            FirebaseFirestore db = FirebaseFirestore.getInstance();
+                            FirebaseFirestore db = FirestoreProvider.get();
                             Map<String, Object> userData = new HashMap<>();
                             userData.put("registrationComplete", true);
 
@@ -0,0 +1,158 @@
+package com.example.ecolens;
+
+import android.content.Context;
+import android.net.Uri;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.bumptech.glide.Priority;
+import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.HttpException;
+import com.bumptech.glide.load.Options;
+import com.bumptech.glide.load.data.DataFetcher;
+import com.bumptech.glide.load.data.HttpUrlFetcher;
+import com.bumptech.glide.load.model.GlideUrl;
+import com.bumptech.glide.load.model.ModelLoader;
+import com.bumptech.glide.load.model.ModelLoaderFactory;
+import com.bumptech.glide.load.model.MultiModelLoaderFactory;
+import com.bumptech.glide.signature.ObjectKey;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.storage.StorageReference;
+
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lets Glide load a {@link StorageReference} directly, so reports can store object paths instead
+ * of download URLs.
+ *
+ * The download URL is looked up lazily on Glide's source thread and kept in a
+ * {@link DownloadUrlCache}; the image itself is fetched over HTTP as usual. Glide caches the image
+ * under the object path, which (unlike the tokenized URL) never changes.
+ */
+final class StorageImageLoader implements ModelLoader<StorageReference, InputStream> {
+
+    private static final int TIMEOUT_MS = 30_000;
+
+    private final DownloadUrlCache urls;
+
+    private StorageImageLoader(DownloadUrlCache urls) {
+        this.urls = urls;
+    }
+
+    @Override
+    public boolean handles(@NonNull StorageReference ref) {
+        return true;
+    }
+
+    @Nullable
+    @Override
+    public LoadData<InputStream> buildLoadData(@NonNull StorageReference ref, int width, int height,
+                                               @NonNull Options options) {
+        return new LoadData<>(new ObjectKey(ref.getPath()), new Fetcher(ref, urls));
+    }
+
+    static final class Factory implements ModelLoaderFactory<StorageReference, InputStream> {
+        private final DownloadUrlCache urls;
+
+        Factory(Context context) {
+            urls = DownloadUrlCache.get(context);
+        }
+
+        @NonNull
+        @Override
+        public ModelLoader<StorageReference, InputStream> build(@NonNull MultiModelLoaderFactory factory) {
+            return new StorageImageLoader(urls);
+        }
+
+        @Override
+        public void teardown() {
+        }
+    }
+
+    private static final class Fetcher implements DataFetcher<InputStream> {
+        private final StorageReference ref;
+        private final DownloadUrlCache urls;
+        private volatile HttpUrlFetcher http;
+        private volatile boolean cancelled;
+
+        Fetcher(StorageReference ref, DownloadUrlCache urls) {
+            this.ref = ref;
+            this.urls = urls;
+        }
+
+        // Runs on a Glide source thread, so blocking on the URL lookup is fine
+        @Override
+        public void loadData(@NonNull Priority priority, @NonNull DataCallback<? super InputStream> callback) {
+            String path = ref.getPath();
+            String cached = urls.get(path);
+            try {
+                fetch(priority, cached != null ? cached : resolve(), new DataCallback<InputStream>() {
+                    @Override
+                    public void onDataReady(@Nullable InputStream data) {
+                        callback.onDataReady(data);
+                    }
+
+                    @Override
+                    public void onLoadFailed(@NonNull Exception e) {
+                        if (cached == null || cancelled || !isStaleUrl(e)) {
+                            callback.onLoadFailed(e);
+                            return;
+                        }
+                        // The token behind the cached URL was revoked; look the URL up once more
+                        urls.remove(path);
+                        try {
+                            fetch(priority, resolve(), callback);
+                        } catch (Exception retry) {
+                            callback.onLoadFailed(retry);
+                        }
+                    }
+                });
+            } catch (Exception e) {
+                callback.onLoadFailed(e);
+            }
+        }
+
+        private String resolve() throws Exception {
+            Uri uri = Tasks.await(ref.getDownloadUrl(), TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            urls.put(ref.getPath(), uri.toString());
+            return uri.toString();
+        }
+
+        private void fetch(Priority priority, String url, DataCallback<? super InputStream> callback) {
+            if (http != null) http.cleanup();
+            http = new HttpUrlFetcher(new GlideUrl(url), TIMEOUT_MS);
+            http.loadData(priority, callback);
+        }
+
+        private static boolean isStaleUrl(Exception e) {
+            if (!(e instanceof HttpException)) return false;
+            int status = ((HttpException) e).getStatusCode();
+            return status == 401 || status == 403 || status == 404;
+        }
+
+        @Override
+        public void cleanup() {
+            if (http != null) http.cleanup();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            if (http != null) http.cancel();
+        }
+
+        @NonNull
+        @Override
+        public Class<InputStream> getDataClass() {
+            return InputStream.class;
+        }
+
+        @NonNull
+        @Override
+        public DataSource getDataSource() {
+            return DataSource.REMOTE;
+        }
+    }
+}
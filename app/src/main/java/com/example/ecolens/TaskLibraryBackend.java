@@ -0,0 +1,136 @@
+package com.example.ecolens;
+
+import android.graphics.Bitmap;
+import android.util.Log;
+
+import org.tensorflow.lite.DataType;
+import org.tensorflow.lite.Interpreter;
+import org.tensorflow.lite.Tensor;
+import org.tensorflow.lite.support.common.TensorProcessor;
+import org.tensorflow.lite.support.common.ops.CastOp;
+import org.tensorflow.lite.support.common.ops.DequantizeOp;
+import org.tensorflow.lite.support.common.ops.NormalizeOp;
+import org.tensorflow.lite.support.common.ops.QuantizeOp;
+import org.tensorflow.lite.support.image.ImageProcessor;
+import org.tensorflow.lite.support.image.TensorImage;
+import org.tensorflow.lite.support.image.ops.ResizeOp;
+import org.tensorflow.lite.support.label.Category;
+import org.tensorflow.lite.support.tensorbuffer.TensorBuffer;
+import org.tensorflow.lite.task.core.BaseOptions;
+import org.tensorflow.lite.task.vision.classifier.Classifications;
+import org.tensorflow.lite.task.vision.classifier.ImageClassifier;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * {@link ClassifierBackend} built on the TFLite Task and Support libraries instead of our own loops.
+ *
+ * Models that carry TFLite metadata (normalization + labels) run through the Task Library
+ * {@link ImageClassifier}. Models without metadata, which the ImageClassifier refuses to load, fall
+ * back to a Support Library {@link ImageProcessor} pipeline (resize, normalize to [0,1], quantize if
+ * needed) feeding a plain Interpreter. Either way, preprocessing matches {@link ImagePreprocessor}.
+ */
+final class TaskLibraryBackend implements ClassifierBackend {
+
+    private static final String TAG = "TaskLibraryBackend";
+
+    private final int numScores;
+
+    // Task Library path (model has metadata)
+    private final ImageClassifier imageClassifier;
+
+    // Support Library path (no metadata)
+    private final Interpreter interpreter;
+    private final ImageProcessor imageProcessor;
+    private final TensorImage inputImage;
+    private final TensorBuffer outputBuffer;
+    private final TensorProcessor outputProcessor;
+
+    TaskLibraryBackend(ByteBuffer model, int numThreads) {
+        numScores = ClassificationResult.LABELS.length;
+
+        ImageClassifier classifier = null;
+        try {
+            ImageClassifier.ImageClassifierOptions options = ImageClassifier.ImageClassifierOptions.builder()
+                    .setBaseOptions(BaseOptions.builder().setNumThreads(numThreads).build())
+                    .build();
+            classifier = ImageClassifier.createFromBufferAndOptions(model.duplicate(), options);
+        } catch (RuntimeException e) {
+            Log.d(TAG, "ImageClassifier unavailable (" + e.getMessage() + "); using ImageProcessor + Interpreter");
+        }
+        imageClassifier = classifier;
+
+        if (imageClassifier != null) {
+            interpreter = null;
+            imageProcessor = null;
+            inputImage = null;
+            outputBuffer = null;
+            outputProcessor = null;
+            return;
+        }
+
+        interpreter = new Interpreter(model, new Interpreter.Options().setNumThreads(numThreads));
+        Tensor in = interpreter.getInputTensor(0);
+        Tensor out = interpreter.getOutputTensor(0);
+        int[] shape = in.shape();   // [1, h, w, 3]
+
+        ImageProcessor.Builder builder = new ImageProcessor.Builder()
+                .add(new ResizeOp(shape[1], shape[2], ResizeOp.ResizeMethod.BILINEAR))
+                .add(new NormalizeOp(0f, 255f));
+        if (in.dataType() == DataType.UINT8) {
+            Tensor.QuantizationParams q = in.quantizationParams();
+            builder.add(new QuantizeOp(q.getZeroPoint(), q.getScale()))
+                    .add(new CastOp(DataType.UINT8));
+        } else if (in.dataType() != DataType.FLOAT32) {
+            // CastOp only supports UINT8 / FLOAT32
+            interpreter.close();
+            throw new IllegalArgumentException("Unsupported input tensor type: " + in.dataType());
+        }
+        imageProcessor = builder.build();
+        inputImage = new TensorImage(DataType.UINT8);   // Bitmap pixels; the processor converts
+
+        outputBuffer = TensorBuffer.createFixedSize(out.shape(), out.dataType());
+        outputProcessor = out.dataType() == DataType.FLOAT32 ? null : new TensorProcessor.Builder()
+                .add(new DequantizeOp(out.quantizationParams().getZeroPoint(), out.quantizationParams().getScale()))
+                .build();
+    }
+
+    @Override
+    public String name() {
+        return imageClassifier != null ? "task-library" : "support-library";
+    }
+
+    @Override
+    public float[] scores(Bitmap bitmap) {
+        if (imageClassifier != null) {
+            float[] scores = new float[numScores];
+            List<Classifications> results = imageClassifier.classify(TensorImage.fromBitmap(bitmap));
+            if (!results.isEmpty()) {
+                for (Category c : results.get(0).getCategories()) {
+                    if (c.getIndex() >= 0 && c.getIndex() < numScores) scores[c.getIndex()] = c.getScore();
+                }
+            }
+            return scores;
+        }
+
+        inputImage.load(bitmap);
+        TensorImage processed = imageProcessor.process(inputImage);
+        interpreter.run(processed.getBuffer(), outputBuffer.getBuffer().rewind());
+        TensorBuffer result = outputProcessor != null ? outputProcessor.process(outputBuffer) : outputBuffer;
+        return result.getFloatArray();
+    }
+
+    @Override
+    public void warmUp() {
+        Bitmap blank = Bitmap.createBitmap(8, 8, Bitmap.Config.ARGB_8888);
+        scores(blank);
+        blank.recycle();
+    }
+
+    @Override
+    public void close() {
+        if (imageClassifier != null) imageClassifier.close();
+        if (interpreter != null) interpreter.close();
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.ecolens;
+
+import android.os.Bundle;
+import android.util.Log;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import androidx.activity.EdgeToEdge;
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.core.graphics.Insets;
+import androidx.core.view.ViewCompat;
+import androidx.core.view.WindowInsetsCompat;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Debug screen showing {@link InferenceTelemetry} stage histograms and executor counters.
+ * Reached by long-pressing the profile icon on the home screen in debuggable builds.
+ */
+public class TelemetryActivity extends AppCompatActivity {
+
+    private static final String TAG = "TelemetryActivity";
+
+    private TextView telemetryText;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        EdgeToEdge.enable(this);
+        setContentView(R.layout.activity_telemetry);
+
+        ViewCompat.setOnApplyWindowInsetsListener(findViewById(R.id.main), (v, insets) -> {
+            Insets systemBars = insets.getInsets(WindowInsetsCompat.Type.systemBars());
+            v.setPadding(systemBars.left, systemBars.top, systemBars.right, systemBars.bottom);
+            return insets;
+        });
+
+        telemetryText = findViewById(R.id.telemetry_text);
+
+        findViewById(R.id.btn_close).setOnClickListener(v -> finish());
+        findViewById(R.id.btn_refresh).setOnClickListener(v -> refresh());
+        findViewById(R.id.btn_reset).setOnClickListener(v -> {
+            InferenceTelemetry.get().reset();
+            refresh();
+        });
+        findViewById(R.id.btn_dump).setOnClickListener(v -> dumpToFile());
+
+        refresh();
+    }
+
+    private void refresh() {
+        telemetryText.setText(report());
+    }
+
+    private String report() {
+        return InferenceTelemetry.get().summary()
+                + "\nexecutor " + MyApplication.getClassifier(this).getMetrics();
+    }
+
+    // Writes to the app-specific external dir so it can be pulled with adb without root
+    private void dumpToFile() {
+        File dir = getExternalFilesDir(null);
+        if (dir == null) dir = getFilesDir();
+        File file = new File(dir, "telemetry-" + System.currentTimeMillis() + ".txt");
+        try (Writer out = new FileWriter(file)) {
+            out.write(report());
+            Toast.makeText(this, "Saved to " + file.getAbsolutePath(), Toast.LENGTH_LONG).show();
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to dump telemetry", e);
+            Toast.makeText(this, "Failed to save telemetry", Toast.LENGTH_SHORT).show();
+        }
+    }
+}
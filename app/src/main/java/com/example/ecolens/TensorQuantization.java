@@ -0,0 +1,42 @@
+package com.example.ecolens;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Affine (scale / zero-point) quantization helpers for UINT8 and INT8 model tensors:
+ * {@code real = (q - zeroPoint) * scale}.
+ *
+ * Pure Java so it can be unit-tested and benchmarked on the JVM.
+ */
+public final class TensorQuantization {
+
+    private TensorQuantization() {}
+
+    /**
+     * Builds a 256-entry lookup table mapping a channel intensity (0..255, treated as the normalized
+     * value intensity/255 the float model was trained on) to its quantized byte.
+     */
+    public static byte[] inputTable(float scale, int zeroPoint, boolean signed) {
+        if (scale <= 0f) throw new IllegalArgumentException("scale must be positive: " + scale);
+        int min = signed ? -128 : 0;
+        int max = signed ? 127 : 255;
+        byte[] table = new byte[256];
+        for (int c = 0; c < 256; c++) {
+            int q = Math.round((c / 255.0f) / scale) + zeroPoint;
+            table[c] = (byte) Math.max(min, Math.min(max, q));
+        }
+        return table;
+    }
+
+    /**
+     * Reads {@code count} quantized values from {@code in} (starting at index 0) and writes their real
+     * values into {@code out}.
+     */
+    public static void dequantize(ByteBuffer in, int count, float scale, int zeroPoint, boolean signed, float[] out) {
+        for (int i = 0; i < count; i++) {
+            byte b = in.get(i);
+            int q = signed ? b : (b & 0xFF);
+            out[i] = (q - zeroPoint) * scale;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.ecolens;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Plans overlapping crops for tiled (high-detail) classification and merges their scores.
+ *
+ * The first tile is always the whole image, so the global context is never lost. The remaining
+ * tiles form an evenly spaced, overlapping grid of crops at the model's input resolution; when
+ * that grid would exceed the tile budget the crops are enlarged (each covers more of the image
+ * and is scaled down to the model input) until it fits. Pure Java.
+ */
+public final class TileGrid {
+
+    /** A crop in source image pixels. */
+    public static final class Tile {
+        public final int x;
+        public final int y;
+        public final int width;
+        public final int height;
+
+        public Tile(int x, int y, int width, int height) {
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        public String toString() {
+            return "Tile[" + x + "," + y + " " + width + "x" + height + "]";
+        }
+    }
+
+    // Crops grow by this factor per step until the grid fits the budget
+    private static final float GROW = 1.25f;
+
+    private TileGrid() {}
+
+    /**
+     * @param tileWidth  model input width; crops start at this size in source pixels
+     * @param tileHeight model input height
+     * @param overlap    fraction of a crop shared with its neighbour, in [0, 0.9]
+     * @param maxTiles   total budget including the whole-image tile; at most 1 disables tiling
+     */
+    public static List<Tile> plan(int width, int height, int tileWidth, int tileHeight,
+                                  float overlap, int maxTiles) {
+        if (width <= 0 || height <= 0 || tileWidth <= 0 || tileHeight <= 0) {
+            throw new IllegalArgumentException("sizes must be positive");
+        }
+        if (overlap < 0f || overlap > 0.9f) throw new IllegalArgumentException("overlap " + overlap);
+
+        List<Tile> tiles = new ArrayList<>();
+        tiles.add(new Tile(0, 0, width, height));
+
+        float tw = tileWidth;
+        float th = tileHeight;
+        while (maxTiles > 1 && (tw < width || th < height)) {
+            int w = Math.min(width, Math.round(tw));
+            int h = Math.min(height, Math.round(th));
+            int cols = steps(width, w, overlap);
+            int rows = steps(height, h, overlap);
+            if (1 + cols * rows <= maxTiles) {
+                for (int r = 0; r < rows; r++) {
+                    for (int c = 0; c < cols; c++) {
+                        tiles.add(new Tile(offset(c, cols, width - w), offset(r, rows, height - h), w, h));
+                    }
+                }
+                break;
+            }
+            tw *= GROW;
+            th *= GROW;
+        }
+        return tiles;
+    }
+
+    /** Number of crops of size {@code tile} needed to cover {@code extent} with the given overlap. */
+    static int steps(int extent, int tile, float overlap) {
+        if (tile >= extent) return 1;
+        float stride = Math.max(1f, tile * (1f - overlap));
+        return (int) Math.ceil((extent - tile) / stride) + 1;
+    }
+
+    // Evenly spreads n crop origins over [0, span]; the first and last crops touch the edges
+    private static int offset(int i, int n, int span) {
+        return n == 1 ? span / 2 : Math.round((float) i * span / (n - 1));
+    }
+
+    /**
+     * Per-label maximum over all tiles: a pollution source visible in any one crop is kept,
+     * even if it is too small to register in the whole-image view.
+     */
+    public static float[] maxPool(float[][] tileScores) {
+        if (tileScores.length == 0) throw new IllegalArgumentException("no tiles");
+        float[] merged = tileScores[0].clone();
+        for (int t = 1; t < tileScores.length; t++) {
+            float[] s = tileScores[t];
+            if (s.length != merged.length) {
+                throw new IllegalArgumentException("score arrays differ in length: " + s.length + " vs " + merged.length);
+            }
+            for (int i = 0; i < merged.length; i++) {
+                if (s[i] > merged[i]) merged[i] = s[i];
+            }
+        }
+        return merged;
+    }
+}
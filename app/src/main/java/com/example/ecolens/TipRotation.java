@@ -0,0 +1,25 @@
+package com.example.ecolens;
+
+import java.util.List;
+
+/**
+ * Daily-tip rotation maths shared by all clients: today's batch is {@code batchSize} tips starting at
+ * {@code startIndex}, wrapping around the end of the (ID-sorted) tip list. Pure Java.
+ */
+public final class TipRotation {
+
+    private TipRotation() {}
+
+    /** Clears {@code out} and fills it with today's slice of {@code allTips}. */
+    public static <T> void sliceInto(List<T> allTips, long startIndex, long batchSize, List<T> out) {
+        out.clear();
+        final int total = allTips.size();
+        if (total == 0) return;
+
+        int start = (int) (startIndex % total);
+        int count = (int) Math.min(batchSize, total);
+        for (int i = 0; i < count; i++) {
+            out.add(allTips.get((start + i) % total));
+        }
+    }
+}
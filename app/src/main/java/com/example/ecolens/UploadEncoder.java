@@ -0,0 +1,177 @@
+package com.example.ecolens;
+
+import android.graphics.Bitmap;
+import android.util.Log;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Re-encodes photos for upload: downscaled to {@code maxDim}, compressed as WebP or JPEG and
+ * squeezed under a byte budget (see {@link EncodeBudget}).
+ *
+ * It does not decode anything itself: {@link ImagePipeline} hands it the bitmap it decoded at the
+ * upload size, on its own thread, right after the decode. That decode applies the EXIF
+ * orientation to the pixels and {@code Bitmap.compress} writes no metadata, so the uploaded file
+ * carries no EXIF at all (no GPS position, device or timestamps).
+ * Each photo also gets smaller {@link Variant}s, so viewers do not download the full image to
+ * show a card or a preview.
+ */
+final class UploadEncoder {
+
+    private static final String TAG = "UploadEncoder";
+
+    enum Format {
+        WEBP(Bitmap.CompressFormat.WEBP_LOSSY, "image/webp", "webp"),
+        JPEG(Bitmap.CompressFormat.JPEG, "image/jpeg", "jpg");
+
+        final Bitmap.CompressFormat compressFormat;
+        final String mimeType;
+        final String extension;
+
+        Format(Bitmap.CompressFormat compressFormat, String mimeType, String extension) {
+            this.compressFormat = compressFormat;
+            this.mimeType = mimeType;
+            this.extension = extension;
+        }
+
+        /** The format of an encoded file or object, from its extension (JPEG if unknown). */
+        static Format of(String name) {
+            return name.endsWith("." + WEBP.extension) ? WEBP : JPEG;
+        }
+    }
+
+    /** Smaller copies stored next to each photo, named after it ("abc.webp" -> "abc_s.webp"). */
+    enum Variant {
+        SMALL("_s", 320, 70),     // thumbnails and cards
+        MEDIUM("_m", 1024, 75);   // the report screen
+
+        final String suffix;
+        final int maxDim;
+        final int quality;
+
+        Variant(String suffix, int maxDim, int quality) {
+            this.suffix = suffix;
+            this.maxDim = maxDim;
+            this.quality = quality;
+        }
+
+        /** This variant's name for a photo's name; works on Storage paths and file paths alike. */
+        String name(String photoName) {
+            int dot = photoName.lastIndexOf('.');
+            if (dot <= photoName.lastIndexOf('/')) return photoName + suffix;
+            return photoName.substring(0, dot) + suffix + photoName.substring(dot);
+        }
+    }
+
+    // Defaults: plenty for reviewing a report on a phone or laptop, ~5-10x smaller than a camera JPEG
+    static final int DEFAULT_MAX_DIM = 2048;
+    static final int DEFAULT_QUALITY = 80;
+    static final int DEFAULT_BYTE_BUDGET = 600 * 1024;
+    private static final int MIN_QUALITY = 50;
+    private static final float MIN_SCALE = 0.35f;
+
+    /** One encoded photo, ready for {@code putBytes} (or {@link #writeTo} a temp file). */
+    static final class Encoded {
+        final byte[] bytes;
+        final Format format;
+        final int width;
+        final int height;
+        final int quality;
+        final String sha256;   // of bytes; names the Storage object
+        final Map<Variant, byte[]> variants;
+
+        Encoded(byte[] bytes, Format format, int width, int height, int quality, Map<Variant, byte[]> variants) {
+            this.bytes = bytes;
+            this.variants = variants;
+            this.sha256 = ContentHash.sha256(bytes);
+            this.format = format;
+            this.width = width;
+            this.height = height;
+            this.quality = quality;
+        }
+
+        /**
+         * Content-addressed object name: identical photos share one object, and different ones
+         * cannot collide the way timestamp names did.
+         */
+        String objectName() {
+            return sha256 + "." + format.extension;
+        }
+
+        /** Writes the photo to {@code file} and each variant next to it, under {@link Variant#name}. */
+        void writeTo(File file) throws IOException {
+            write(file, bytes);
+            for (Map.Entry<Variant, byte[]> v : variants.entrySet()) {
+                write(new File(v.getKey().name(file.getPath())), v.getValue());
+            }
+        }
+
+        private static void write(File file, byte[] data) throws IOException {
+            try (OutputStream out = new FileOutputStream(file)) {
+                out.write(data);
+            }
+        }
+    }
+
+    private final int maxDim;
+    private final Format format;
+    private final int quality;
+    private final int byteBudget;
+
+    UploadEncoder() {
+        this(DEFAULT_MAX_DIM, Format.WEBP, DEFAULT_QUALITY, DEFAULT_BYTE_BUDGET);
+    }
+
+    UploadEncoder(int maxDim, Format format, int quality, int byteBudget) {
+        this.maxDim = maxDim;
+        this.format = format;
+        this.quality = Math.max(MIN_QUALITY, Math.min(100, quality));
+        this.byteBudget = byteBudget;
+    }
+
+    /** Encodes a decoded photo (or a camera thumbnail). Blocking; call off the main thread. */
+    Encoded encode(Bitmap bitmap) throws Exception {
+        int[] fitted = ImagePipeline.fitWithin(bitmap.getWidth(), bitmap.getHeight(), maxDim);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(byteBudget);
+        int[] lastSize = new int[2];
+        long start = System.nanoTime();
+
+        EncodeBudget.Choice choice = EncodeBudget.search((scale, q) -> {
+            int w = Math.max(1, Math.round(fitted[0] * scale));
+            int h = Math.max(1, Math.round(fitted[1] * scale));
+            Bitmap scaled = (w == bitmap.getWidth() && h == bitmap.getHeight())
+                    ? bitmap : Bitmap.createScaledBitmap(bitmap, w, h, true);
+            out.reset();
+            if (!scaled.compress(format.compressFormat, q, out)) throw new IOException("compress failed");
+            if (scaled != bitmap) scaled.recycle();
+            lastSize[0] = w;
+            lastSize[1] = h;
+            return out.size();
+        }, byteBudget, quality, MIN_QUALITY, MIN_SCALE);
+
+        if (!choice.withinBudget) Log.w(TAG, "Could not reach the byte budget: " + choice);
+        Log.d(TAG, bitmap.getWidth() + "x" + bitmap.getHeight() + " -> " + lastSize[0] + "x" + lastSize[1]
+                + " " + format + " q" + choice.quality + ", " + choice.bytes / 1024 + " KB in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms");
+        byte[] full = out.toByteArray();
+
+        // Fixed quality is enough for the variants: at these sizes they stay far below the budget
+        Map<Variant, byte[]> variants = new EnumMap<>(Variant.class);
+        for (Variant v : Variant.values()) {
+            int[] size = ImagePipeline.fitWithin(bitmap.getWidth(), bitmap.getHeight(), Math.min(v.maxDim, maxDim));
+            Bitmap scaled = (size[0] == bitmap.getWidth() && size[1] == bitmap.getHeight())
+                    ? bitmap : Bitmap.createScaledBitmap(bitmap, size[0], size[1], true);
+            out.reset();
+            if (!scaled.compress(format.compressFormat, v.quality, out)) throw new IOException("compress failed");
+            if (scaled != bitmap) scaled.recycle();
+            variants.put(v, out.toByteArray());
+        }
+        return new Encoded(full, format, lastSize[0], lastSize[1], choice.quality, variants);
+    }
+}
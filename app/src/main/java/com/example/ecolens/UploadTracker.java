@@ -0,0 +1,142 @@
+package com.example.ecolens;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Thread-safe state of the photo uploads for one report, one slot per photo (in pick order).
+ *
+ * A slot goes ENCODING -> STAGED (queued with {@link UploadWorker}; its Storage path and local
+ * file are known) -> UPLOADED (the object exists at its path). A failed encode makes the slot FAILED; a
+ * failed upload leaves it STAGED, since the report outbox can still upload the local file.
+ * Progress is aggregated over all photos for a single progress bar. Pure Java.
+ */
+public final class UploadTracker {
+
+    public enum State { ENCODING, STAGED, UPLOADED, FAILED }
+
+    /** Immutable snapshot of one photo's upload. */
+    public static final class Photo {
+        public final State state;
+        public final String path;        // Storage object path, null while encoding
+        public final String localFile;   // staged encoded file, null while encoding
+        public final String work;        // unique UploadWorker name, null while encoding
+
+        Photo(State state, String path, String localFile, String work) {
+            this.state = state;
+            this.path = path;
+            this.localFile = localFile;
+            this.work = work;
+        }
+    }
+
+    private final State[] states;
+    private final String[] paths;
+    private final String[] localFiles;
+    private final String[] works;
+    private final long[] bytes;
+    private final long[] totals;
+    private final boolean[] uploading;   // staged and not yet finished in WorkManager
+
+    public UploadTracker(int count) {
+        states = new State[count];
+        paths = new String[count];
+        localFiles = new String[count];
+        works = new String[count];
+        bytes = new long[count];
+        totals = new long[count];
+        uploading = new boolean[count];
+        for (int i = 0; i < count; i++) states[i] = State.ENCODING;
+    }
+
+    public synchronized int size() {
+        return states.length;
+    }
+
+    public synchronized void staged(int slot, String path, String localFile, String work) {
+        states[slot] = State.STAGED;
+        paths[slot] = path;
+        localFiles[slot] = localFile;
+        works[slot] = work;
+        uploading[slot] = true;
+    }
+
+    public synchronized void encodeFailed(int slot) {
+        states[slot] = State.FAILED;
+    }
+
+    public synchronized void progress(int slot, long transferred, long total) {
+        bytes[slot] = transferred;
+        totals[slot] = total;
+    }
+
+    public synchronized void uploaded(int slot) {
+        states[slot] = State.UPLOADED;
+        uploading[slot] = false;
+        bytes[slot] = totals[slot];
+    }
+
+    /** The upload worker gave up; the photo stays STAGED for the outbox. */
+    public synchronized void uploadFailed(int slot) {
+        uploading[slot] = false;
+    }
+
+    /** True while any photo is still being encoded (the report cannot reference it yet). */
+    public synchronized boolean isEncoding() {
+        for (State s : states) {
+            if (s == State.ENCODING) return true;
+        }
+        return false;
+    }
+
+    /** True while any upload is encoding or running. */
+    public synchronized boolean isBusy() {
+        for (int i = 0; i < states.length; i++) {
+            if (states[i] == State.ENCODING || uploading[i]) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Overall progress in [0, 1]: the mean of the per-photo fractions, ignoring failed photos.
+     * Photos are re-encoded under the same byte budget, so they weigh about the same.
+     */
+    public synchronized float progress() {
+        float sum = 0f;
+        int counted = 0;
+        for (int i = 0; i < states.length; i++) {
+            if (states[i] == State.FAILED) continue;
+            counted++;
+            if (states[i] == State.UPLOADED) {
+                sum += 1f;
+            } else if (totals[i] > 0) {
+                sum += Math.min(1f, (float) bytes[i] / totals[i]);
+            }
+        }
+        return counted == 0 ? 1f : sum / counted;
+    }
+
+    /** Photos that can go into the report (everything not FAILED), in slot order. */
+    public synchronized List<Photo> photos() {
+        List<Photo> photos = new ArrayList<>();
+        for (int i = 0; i < states.length; i++) {
+            if (states[i] != State.FAILED) photos.add(photo(i));
+        }
+        return photos;
+    }
+
+    public synchronized Photo photo(int slot) {
+        return new Photo(states[slot], paths[slot], localFiles[slot], works[slot]);
+    }
+
+    /** True if at least one photo was kept and every kept photo is uploaded. */
+    public synchronized boolean allUploaded() {
+        boolean any = false;
+        for (State s : states) {
+            if (s == State.FAILED) continue;
+            if (s != State.UPLOADED) return false;
+            any = true;
+        }
+        return any;
+    }
+}
@@ -0,0 +1,270 @@
+package com.example.ecolens;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.net.Uri;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.Data;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.storage.FirebaseStorage;
+import com.google.firebase.storage.StorageException;
+import com.google.firebase.storage.StorageMetadata;
+import com.google.firebase.storage.StorageReference;
+import com.google.firebase.storage.UploadTask;
+
+import java.io.File;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Uploads one encoded photo to Firebase Storage from WorkManager, so it survives the form being
+ * closed, the process being killed and the network dropping.
+ *
+ * The resumable-upload session URI is persisted as soon as Storage hands it out; a retried or
+ * restarted worker resumes that session from the last committed byte instead of starting over.
+ * Progress ({@link #PROGRESS_BYTES} / {@link #PROGRESS_TOTAL}) is published through WorkInfo, so a
+ * recreated form can re-attach with {@link WorkManager#getWorkInfosForUniqueWorkLiveData}. Success
+ * means the object exists at its path; reports store that path, not a download URL.
+ *
+ * Paths are named by a hash of the photo's bytes ({@link UploadEncoder.Encoded#objectName}), so
+ * an object that already exists is the same photo: paths in the local {@link UploadedObjects}
+ * index are not sent again, and others are checked with a metadata request before uploading.
+ * The photo's {@link UploadEncoder.Variant}s, staged next to it, are uploaded first (they are
+ * small and let viewers show something soonest). Objects never change, so they are served with a
+ * year-long, immutable Cache-Control.
+ */
+public class UploadWorker extends Worker {
+
+    private static final String TAG = "UploadWorker";
+
+    static final String INPUT_FILE = "file";
+    static final String INPUT_PATH = "path";
+    static final String INPUT_CONTENT_TYPE = "contentType";
+    static final String PROGRESS_BYTES = "bytes";
+    static final String PROGRESS_TOTAL = "total";
+
+    // Session URIs by storage path; Storage keeps them valid for about a week
+    private static final String SESSIONS_PREFS = "upload_sessions";
+    private static final int MAX_ATTEMPTS = 10;
+    private static final long BACKOFF_SECONDS = 30;
+    private static final long METADATA_TIMEOUT_S = 30;
+    private static final long VARIANT_TIMEOUT_S = 120;
+    private static final int INDEX_ENTRIES = 1000;
+    static final String CACHE_CONTROL = "public, max-age=31536000, immutable";
+    // Parallel transfers across all upload workers; more only split a slow uplink further
+    static final int MAX_PARALLEL_UPLOADS = 3;
+    private static final Semaphore TRANSFER_SLOTS = new Semaphore(MAX_PARALLEL_UPLOADS, true);
+    // Keep Firebase's own retry loop short so WorkManager (network constraint + backoff) takes over
+    private static final long STORAGE_RETRY_MS = TimeUnit.MINUTES.toMillis(2);
+
+    public UploadWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    /**
+     * Queues an upload of {@code file} (which the worker deletes once uploaded) to {@code path}.
+     * The file should live in {@link #stagingDir}.
+     *
+     * @return the unique work name to observe
+     */
+    static String enqueue(Context context, File file, String path, String contentType) {
+        String name = workName(path);
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(UploadWorker.class)
+                .setInputData(new Data.Builder()
+                        .putString(INPUT_FILE, file.getAbsolutePath())
+                        .putString(INPUT_PATH, path)
+                        .putString(INPUT_CONTENT_TYPE, contentType)
+                        .build())
+                .setConstraints(new Constraints.Builder()
+                        .setRequiredNetworkType(NetworkType.CONNECTED)
+                        .build())
+                .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, BACKOFF_SECONDS, TimeUnit.SECONDS)
+                .addTag(TAG)
+                .build();
+        WorkManager.getInstance(context).enqueueUniqueWork(name, ExistingWorkPolicy.KEEP, request);
+        return name;
+    }
+
+    static String workName(String path) {
+        return "upload:" + path;
+    }
+
+    private static UploadedObjects uploaded;
+
+    /** Storage paths this device knows to exist; shared with {@link OutboxFlushWorker}. */
+    static synchronized UploadedObjects uploadedObjects(Context context) {
+        if (uploaded == null) {
+            uploaded = new UploadedObjects(new File(context.getFilesDir(), "uploaded_objects.txt"), INDEX_ENTRIES);
+        }
+        return uploaded;
+    }
+
+    /** Where encoded photos wait for upload; app-private and kept across restarts (unlike the cache). */
+    static File stagingDir(Context context) {
+        return new File(context.getFilesDir(), "pending_uploads");
+    }
+
+    /** Content-addressed objects never change, so clients and CDNs may cache them for good. */
+    static StorageMetadata metadata(String contentType) {
+        return new StorageMetadata.Builder()
+                .setContentType(contentType)
+                .setCacheControl(CACHE_CONTROL)
+                .build();
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        File file = new File(getInputData().getString(INPUT_FILE));
+        String path = getInputData().getString(INPUT_PATH);
+        if (!file.exists() || path == null) {
+            Log.e(TAG, "Nothing to upload: " + file);
+            return Result.failure();
+        }
+
+        // WorkManager may start more uploads at once than MAX_PARALLEL_UPLOADS; the rest wait here
+        try {
+            while (!TRANSFER_SLOTS.tryAcquire(1, TimeUnit.SECONDS)) {
+                if (isStopped()) return Result.retry();
+            }
+        } catch (InterruptedException e) {
+            return Result.retry();
+        }
+        try {
+            try {
+                uploadVariants(file, path);
+            } catch (Exception e) {
+                if (isStopped()) return Result.retry();
+                Log.w(TAG, "Variant upload attempt " + (getRunAttemptCount() + 1) + " failed for " + path, e);
+                // Gives up like the photo itself would; the outbox uploads what is left
+                return getRunAttemptCount() + 1 >= MAX_ATTEMPTS ? Result.failure() : Result.retry();
+            }
+
+            // Same name, same bytes: a photo that is already in Storage is not sent again
+            UploadedObjects index = uploadedObjects(getApplicationContext());
+            if (index.contains(path) || alreadyUploaded(path)) {
+                Log.d(TAG, "Already uploaded: " + path);
+                index.add(path);
+                if (!file.delete()) Log.w(TAG, "Could not delete " + file);
+                return Result.success();
+            }
+            return upload(file, path);
+        } finally {
+            TRANSFER_SLOTS.release();
+        }
+    }
+
+    // Small enough for a plain (non-resumable) upload each; a staged variant file is deleted once sent
+    private void uploadVariants(File file, String path) throws Exception {
+        UploadedObjects index = uploadedObjects(getApplicationContext());
+        for (UploadEncoder.Variant v : UploadEncoder.Variant.values()) {
+            File variantFile = new File(v.name(file.getPath()));
+            if (!variantFile.exists()) continue;
+            String variantPath = v.name(path);
+            if (!index.contains(variantPath) && !alreadyUploaded(variantPath)) {
+                Tasks.await(FirebaseStorage.getInstance().getReference(variantPath)
+                                .putFile(Uri.fromFile(variantFile), metadata(getInputData().getString(INPUT_CONTENT_TYPE))),
+                        VARIANT_TIMEOUT_S, TimeUnit.SECONDS);
+            }
+            index.add(variantPath);
+            if (!variantFile.delete()) Log.w(TAG, "Could not delete " + variantFile);
+        }
+    }
+
+    private Result upload(File file, String path) {
+        FirebaseStorage storage = FirebaseStorage.getInstance();
+        storage.setMaxUploadRetryTimeMillis(STORAGE_RETRY_MS);
+        StorageReference ref = storage.getReference(path);
+        StorageMetadata metadata = metadata(getInputData().getString(INPUT_CONTENT_TYPE));
+
+        SharedPreferences sessions = getApplicationContext().getSharedPreferences(SESSIONS_PREFS, Context.MODE_PRIVATE);
+        String session = sessions.getString(path, null);
+        Uri source = Uri.fromFile(file);
+        UploadTask upload = session != null
+                ? ref.putFile(source, metadata, Uri.parse(session))
+                : ref.putFile(source, metadata);
+        if (session != null) Log.d(TAG, "Resuming " + path);
+
+        long total = file.length();
+        // Runs on the Storage thread; both calls below are non-blocking
+        upload.addOnProgressListener(Runnable::run, snapshot -> {
+            Uri sessionUri = snapshot.getUploadSessionUri();
+            if (sessionUri != null && !sessionUri.toString().equals(sessions.getString(path, null))) {
+                sessions.edit().putString(path, sessionUri.toString()).apply();
+            }
+            setProgressAsync(new Data.Builder()
+                    .putLong(PROGRESS_BYTES, snapshot.getBytesTransferred())
+                    .putLong(PROGRESS_TOTAL, total)
+                    .build());
+        });
+
+        try {
+            while (!upload.isComplete()) {
+                if (isStopped()) {
+                    // Pause rather than cancel: cancelling would invalidate the session we resume from
+                    upload.pause();
+                    return Result.retry();
+                }
+                try {
+                    Tasks.await(upload, 1, TimeUnit.SECONDS);
+                } catch (TimeoutException ignored) {
+                    // poll isStopped() again
+                }
+            }
+            Tasks.await(upload);
+            uploadedObjects(getApplicationContext()).add(path);
+            sessions.edit().remove(path).apply();
+            if (!file.delete()) Log.w(TAG, "Could not delete " + file);
+            return Result.success();
+        } catch (ExecutionException | InterruptedException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (session != null && isSessionGone(cause)) {
+                // Expired or cancelled session: the next attempt starts a fresh one
+                sessions.edit().remove(path).apply();
+            }
+            if (isStopped()) return Result.retry();
+            Log.w(TAG, "Upload attempt " + (getRunAttemptCount() + 1) + " failed for " + path, cause);
+            if (getRunAttemptCount() + 1 >= MAX_ATTEMPTS) {
+                // The file stays: a queued report may still upload it (see OutboxFlushWorker)
+                sessions.edit().remove(path).apply();
+                return Result.failure();
+            }
+            return Result.retry();
+        }
+    }
+
+    // One metadata round trip instead of a whole upload; any error just means "upload it"
+    private boolean alreadyUploaded(String path) {
+        // A half-finished resumable upload means the object is not there yet
+        if (getApplicationContext().getSharedPreferences(SESSIONS_PREFS, Context.MODE_PRIVATE)
+                .contains(path)) {
+            return false;
+        }
+        try {
+            Tasks.await(FirebaseStorage.getInstance().getReference(path).getMetadata(),
+                    METADATA_TIMEOUT_S, TimeUnit.SECONDS);
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private static boolean isSessionGone(Throwable e) {
+        if (!(e instanceof StorageException)) return false;
+        int http = ((StorageException) e).getHttpResultCode();
+        return http == 400 || http == 404 || http == 410;
+    }
+}
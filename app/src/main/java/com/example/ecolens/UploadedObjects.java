@@ -0,0 +1,51 @@
+package com.example.ecolens;
+
+import java.io.File;
+import java.util.concurrent.Executor;
+
+/**
+ * Disk-backed LRU set of Storage object paths this device has recently uploaded (or found already
+ * uploaded).
+ *
+ * Objects are named by the hash of their content and never change, so a path in this set exists
+ * with the right bytes and its upload, including the metadata check, can be skipped. Stored in a
+ * {@link PersistedLru} with a path per line; a path lost before it was written only costs that
+ * check again. Pure Java; thread-safe.
+ */
+public class UploadedObjects {
+
+    private static final PersistedLru.Codec<Boolean> CODEC = new PersistedLru.Codec<Boolean>() {
+        @Override
+        public String encode(Boolean value) {
+            return "";
+        }
+
+        @Override
+        public Boolean decode(String text) {
+            return Boolean.TRUE;
+        }
+    };
+
+    private final PersistedLru<Boolean> paths;
+
+    public UploadedObjects(File file, int maxEntries) {
+        this.paths = new PersistedLru<>(file, maxEntries, CODEC);
+    }
+
+    /** {@code saveExecutor} runs the (debounced) rewrites; see {@link PersistedLru}. */
+    UploadedObjects(File file, int maxEntries, Executor saveExecutor) {
+        this.paths = new PersistedLru<>(file, maxEntries, CODEC, saveExecutor);
+    }
+
+    public boolean contains(String path) {
+        return paths.get(path) != null;
+    }
+
+    public void add(String path) {
+        paths.put(path, Boolean.TRUE);
+    }
+
+    public int size() {
+        return paths.size();
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.ecolens;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+/**
+ * Converts YUV_420_888 camera frames straight into the model's NHWC RGB input, with no
+ * intermediate Bitmap: the frame is rotated upright, center-cropped to the model's aspect ratio
+ * and nearest-neighbour sampled down to the input size in a single pass.
+ *
+ * The sampling tables are rebuilt only when the frame size or rotation changes, so steady-state
+ * conversion allocates nothing. Pure Java so it can be tested with synthetic frames on the JVM.
+ * Not thread-safe.
+ */
+public final class YuvToTensorConverter {
+
+    private static final float INV_255 = 1.0f / 255.0f;
+
+    /**
+     * One camera frame as three planes (the layout of {@code ImageProxy.getPlanes()}). Plane
+     * indices are absolute, i.e. relative to index 0 of each buffer, not its position.
+     */
+    public static final class Frame {
+        final int width;
+        final int height;
+        final int rotationDegrees;
+        final ByteBuffer y;
+        final int yRowStride;
+        final int yPixelStride;
+        final ByteBuffer u;
+        final ByteBuffer v;
+        final int uvRowStride;
+        final int uvPixelStride;
+
+        /**
+         * @param rotationDegrees clockwise rotation that makes the frame upright: 0, 90, 180 or 270
+         */
+        public Frame(int width, int height, int rotationDegrees,
+                     ByteBuffer y, int yRowStride, int yPixelStride,
+                     ByteBuffer u, ByteBuffer v, int uvRowStride, int uvPixelStride) {
+            if (width <= 0 || height <= 0) throw new IllegalArgumentException("frame size " + width + "x" + height);
+            if (rotationDegrees % 90 != 0) throw new IllegalArgumentException("rotation " + rotationDegrees);
+            this.width = width;
+            this.height = height;
+            this.rotationDegrees = ((rotationDegrees % 360) + 360) % 360;
+            this.y = y;
+            this.yRowStride = yRowStride;
+            this.yPixelStride = yPixelStride;
+            this.u = u;
+            this.v = v;
+            this.uvRowStride = uvRowStride;
+            this.uvPixelStride = uvPixelStride;
+        }
+    }
+
+    private final int dstWidth;
+    private final int dstHeight;
+
+    // Source pixel (upright, cropped frame coordinates) sampled for each output column / row
+    private final int[] colMap;
+    private final int[] rowMap;
+    private int mappedWidth = -1;
+    private int mappedHeight = -1;
+    private int mappedRotation = -1;
+
+    public YuvToTensorConverter(int dstWidth, int dstHeight) {
+        if (dstWidth <= 0 || dstHeight <= 0) throw new IllegalArgumentException("output size " + dstWidth + "x" + dstHeight);
+        this.dstWidth = dstWidth;
+        this.dstHeight = dstHeight;
+        colMap = new int[dstWidth];
+        rowMap = new int[dstHeight];
+    }
+
+    /** Writes the frame as R, G, B floats in [0,1] from the buffer's current position (advancing it). */
+    public void convert(Frame frame, FloatBuffer out) {
+        if (out.remaining() < dstWidth * dstHeight * 3) {
+            throw new IllegalArgumentException("output buffer too small: need " + (dstWidth * dstHeight * 3)
+                    + " floats, have " + out.remaining());
+        }
+        int pos = out.position();
+        prepare(frame);
+        for (int dy = 0; dy < dstHeight; dy++) {
+            for (int dx = 0; dx < dstWidth; dx++) {
+                int rgb = sample(frame, colMap[dx], rowMap[dy]);
+                out.put(pos++, ((rgb >> 16) & 0xFF) * INV_255);
+                out.put(pos++, ((rgb >> 8) & 0xFF) * INV_255);
+                out.put(pos++, (rgb & 0xFF) * INV_255);
+            }
+        }
+        out.position(pos);
+    }
+
+    /**
+     * Quantized variant of {@link #convert(Frame, FloatBuffer)}: one byte per channel through a
+     * {@link TensorQuantization#inputTable} lookup.
+     */
+    public void convert(Frame frame, ByteBuffer out, byte[] table) {
+        if (out.remaining() < dstWidth * dstHeight * 3) {
+            throw new IllegalArgumentException("output buffer too small: need " + (dstWidth * dstHeight * 3)
+                    + " bytes, have " + out.remaining());
+        }
+        int pos = out.position();
+        prepare(frame);
+        for (int dy = 0; dy < dstHeight; dy++) {
+            for (int dx = 0; dx < dstWidth; dx++) {
+                int rgb = sample(frame, colMap[dx], rowMap[dy]);
+                out.put(pos++, table[(rgb >> 16) & 0xFF]);
+                out.put(pos++, table[(rgb >> 8) & 0xFF]);
+                out.put(pos++, table[rgb & 0xFF]);
+            }
+        }
+        out.position(pos);
+    }
+
+    // Rebuilds the crop/scale tables when the frame geometry changes
+    private void prepare(Frame frame) {
+        if (frame.width == mappedWidth && frame.height == mappedHeight && frame.rotationDegrees == mappedRotation) {
+            return;
+        }
+        boolean swap = frame.rotationDegrees == 90 || frame.rotationDegrees == 270;
+        int uprightW = swap ? frame.height : frame.width;
+        int uprightH = swap ? frame.width : frame.height;
+
+        // Largest centered window with the output's aspect ratio
+        int cropW = uprightW;
+        int cropH = uprightH;
+        if ((long) uprightW * dstHeight > (long) uprightH * dstWidth) {
+            cropW = (int) ((long) uprightH * dstWidth / dstHeight);
+        } else {
+            cropH = (int) ((long) uprightW * dstHeight / dstWidth);
+        }
+        int cropX = (uprightW - cropW) / 2;
+        int cropY = (uprightH - cropH) / 2;
+
+        // Sample at output pixel centers
+        for (int dx = 0; dx < dstWidth; dx++) {
+            colMap[dx] = cropX + (int) (((2L * dx + 1) * cropW) / (2L * dstWidth));
+        }
+        for (int dy = 0; dy < dstHeight; dy++) {
+            rowMap[dy] = cropY + (int) (((2L * dy + 1) * cropH) / (2L * dstHeight));
+        }
+        mappedWidth = frame.width;
+        mappedHeight = frame.height;
+        mappedRotation = frame.rotationDegrees;
+    }
+
+    /** Packed 0xRRGGBB of the upright pixel (x, y). */
+    private static int sample(Frame f, int x, int y) {
+        int sx;
+        int sy;
+        switch (f.rotationDegrees) {
+            case 90:
+                sx = y;
+                sy = f.height - 1 - x;
+                break;
+            case 180:
+                sx = f.width - 1 - x;
+                sy = f.height - 1 - y;
+                break;
+            case 270:
+                sx = f.width - 1 - y;
+                sy = x;
+                break;
+            default:
+                sx = x;
+                sy = y;
+        }
+        int luma = f.y.get(sy * f.yRowStride + sx * f.yPixelStride) & 0xFF;
+        int uv = (sy >> 1) * f.uvRowStride + (sx >> 1) * f.uvPixelStride;
+        return yuvToRgb(luma, f.u.get(uv) & 0xFF, f.v.get(uv) & 0xFF);
+    }
+
+    /** Full-range (JFIF) BT.601 YCbCr to packed 0xRRGGBB, 10-bit fixed point. */
+    static int yuvToRgb(int y, int u, int v) {
+        int cb = u - 128;
+        int cr = v - 128;
+        int yy = y << 10;
+        int r = clamp((yy + 1436 * cr) >> 10);
+        int g = clamp((yy - 352 * cb - 731 * cr) >> 10);
+        int b = clamp((yy + 1815 * cb) >> 10);
+        return (r << 16) | (g << 8) | b;
+    }
+
+    private static int clamp(int c) {
+        return c < 0 ? 0 : (c > 255 ? 255 : c);
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.ecolens;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+public class ClassificationCacheTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private static ClassificationResult result(String label, float confidence) {
+        return new ClassificationResult(label, confidence, 1, new float[]{0.1f, confidence});
+    }
+
+    @Test
+    public void survivesReload() throws Exception {
+        File file = new File(tmp.getRoot(), "cache/classifications.tsv");
+        String key = ClassificationCache.key("abc", "model@1");
+
+        // Saves run inline here instead of on the debounced background thread
+        new ClassificationCache(file, 4, Runnable::run).put(key, result("Soil", 0.9f));
+        ClassificationResult loaded = new ClassificationCache(file, 4).get(key);
+
+        assertNotNull(loaded);
+        assertEquals("Soil", loaded.label);
+        assertEquals(0.9f, loaded.confidence, 0f);
+        assertEquals(1, loaded.index);
+        assertArrayEquals(new float[]{0.1f, 0.9f}, loaded.scores, 0f);
+    }
+
+    @Test
+    public void skipsCorruptLines() throws Exception {
+        File file = tmp.newFile("c.tsv");
+        Files.write(file.toPath(), ("a\tSoil\t1\t0.9\t0.1,0.9\n"
+                + "b\tAir\tx\t0.9\t0.1,0.9\n"
+                + "c\tWater\t1\n").getBytes(StandardCharsets.UTF_8));
+
+        ClassificationCache cache = new ClassificationCache(file, 4);
+        assertEquals(1, cache.size());
+        assertEquals("Soil", cache.get("a").label);
+    }
+
+    @Test
+    public void differentModelVersionMisses() throws Exception {
+        ClassificationCache cache = new ClassificationCache(tmp.newFile("c.tsv"), 4);
+        cache.put(ClassificationCache.key("abc", "v1"), result("Air", 0.9f));
+
+        assertNull(cache.get(ClassificationCache.key("abc", "v2")));
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.ecolens;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ClassificationResultTest {
+
+    private static final String[] LABELS = {"Air", "Soil", "Water"};
+
+    @Test
+    public void fromScoresFallsBackBelowThreshold() {
+        ClassificationResult r = ClassificationResult.fromScores(new float[]{0.5f, 0.3f, 0.2f}, LABELS, 0.8f);
+        assertEquals(ClassificationResult.FALLBACK_LABEL, r.label);
+        assertEquals(0, r.index);
+    }
+
+    @Test
+    public void fromBatchAveragesScores() {
+        float[][] scores = {
+                {0.9f, 0.1f, 0.0f},
+                {0.8f, 0.1f, 0.1f},
+                {0.7f, 0.2f, 0.1f},
+        };
+        ClassificationResult r = ClassificationResult.fromBatch(scores, LABELS, 0.75f);
+        assertEquals("Air", r.label);
+        assertEquals(0.8f, r.confidence, 1e-6f);
+        assertArrayEquals(new float[]{0.8f, 0.4f / 3, 0.2f / 3}, r.scores, 1e-6f);
+    }
+
+    @Test
+    public void oneConfidentOutlierDoesNotWin() {
+        float[][] scores = {
+                {0.0f, 0.0f, 1.0f},   // confident "Water" outlier
+                {0.6f, 0.4f, 0.0f},
+                {0.6f, 0.4f, 0.0f},
+        };
+        ClassificationResult r = ClassificationResult.fromBatch(scores, LABELS, 0.8f);
+        assertEquals(ClassificationResult.FALLBACK_LABEL, r.label);
+        assertEquals(0, r.index);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void fromBatchRejectsRaggedScores() {
+        ClassificationResult.fromBatch(new float[][]{{0.1f, 0.9f}, {1f}}, LABELS, 0.5f);
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.ecolens;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class EncodeBudgetTest {
+
+    /** Size grows with quality and with pixel count (scale squared); records every call. */
+    private static final class FakeEncoder implements EncodeBudget.Encoder {
+        final int bytesAtFullQuality;
+        final List<String> calls = new ArrayList<>();
+        float lastScale;
+        int lastQuality;
+
+        FakeEncoder(int bytesAtFullQuality) {
+            this.bytesAtFullQuality = bytesAtFullQuality;
+        }
+
+        @Override
+        public int encode(float scale, int quality) {
+            calls.add(scale + "@" + quality);
+            lastScale = scale;
+            lastQuality = quality;
+            return Math.round(bytesAtFullQuality * scale * scale * quality / 100f);
+        }
+    }
+
+    @Test
+    public void smallImageIsEncodedOnceAtMaxQuality() throws Exception {
+        FakeEncoder enc = new FakeEncoder(100_000);
+        EncodeBudget.Choice c = EncodeBudget.search(enc, 500_000, 80, 40, 0.25f);
+        assertEquals(1f, c.scale, 0f);
+        assertEquals(80, c.quality);
+        assertTrue(c.withinBudget);
+        assertEquals(1, enc.calls.size());
+    }
+
+    @Test
+    public void picksHighestFittingQualityStep() throws Exception {
+        // 1 MB at q100: q80 = 800 KB, q60 = 600 KB, q55 = 550 KB -> 600 KB budget allows q60
+        FakeEncoder enc = new FakeEncoder(1_000_000);
+        EncodeBudget.Choice c = EncodeBudget.search(enc, 600_000, 80, 40, 0.25f);
+        assertEquals(1f, c.scale, 0f);
+        assertEquals(60, c.quality);
+        assertEquals(600_000, c.bytes);
+        assertTrue(enc.calls.size() <= 5);
+        // The encoder's last output is the chosen one
+        assertEquals(c.quality, enc.lastQuality);
+        assertEquals(c.scale, enc.lastScale, 0f);
+    }
+
+    @Test
+    public void shrinksWhenMinimumQualityIsTooLarge() throws Exception {
+        // q40 at full scale = 4 MB; at 0.75 = 2.25 MB; at 0.5625 = ~1.27 MB; q80 at 0.5625 = 2.5 MB
+        FakeEncoder enc = new FakeEncoder(10_000_000);
+        EncodeBudget.Choice c = EncodeBudget.search(enc, 1_300_000, 80, 40, 0.25f);
+        assertEquals(0.5625f, c.scale, 1e-6f);
+        assertEquals(40, c.quality);
+        assertTrue(c.withinBudget);
+        assertEquals(c.quality, enc.lastQuality);
+        assertEquals(c.scale, enc.lastScale, 0f);
+    }
+
+    @Test
+    public void overBudgetReturnsSmallestSetting() throws Exception {
+        FakeEncoder enc = new FakeEncoder(100_000_000);
+        EncodeBudget.Choice c = EncodeBudget.search(enc, 1_000, 80, 40, 0.5f);
+        assertFalse(c.withinBudget);
+        assertEquals(40, c.quality);
+        assertEquals(0.5625f, c.scale, 1e-6f);   // 0.75^3 would go below 0.5
+        assertEquals(c.quality, enc.lastQuality);
+        assertEquals(c.scale, enc.lastScale, 0f);
+    }
+
+    @Test
+    public void singleQualityRangeOnlyScales() throws Exception {
+        FakeEncoder enc = new FakeEncoder(1_000_000);
+        EncodeBudget.Choice c = EncodeBudget.search(enc, 500_000, 70, 70, 0.25f);
+        assertEquals(70, c.quality);
+        assertEquals(0.75f, c.scale, 0f);
+        assertEquals(2, enc.calls.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsInvertedQualityRange() throws Exception {
+        EncodeBudget.search(new FakeEncoder(1), 100, 40, 80, 0.5f);
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.ecolens;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FrameThrottlerTest {
+
+    private static final long MS = 1_000_000L;
+
+    @Test
+    public void dropsFramesWhileInferenceRuns() {
+        FrameThrottler throttler = new FrameThrottler(0);
+        assertTrue(throttler.tryBegin(0));
+        // 30 fps camera, 100 ms inference: the next two frames are dropped
+        assertFalse(throttler.tryBegin(33 * MS));
+        assertFalse(throttler.tryBegin(66 * MS));
+        throttler.end(100 * MS);
+        assertTrue(throttler.tryBegin(100 * MS));
+
+        assertEquals(2, throttler.admitted());
+        assertEquals(2, throttler.dropped());
+        assertEquals(100 * MS, throttler.lastLatencyNanos());
+    }
+
+    @Test
+    public void enforcesMinimumInterval() {
+        FrameThrottler throttler = new FrameThrottler(200 * MS);
+        assertTrue(throttler.tryBegin(0));
+        throttler.end(20 * MS);
+        assertFalse(throttler.tryBegin(100 * MS));
+        assertTrue(throttler.tryBegin(200 * MS));
+        assertEquals(1, throttler.dropped());
+    }
+
+    @Test
+    public void simulatedStreamProcessesAboutOneFramePerInference() {
+        FrameThrottler throttler = new FrameThrottler(0);
+        long inferenceNs = 90 * MS;
+        long inFlightUntil = -1;
+        for (long t = 0; t < 3000 * MS; t += 33 * MS) {
+            if (inFlightUntil >= 0 && t >= inFlightUntil) {
+                throttler.end(inFlightUntil);
+                inFlightUntil = -1;
+            }
+            if (throttler.tryBegin(t)) inFlightUntil = t + inferenceNs;
+        }
+        // 91 frames in 3 s; an inference spans 3 frame periods, so every third frame is processed
+        assertEquals(31, throttler.admitted());
+        assertEquals(91, throttler.admitted() + throttler.dropped());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void endWithoutBeginFails() {
+        new FrameThrottler(0).end(0);
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.ecolens;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.Assert.*;
+
+public class GeoHashTest {
+
+    @Test
+    public void encodesKnownPoints() {
+        assertEquals("ezs42", GeoHash.encode(42.6, -5.6, 5));
+        assertEquals("u4pruydqqvj", GeoHash.encode(57.64911, 10.40744, 11));
+        assertEquals("u120fxw", GeoHash.encode(52.205, 0.119, 7));
+        // Prefixes of a longer hash are the coarser cells
+        assertTrue(GeoHash.encode(57.64911, 10.40744, 11).startsWith(GeoHash.encode(57.64911, 10.40744, 6)));
+    }
+
+    @Test
+    public void boundsContainTheEncodedPoint() {
+        Random random = new Random(7);
+        for (int i = 0; i < 1000; i++) {
+            double lat = random.nextDouble() * 180 - 90;
+            double lon = random.nextDouble() * 360 - 180;
+            int precision = 1 + random.nextInt(GeoHash.MAX_PRECISION);
+            GeoHash.Box box = GeoHash.bounds(GeoHash.encode(lat, lon, precision));
+            assertTrue(lat >= box.minLat && lat <= box.maxLat);
+            assertTrue(lon >= box.minLon && lon <= box.maxLon);
+            assertEquals(GeoHash.cellHeight(precision), box.maxLat - box.minLat, 1e-9);
+            assertEquals(GeoHash.cellWidth(precision), box.maxLon - box.minLon, 1e-9);
+        }
+    }
+
+    @Test
+    public void findsNeighbours() {
+        assertEquals(Arrays.asList("gcpuypk", "gcpuypm", "gcpuypj", "gcpuynv", "gcpuynu", "gcpuyng", "gcpuyp5", "gcpuyp7"),
+                GeoHash.neighbors("gcpuyph"));
+    }
+
+    @Test
+    public void neighboursWrapTheAntimeridianAndStopAtThePoles() {
+        String east = GeoHash.encode(0.5, 179.9, 4);
+        String west = GeoHash.neighbor(east, 0, 1);
+        assertEquals(GeoHash.encode(0.5, -179.9, 4), west);
+
+        String north = GeoHash.encode(89.99, 0, 3);
+        assertNull(GeoHash.neighbor(north, 1, 0));
+        assertEquals(5, GeoHash.neighbors(north).size());
+    }
+
+    @Test
+    public void coverIncludesEveryPointWithinTheRadius() {
+        Random random = new Random(11);
+        double[][] centers = {{48.8566, 2.3522}, {-33.86, 151.21}, {0.0, 179.99}, {64.1, -21.9}, {19.07, 72.88}};
+        for (double[] c : centers) {
+            for (double radius : new double[]{50, 1_000, 25_000}) {
+                List<GeoHash.Range> ranges = GeoHash.cover(c[0], c[1], radius, 8);
+                assertFalse(ranges.isEmpty());
+                for (int i = 0; i < 200; i++) {
+                    // Random point inside the circle (by bearing/distance on a sphere)
+                    double d = radius * Math.sqrt(random.nextDouble()) / GeoHash.EARTH_RADIUS_M;
+                    double bearing = random.nextDouble() * 2 * Math.PI;
+                    double lat1 = Math.toRadians(c[0]);
+                    double lat2 = Math.asin(Math.sin(lat1) * Math.cos(d) + Math.cos(lat1) * Math.sin(d) * Math.cos(bearing));
+                    double lon2 = Math.toRadians(c[1]) + Math.atan2(Math.sin(bearing) * Math.sin(d) * Math.cos(lat1),
+                            Math.cos(d) - Math.sin(lat1) * Math.sin(lat2));
+                    double lon = (Math.toDegrees(lon2) + 540) % 360 - 180;
+                    String hash = GeoHash.encode(Math.toDegrees(lat2), lon, 10);
+                    assertTrue(radius + " m around " + Arrays.toString(c) + " misses " + hash,
+                            ranges.stream().anyMatch(r -> r.contains(hash)));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void coverStaysWithinTheCellBudget() {
+        for (double radius : new double[]{10, 500, 5_000, 200_000}) {
+            List<GeoHash.Range> ranges = GeoHash.cover(52.52, 13.40, radius, 8);
+            assertTrue(ranges.size() <= 8);
+        }
+        // Small radii get fine cells: the ranges are long prefixes
+        assertTrue(GeoHash.cover(52.52, 13.40, 10, 8).get(0).start.length() >= 7);
+    }
+
+    @Test
+    public void mergesConsecutiveCells() {
+        TreeSet<String> cells = new TreeSet<>(Arrays.asList("u0", "u1", "u2", "u4", "uz", "v0"));
+        List<GeoHash.Range> ranges = GeoHash.merge(cells);
+        assertEquals("[u0..u2, u4, uz..v0]", ranges.toString());
+        assertNull(GeoHash.successor("zz"));
+    }
+
+    @Test
+    public void distanceMatchesAKnownPair() {
+        // Paris to London, about 343.5 km
+        assertEquals(343_500, GeoHash.distanceMeters(48.8566, 2.3522, 51.5074, -0.1278), 1_000);
+        assertEquals(0, GeoHash.distanceMeters(10, 10, 10, 10), 1e-9);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsInvalidCharacters() {
+        GeoHash.bounds("abc");   // 'a' is not in the geohash alphabet
+    }
+}
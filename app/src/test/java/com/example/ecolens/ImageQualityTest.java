@@ -0,0 +1,86 @@
+package com.example.ecolens;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ImageQualityTest {
+
+    private static final int SIZE = 128;
+
+    private static int[] fill(int rgb) {
+        int[] px = new int[SIZE * SIZE];
+        Arrays.fill(px, 0xFF000000 | rgb);
+        return px;
+    }
+
+    // Mid-grey noise: lots of high-frequency detail at normal brightness
+    private static int[] detailed() {
+        Random random = new Random(1);
+        int[] px = new int[SIZE * SIZE];
+        for (int i = 0; i < px.length; i++) {
+            int v = 60 + random.nextInt(136);
+            px[i] = 0xFF000000 | (v << 16) | (v << 8) | v;
+        }
+        return px;
+    }
+
+    // Same brightness range, but a slow horizontal gradient: no edges, like a defocused shot
+    private static int[] smooth() {
+        int[] px = new int[SIZE * SIZE];
+        for (int y = 0; y < SIZE; y++) {
+            for (int x = 0; x < SIZE; x++) {
+                int v = 60 + x;
+                px[y * SIZE + x] = 0xFF000000 | (v << 16) | (v << 8) | v;
+            }
+        }
+        return px;
+    }
+
+    @Test
+    public void sharpWellExposedPhotoPasses() {
+        ImageQuality.Report r = ImageQuality.assess(detailed(), SIZE, SIZE, 4000, 3000);
+        assertTrue(r.toString(), r.isAcceptable());
+        assertEquals("", r.describe());
+    }
+
+    @Test
+    public void smoothPhotoIsBlurry() {
+        ImageQuality.Report r = ImageQuality.assess(smooth(), SIZE, SIZE, 4000, 3000);
+        assertEquals(EnumSet.of(ImageQuality.Issue.BLURRY), r.issues);
+        assertEquals(0.0, r.sharpness, 1e-9);
+    }
+
+    @Test
+    public void blackPhotoIsDarkAndBlurry() {
+        ImageQuality.Report r = ImageQuality.assess(fill(0x000000), SIZE, SIZE, 4000, 3000);
+        assertTrue(r.issues.contains(ImageQuality.Issue.TOO_DARK));
+        assertTrue(r.issues.contains(ImageQuality.Issue.BLURRY));
+        assertEquals("blurry, too dark", r.describe());
+    }
+
+    @Test
+    public void whitePhotoIsOverexposed() {
+        assertTrue(ImageQuality.assess(fill(0xFFFFFF), SIZE, SIZE, 4000, 3000)
+                .issues.contains(ImageQuality.Issue.TOO_BRIGHT));
+    }
+
+    @Test
+    public void resolutionCheckUsesSourceSize() {
+        assertTrue(ImageQuality.assess(detailed(), SIZE, SIZE, 320, 240)
+                .issues.contains(ImageQuality.Issue.TOO_SMALL));
+        // Unknown source size: skipped
+        assertTrue(ImageQuality.assess(detailed(), SIZE, SIZE, 0, 0).isAcceptable());
+    }
+
+    @Test
+    public void lumaWeightsGreenMost() {
+        int[] luma = ImageQuality.luma(new int[]{0xFFFF0000, 0xFF00FF00, 0xFF0000FF, 0xFFFFFFFF}, 4);
+        assertTrue(luma[1] > luma[0] && luma[0] > luma[2]);
+        assertEquals(255, luma[3]);
+    }
+}
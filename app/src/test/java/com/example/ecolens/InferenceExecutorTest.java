@@ -0,0 +1,214 @@
+package com.example.ecolens;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class InferenceExecutorTest {
+
+    private static final class CountingFactory implements InferenceExecutor.SlotFactory<Object> {
+        final AtomicInteger created = new AtomicInteger();
+        final AtomicInteger destroyed = new AtomicInteger();
+
+        @Override
+        public Object create() {
+            created.incrementAndGet();
+            return new Object();
+        }
+
+        @Override
+        public void destroy(Object slot) {
+            destroyed.incrementAndGet();
+        }
+    }
+
+    private static <R> InferenceExecutor.Listener<R> collect(List<R> results, CountDownLatch done) {
+        return new InferenceExecutor.Listener<R>() {
+            @Override
+            public void onResult(R result) {
+                results.add(result);
+                done.countDown();
+            }
+
+            @Override
+            public void onError(Exception e) {
+                done.countDown();
+            }
+        };
+    }
+
+    @Test
+    public void newerJobWithSameKeySupersedesQueuedOne() throws Exception {
+        CountingFactory factory = new CountingFactory();
+        InferenceExecutor<Object> executor = new InferenceExecutor<>("test", 1, 4, factory);
+        CountDownLatch blocker = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(2);
+        List<String> results = new CopyOnWriteArrayList<>();
+
+        // Occupy the only worker so the next two jobs wait in the queue
+        executor.submit(null, slot -> { blocker.await(); return "busy"; }, collect(results, done));
+        executor.submit("form", slot -> "first", collect(results, new CountDownLatch(1)));
+        executor.submit("form", slot -> "second", collect(results, done));
+        blocker.countDown();
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertEquals(java.util.Arrays.asList("busy", "second"), results);
+        assertEquals(1, executor.metrics().cancelled);
+    }
+
+    @Test
+    public void supersededJobsStillGetACancellation() throws Exception {
+        InferenceExecutor<Object> executor = new InferenceExecutor<>("test", 1, 4, new CountingFactory());
+        CountDownLatch blocker = new CountDownLatch(1);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(3);
+        List<Exception> errors = new CopyOnWriteArrayList<>();
+        InferenceExecutor.Listener<String> listener = new InferenceExecutor.Listener<String>() {
+            @Override
+            public void onResult(String result) {
+                done.countDown();
+            }
+
+            @Override
+            public void onError(Exception e) {
+                errors.add(e);
+                done.countDown();
+            }
+        };
+
+        // Superseded while running, then superseded while queued
+        executor.submit("frame", slot -> { running.countDown(); blocker.await(); return "a"; }, listener);
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        InferenceExecutor.Ticket queued = executor.submit("frame", slot -> "b", listener);
+        executor.submit("frame", slot -> "c", listener);
+        blocker.countDown();
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertEquals(2, errors.size());
+        for (Exception e : errors) assertTrue(e instanceof java.util.concurrent.CancellationException);
+        assertTrue(queued.isSuperseded());
+    }
+
+    @Test
+    public void fullQueueDropsOldestWaitingJob() throws Exception {
+        InferenceExecutor<Object> executor = new InferenceExecutor<>("test", 1, 1, new CountingFactory());
+        CountDownLatch blocker = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(3);
+        List<String> results = new CopyOnWriteArrayList<>();
+
+        executor.submit(null, slot -> { blocker.await(); return "busy"; }, collect(results, done));
+        executor.submit(null, slot -> "old", collect(results, done));
+        executor.submit(null, slot -> "new", collect(results, done));
+        blocker.countDown();
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertEquals(java.util.Arrays.asList("busy", "new"), results);
+        assertEquals(1, executor.metrics().dropped);
+    }
+
+    @Test
+    public void frameBurstDoesNotEvictAPriorityJob() throws Exception {
+        InferenceExecutor<Object> executor = new InferenceExecutor<>("test", 1, 2, new CountingFactory());
+        CountDownLatch blocker = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(6);
+        List<String> results = new CopyOnWriteArrayList<>();
+
+        executor.submit(null, slot -> { blocker.await(); return "busy"; }, collect(results, done));
+        executor.submit("form", true, slot -> "form", collect(results, done));
+        // Frames with distinct keys: nothing is superseded, so the queue really overflows
+        for (int i = 0; i < 4; i++) {
+            String frame = "frame" + i;
+            executor.submit(frame, slot -> frame, collect(results, done));
+        }
+        blocker.countDown();
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertEquals(java.util.Arrays.asList("busy", "form", "frame3"), results);
+        assertEquals(3, executor.metrics().dropped);
+    }
+
+    @Test
+    public void fullQueueClearsSupersededJobsBeforeDropping() throws Exception {
+        InferenceExecutor<Object> executor = new InferenceExecutor<>("test", 1, 2, new CountingFactory());
+        CountDownLatch blocker = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(4);
+        List<String> results = new CopyOnWriteArrayList<>();
+
+        executor.submit(null, slot -> { blocker.await(); return "busy"; }, collect(results, done));
+        executor.submit(null, slot -> "other", collect(results, done));
+        executor.submit("frame", slot -> "stale", collect(results, done));
+        executor.submit("frame", slot -> "fresh", collect(results, done));   // supersedes "stale"; queue full
+        blocker.countDown();
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertEquals(java.util.Arrays.asList("busy", "other", "fresh"), results);
+        assertEquals(0, executor.metrics().dropped);
+    }
+
+    private static <R> InferenceExecutor.Listener<R> errors(List<Exception> errors) {
+        return new InferenceExecutor.Listener<R>() {
+            @Override
+            public void onResult(R result) {
+            }
+
+            @Override
+            public void onError(Exception e) {
+                errors.add(e);
+            }
+        };
+    }
+
+    @Test
+    public void shutdownCancelsQueuedJobsAndRejectsNewOnes() throws Exception {
+        InferenceExecutor<Object> executor = new InferenceExecutor<>("test", 1, 4, new CountingFactory());
+        CountDownLatch running = new CountDownLatch(1);
+        List<Exception> queued = new CopyOnWriteArrayList<>();
+        List<Exception> late = new CopyOnWriteArrayList<>();
+
+        executor.submit(null, slot -> { running.countDown(); Thread.sleep(10_000); return "busy"; },
+                errors(new CopyOnWriteArrayList<>()));
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        executor.submit("form", slot -> "queued", errors(queued));
+        executor.shutdown();
+        executor.submit("form", slot -> "late", errors(late));
+
+        // Neither ran, and both were answered before the calls returned
+        assertEquals(1, queued.size());
+        assertTrue(queued.get(0) instanceof java.util.concurrent.CancellationException);
+        assertEquals(1, late.size());
+        assertTrue(late.get(0) instanceof java.util.concurrent.RejectedExecutionException);
+        assertEquals(1, executor.metrics().dropped);
+    }
+
+    @Test
+    public void retiredSlotsAreDestroyedAndRecreated() throws Exception {
+        CountingFactory factory = new CountingFactory();
+        InferenceExecutor<Object> executor = new InferenceExecutor<>("test", 1, 4, factory);
+        List<String> results = Collections.synchronizedList(new java.util.ArrayList<>());
+
+        CountDownLatch first = new CountDownLatch(1);
+        executor.submit(null, slot -> "a", collect(results, first));
+        assertTrue(first.await(5, TimeUnit.SECONDS));
+        executor.retireSlots();
+
+        CountDownLatch second = new CountDownLatch(1);
+        executor.submit(null, slot -> "b", collect(results, second));
+        assertTrue(second.await(5, TimeUnit.SECONDS));
+        executor.shutdown();
+
+        assertEquals(2, factory.created.get());
+        assertEquals(2, factory.destroyed.get());
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.ecolens;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest {
+
+    private static final long MS = 1_000_000L;
+
+    @Test
+    public void percentilesFallInTheRightBucket() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (int i = 0; i < 90; i++) h.record(5 * MS);
+        for (int i = 0; i < 10; i++) h.record(100 * MS);
+
+        assertEquals(100, h.count());
+        // 5 ms lives in the [4.096, 8.191] ms bucket, 100 ms in [65.5, 131] ms (capped at max)
+        assertTrue(h.percentileMillis(50) >= 5 && h.percentileMillis(50) < 8.2);
+        assertTrue(h.percentileMillis(90) < 8.2);
+        assertEquals(100.0, h.percentileMillis(99), 0.001);
+        assertEquals(14.5, h.meanMillis(), 0.001);
+        assertEquals(100.0, h.maxMillis(), 0.001);
+    }
+
+    @Test
+    public void emptyAndReset() {
+        LatencyHistogram h = new LatencyHistogram();
+        assertEquals(0, h.percentileMillis(50), 0);
+
+        h.record(3 * MS);
+        h.reset();
+
+        assertEquals(0, h.count());
+        assertEquals(0, h.maxMillis(), 0);
+    }
+
+    @Test
+    public void offLevelRecordsNothing() {
+        InferenceTelemetry telemetry = new InferenceTelemetry();
+        telemetry.setLevel(InferenceTelemetry.Level.OFF);
+
+        long t = telemetry.start();
+        telemetry.stop(InferenceTelemetry.Stage.INVOKE, t);
+
+        assertEquals(0, t);
+        assertEquals(0, telemetry.histogram(InferenceTelemetry.Stage.INVOKE).count());
+    }
+}
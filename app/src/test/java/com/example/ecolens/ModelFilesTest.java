@@ -0,0 +1,93 @@
+package com.example.ecolens;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class ModelFilesTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private File write(String name, byte[] bytes) throws IOException {
+        File file = tmp.newFile(name);
+        try (OutputStream out = new FileOutputStream(file)) {
+            out.write(bytes);
+        }
+        return file;
+    }
+
+    @Test
+    public void parsesSha256sumOutput() throws Exception {
+        String hex = ContentHash.sha256(new byte[]{1, 2, 3});
+        assertEquals(hex, ModelFiles.parseChecksum(hex.toUpperCase() + "  pollution.tflite\n"));
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsMalformedChecksum() throws Exception {
+        ModelFiles.parseChecksum("not-a-hash");
+    }
+
+    @Test
+    public void verifiesChecksumWithoutMovingBuffer() throws Exception {
+        byte[] model = {10, 20, 30, 40};
+        ByteBuffer buffer = ByteBuffer.wrap(model);
+        String hex = ContentHash.sha256(model);
+
+        assertEquals(hex, ModelFiles.verifyChecksum(buffer, hex));
+        assertEquals(0, buffer.position());
+        try {
+            ModelFiles.verifyChecksum(buffer, ContentHash.sha256(new byte[]{0}));
+            fail("mismatch not detected");
+        } catch (IOException expected) {
+            // expected
+        }
+    }
+
+    @Test
+    public void checksShapesAgainstLabelCount() throws Exception {
+        int labels = ClassificationResult.LABELS.length;
+        ModelFiles.verifyShapes(new int[]{1, 224, 224, 3}, new int[]{1, labels}, labels);
+
+        assertShapeRejected(new int[]{1, 224, 224, 1}, new int[]{1, labels}, labels);   // grayscale input
+        assertShapeRejected(new int[]{2, 224, 224, 3}, new int[]{1, labels}, labels);   // batch of 2
+        assertShapeRejected(new int[]{1, 224, 224, 3}, new int[]{1, labels + 1}, labels);
+    }
+
+    private static void assertShapeRejected(int[] input, int[] output, int labels) {
+        try {
+            ModelFiles.verifyShapes(input, output, labels);
+            fail("shape accepted");
+        } catch (IOException expected) {
+            // expected
+        }
+    }
+
+    @Test
+    public void installWritesModelAndSidecar() throws Exception {
+        byte[] model = {5, 6, 7, 8, 9};
+        File source = write("download.tflite", model);
+        String hex = ContentHash.sha256(model);
+        File target = new File(tmp.getRoot(), "models/pollution.tflite");
+
+        ModelFiles.install(source, hex, target);
+
+        ByteBuffer mapped = ModelFiles.map(target);
+        assertEquals(model.length, mapped.remaining());
+        assertEquals(hex, ModelFiles.verifyChecksum(mapped, hex));
+        try (InputStream in = new FileInputStream(ModelFiles.checksumFile(target))) {
+            assertEquals(hex, ModelFiles.readChecksum(in));
+        }
+        assertFalse(new File(target.getPath() + ".tmp").exists());
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.ecolens;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.Assert.*;
+
+public class ParallelForTest {
+
+    private final ExecutorService pool = Executors.newFixedThreadPool(3);
+
+    @After
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void visitsEveryIndexOnceWithStableWorkerIds() throws Exception {
+        int count = 11;
+        int workers = 4;
+        AtomicIntegerArray visits = new AtomicIntegerArray(count);
+        ParallelFor.run(pool, count, workers, (worker, i) -> {
+            assertEquals(i % workers, worker);
+            visits.incrementAndGet(i);
+        });
+        for (int i = 0; i < count; i++) assertEquals(1, visits.get(i));
+    }
+
+    @Test
+    public void runsInlineWithoutPool() throws Exception {
+        Thread caller = Thread.currentThread();
+        ParallelFor.run(null, 5, 4, (worker, i) -> {
+            assertEquals(0, worker);
+            assertSame(caller, Thread.currentThread());
+        });
+    }
+
+    @Test
+    public void rethrowsWorkerFailureAfterAllWorkersFinish() {
+        AtomicIntegerArray visits = new AtomicIntegerArray(8);
+        try {
+            ParallelFor.run(pool, 8, 4, (worker, i) -> {
+                visits.incrementAndGet(i);
+                if (i == 3) throw new IOException("boom");
+            });
+            fail("failure not propagated");
+        } catch (Exception e) {
+            assertTrue(e instanceof IOException);
+        }
+        // Other indexes of the failing worker's stride stop, but no index ran twice
+        for (int i = 0; i < 8; i++) assertTrue(visits.get(i) <= 1);
+    }
+}
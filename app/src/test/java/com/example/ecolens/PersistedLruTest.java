@@ -0,0 +1,110 @@
+package com.example.ecolens;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PersistedLruTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private static final PersistedLru.Codec<String> STRINGS = new PersistedLru.Codec<String>() {
+        @Override
+        public String encode(String value) {
+            return value;
+        }
+
+        @Override
+        public String decode(String text) {
+            if (text.equals("bad")) throw new NumberFormatException(text);
+            return text;
+        }
+    };
+
+    // Saves run inline instead of on the debounced background thread
+    private static PersistedLru<String> inline(File file, int maxEntries) {
+        return new PersistedLru<>(file, maxEntries, STRINGS, Runnable::run);
+    }
+
+    @Test
+    public void survivesReload() {
+        File file = new File(tmp.getRoot(), "dir/lru.txt");
+        PersistedLru<String> lru = inline(file, 4);
+        lru.put("a", "1");
+        lru.put("b", "");
+
+        PersistedLru<String> reloaded = inline(file, 4);
+        assertEquals("1", reloaded.get("a"));
+        assertEquals("", reloaded.get("b"));
+        assertNull(reloaded.get("c"));
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed() {
+        File file = new File(tmp.getRoot(), "lru.txt");
+        PersistedLru<String> lru = inline(file, 2);
+        lru.put("a", "1");
+        lru.put("b", "2");
+        lru.get("a");                        // "b" is now the eldest
+        lru.put("c", "3");
+
+        assertEquals(2, lru.size());
+        assertNull(lru.get("b"));
+        assertEquals("1", inline(file, 2).get("a"));
+    }
+
+    @Test
+    public void burstOfPutsIsSavedOnce() {
+        File file = new File(tmp.getRoot(), "lru.txt");
+        List<Runnable> saves = new ArrayList<>();
+        PersistedLru<String> lru = new PersistedLru<>(file, 4, STRINGS, saves::add);
+        lru.put("a", "1");
+        lru.put("b", "2");
+        lru.put("c", "3");
+        assertEquals(1, saves.size());
+        assertFalse(file.exists());
+
+        saves.get(0).run();
+        assertEquals(3, inline(file, 4).size());
+
+        // Re-putting an unchanged entry has nothing to save; a change schedules a new save
+        lru.put("a", "1");
+        assertEquals(1, saves.size());
+        lru.put("a", "4");
+        assertEquals(2, saves.size());
+    }
+
+    @Test
+    public void failedSaveIsRetriedOnTheNextPut() throws Exception {
+        File blocker = tmp.newFile("dir");   // a file where the directory should be
+        File file = new File(blocker, "lru.txt");
+        PersistedLru<String> lru = inline(file, 4);
+        lru.put("a", "1");
+        assertFalse(file.exists());
+
+        assertTrue(blocker.delete());
+        assertTrue(blocker.mkdir());
+        lru.put("a", "1");                   // same entry, but not on disk yet
+        assertEquals("1", inline(file, 4).get("a"));
+    }
+
+    @Test
+    public void skipsCorruptLines() throws Exception {
+        File file = tmp.newFile("lru.txt");
+        Files.write(file.toPath(), "a\t1\nb\tbad\n\nc\n".getBytes(StandardCharsets.UTF_8));
+
+        PersistedLru<String> lru = inline(file, 4);
+        assertEquals(2, lru.size());
+        assertEquals("1", lru.get("a"));
+        assertEquals("", lru.get("c"));
+    }
+}
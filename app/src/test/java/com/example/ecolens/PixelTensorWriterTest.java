@@ -0,0 +1,52 @@
+package com.example.ecolens;
+
+import org.junit.Test;
+
+import java.nio.FloatBuffer;
+
+import static org.junit.Assert.*;
+
+public class PixelTensorWriterTest {
+
+    @Test
+    public void writesNormalizedRgbAndDropsAlpha() {
+        int[] pixels = {0xFF0080FF, 0x00FFFFFF};
+        FloatBuffer out = FloatBuffer.allocate(6);
+
+        PixelTensorWriter.writeRgb(pixels, 2, out, true);
+
+        assertEquals(6, out.position());
+        assertEquals(0f, out.get(0), 1e-6f);
+        assertEquals(128f / 255f, out.get(1), 1e-6f);
+        assertEquals(1f, out.get(2), 1e-6f);
+        assertEquals(1f, out.get(3), 1e-6f);
+        assertEquals(1f, out.get(4), 1e-6f);
+        assertEquals(1f, out.get(5), 1e-6f);
+    }
+
+    @Test
+    public void keepsRawRangeWhenNotNormalizing() {
+        int[] pixels = {0xFF102030};
+        FloatBuffer out = FloatBuffer.allocate(3);
+
+        PixelTensorWriter.writeRgb(pixels, 1, out, false);
+
+        assertArrayEquals(new float[]{16f, 32f, 48f}, out.array(), 0f);
+    }
+
+    @Test
+    public void writesFromCurrentPosition() {
+        FloatBuffer out = FloatBuffer.allocate(6);
+        out.position(3);
+
+        PixelTensorWriter.writeRgb(new int[]{0xFFFFFFFF}, 1, out, false);
+
+        assertEquals(0f, out.get(0), 0f);
+        assertEquals(255f, out.get(5), 0f);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUndersizedBuffer() {
+        PixelTensorWriter.writeRgb(new int[4], 4, FloatBuffer.allocate(11), true);
+    }
+}
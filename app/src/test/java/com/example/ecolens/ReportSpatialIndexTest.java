@@ -0,0 +1,120 @@
+package com.example.ecolens;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ReportSpatialIndexTest {
+
+    // About 1 m of latitude in degrees
+    private static final double M = 1 / 111_195.0;
+
+    private static ReportSpatialIndex.Entry entry(String id, double lat, double lon, String category, long createdAt) {
+        return new ReportSpatialIndex.Entry(id, lat, lon, category, createdAt, "title " + id);
+    }
+
+    @Test
+    public void findsReportsWithinTheRadiusNearestFirst() {
+        ReportSpatialIndex index = new ReportSpatialIndex(200, 100);
+        index.upsert(entry("far", 12.9716 + 400 * M, 77.5946, "Soil", 0));
+        index.upsert(entry("near", 12.9716 + 50 * M, 77.5946, "Soil", 0));
+        index.upsert(entry("nearer", 12.9716 + 10 * M, 77.5946, "Soil", 0));
+
+        List<ReportSpatialIndex.Match> matches = index.nearby(12.9716, 77.5946, 150, null, 0, 10);
+        assertEquals(2, matches.size());
+        assertEquals("nearer", matches.get(0).entry.id);
+        assertEquals("near", matches.get(1).entry.id);
+        assertEquals(50, matches.get(1).distanceMeters, 1);
+    }
+
+    @Test
+    public void filtersByCategoryAndTimeWindow() {
+        ReportSpatialIndex index = new ReportSpatialIndex(200, 100);
+        index.upsert(entry("water", 1, 1, "Water", 1_000));
+        index.upsert(entry("airWater", 1, 1 + 5 * M, "Air+Water", 1_000));
+        index.upsert(entry("old", 1, 1, "Water", 10));
+
+        List<ReportSpatialIndex.Match> matches = index.nearby(1, 1, 100, "Soil+Water", 500, 10);
+        assertEquals(2, matches.size());
+        assertTrue(index.nearby(1, 1, 100, "Other", 0, 10).isEmpty());
+        assertEquals(3, index.nearby(1, 1, 100, null, 0, 10).size());
+        assertEquals(1, index.nearby(1, 1, 100, null, 0, 1).size());
+    }
+
+    @Test
+    public void upsertMovesAndRemoveForgets() {
+        ReportSpatialIndex index = new ReportSpatialIndex(100, 100);
+        index.upsert(entry("a", 40, -3, "Air", 0));
+        index.upsert(entry("a", 40 + 2_000 * M, -3, "Air", 0));
+        assertEquals(1, index.size());
+        assertTrue(index.nearby(40, -3, 100, null, 0, 10).isEmpty());
+        assertEquals(1, index.nearby(40 + 2_000 * M, -3, 100, null, 0, 10).size());
+
+        assertTrue(index.remove("a"));
+        assertFalse(index.remove("a"));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    public void serverCopyReplacesAPendingEntry() {
+        ReportSpatialIndex index = new ReportSpatialIndex(100, 100);
+        index.upsert(new ReportSpatialIndex.Entry("q", 10, 10, "Air", 0, "queued", true));
+        assertTrue(index.nearby(10, 10, 50, null, 0, 10).get(0).entry.pending);
+
+        index.upsert(entry("q", 10, 10, "Air", 0));
+        assertEquals(1, index.size());
+        assertFalse(index.nearby(10, 10, 50, null, 0, 10).get(0).entry.pending);
+    }
+
+    @Test
+    public void evictsTheOldestBeyondCapacityAndPrunes() {
+        ReportSpatialIndex index = new ReportSpatialIndex(100, 2);
+        index.upsert(entry("b", 0, 0, "Air", 20));
+        index.upsert(entry("a", 0, 0, "Air", 10));
+        index.upsert(entry("c", 0, 0, "Air", 30));
+        assertEquals(2, index.size());
+        assertFalse(index.remove("a"));
+
+        index.prune(25);
+        assertEquals(1, index.size());
+        assertEquals("c", index.nearby(0, 0, 10, null, 0, 10).get(0).entry.id);
+    }
+
+    @Test
+    public void queriesAcrossTheAntimeridian() {
+        ReportSpatialIndex index = new ReportSpatialIndex(150, 100);
+        index.upsert(entry("west", -17, -179.9995, "Water", 0));
+        // ~106 m apart across the 180th meridian
+        assertEquals(1, index.nearby(-17, 179.9995, 150, null, 0, 10).size());
+    }
+
+    @Test
+    public void queriesStayFastWithThousandsOfReports() {
+        ReportSpatialIndex index = new ReportSpatialIndex(200, 50_000);
+        Random random = new Random(3);
+        // 20k reports over a ~50 km city
+        for (int i = 0; i < 20_000; i++) {
+            index.upsert(entry("r" + i, 28.6 + random.nextDouble() * 0.45, 77.0 + random.nextDouble() * 0.45,
+                    random.nextBoolean() ? "Soil" : "Air", i));
+        }
+        int queries = 2_000;
+        long start = System.nanoTime();
+        for (int i = 0; i < queries; i++) {
+            index.nearby(28.6 + random.nextDouble() * 0.45, 77.0 + random.nextDouble() * 0.45, 150, "Soil", 0, 5);
+        }
+        double msPerQuery = (System.nanoTime() - start) / 1e6 / queries;
+        // A frame is 16 ms; a query should cost a tiny fraction of that even on a cold JVM
+        assertTrue("ms per query " + msPerQuery, msPerQuery < 1);
+    }
+
+    @Test
+    public void sharesCategoryComparesComponents() {
+        assertTrue(ReportSpatialIndex.sharesCategory("Air+Water", "Water"));
+        assertFalse(ReportSpatialIndex.sharesCategory("Air+Soil", "Water"));
+        assertFalse(ReportSpatialIndex.sharesCategory("", ""));
+        assertFalse(ReportSpatialIndex.sharesCategory(null, "Air"));
+    }
+}
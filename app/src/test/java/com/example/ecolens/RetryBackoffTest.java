@@ -0,0 +1,39 @@
+package com.example.ecolens;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class RetryBackoffTest {
+
+    @Test
+    public void doublesUntilCapped() {
+        RetryBackoff backoff = new RetryBackoff(1_000, 60_000, 0);
+        assertEquals(1_000, backoff.delayMillis(0, 0.5));
+        assertEquals(2_000, backoff.delayMillis(1, 0.5));
+        assertEquals(32_000, backoff.delayMillis(5, 0.5));
+        assertEquals(60_000, backoff.delayMillis(6, 0.5));
+        assertEquals(60_000, backoff.delayMillis(1_000, 0.5));
+    }
+
+    @Test
+    public void largeAttemptsDoNotOverflow() {
+        RetryBackoff backoff = new RetryBackoff(30_000, Long.MAX_VALUE / 2, 0);
+        for (int attempt = 0; attempt < 100; attempt++) {
+            assertTrue("attempt " + attempt, backoff.delayMillis(attempt, 0) > 0);
+        }
+    }
+
+    @Test
+    public void jitterOnlyShortensTheDelay() {
+        RetryBackoff backoff = new RetryBackoff(1_000, 60_000, 0.5);
+        assertEquals(8_000, backoff.delayMillis(3, 0));
+        assertEquals(6_000, backoff.delayMillis(3, 0.5));
+        assertTrue(backoff.delayMillis(3, 0.999) > 4_000);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsMaxBelowBase() {
+        new RetryBackoff(10, 5, 0);
+    }
+}
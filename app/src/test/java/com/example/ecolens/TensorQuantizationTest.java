@@ -0,0 +1,53 @@
+package com.example.ecolens;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class TensorQuantizationTest {
+
+    @Test
+    public void uint8InputWithUnitScaleIsIdentity() {
+        byte[] table = TensorQuantization.inputTable(1f / 255f, 0, false);
+
+        for (int c = 0; c < 256; c++) {
+            assertEquals(c, table[c] & 0xFF);
+        }
+    }
+
+    @Test
+    public void int8InputAppliesZeroPointAndClamps() {
+        byte[] table = TensorQuantization.inputTable(1f / 255f, -128, true);
+
+        assertEquals(-128, table[0]);
+        assertEquals(127, table[255]);
+
+        byte[] narrow = TensorQuantization.inputTable(0.5f / 255f, 0, true);
+        assertEquals(127, narrow[200]); // 400 clamps to int8 max
+    }
+
+    @Test
+    public void writesQuantizedPixelsThroughTable() {
+        byte[] table = TensorQuantization.inputTable(1f / 255f, 0, false);
+        ByteBuffer out = ByteBuffer.allocate(3);
+
+        PixelTensorWriter.writeRgbQuantized(new int[]{0xFF0A141E}, 1, out, table);
+
+        assertArrayEquals(new byte[]{10, 20, 30}, out.array());
+    }
+
+    @Test
+    public void dequantizesUnsignedAndSigned() {
+        float[] out = new float[2];
+
+        TensorQuantization.dequantize(ByteBuffer.wrap(new byte[]{0, (byte) 255}), 2, 1f / 256f, 0, false, out);
+        assertEquals(0f, out[0], 1e-6f);
+        assertEquals(255f / 256f, out[1], 1e-6f);
+
+        TensorQuantization.dequantize(ByteBuffer.wrap(new byte[]{-128, 127}), 2, 1f / 256f, -128, true, out);
+        assertEquals(0f, out[0], 1e-6f);
+        assertEquals(255f / 256f, out[1], 1e-6f);
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.ecolens;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TileGridTest {
+
+    @Test
+    public void smallImageIsSingleWholeTile() {
+        List<TileGrid.Tile> tiles = TileGrid.plan(200, 150, 224, 224, 0.25f, 16);
+        assertEquals(1, tiles.size());
+        assertTile(tiles.get(0), 0, 0, 200, 150);
+    }
+
+    @Test
+    public void budgetOfOneDisablesTiling() {
+        assertEquals(1, TileGrid.plan(1024, 768, 224, 224, 0.25f, 1).size());
+    }
+
+    @Test
+    public void gridCoversImageWithinBounds() {
+        int w = 1024, h = 768;
+        List<TileGrid.Tile> tiles = TileGrid.plan(w, h, 224, 224, 0.25f, 64);
+        assertTile(tiles.get(0), 0, 0, w, h);
+        assertTrue(tiles.size() > 1);
+
+        boolean[][] covered = new boolean[h][w];
+        for (TileGrid.Tile t : tiles.subList(1, tiles.size())) {
+            assertEquals(224, t.width);
+            assertEquals(224, t.height);
+            assertTrue(t.x >= 0 && t.y >= 0 && t.x + t.width <= w && t.y + t.height <= h);
+            for (int y = t.y; y < t.y + t.height; y++) {
+                for (int x = t.x; x < t.x + t.width; x++) covered[y][x] = true;
+            }
+        }
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) assertTrue("uncovered " + x + "," + y, covered[y][x]);
+        }
+    }
+
+    @Test
+    public void tightBudgetEnlargesCrops() {
+        List<TileGrid.Tile> roomy = TileGrid.plan(1024, 768, 224, 224, 0.25f, 64);
+        List<TileGrid.Tile> tight = TileGrid.plan(1024, 768, 224, 224, 0.25f, 5);
+        assertTrue(tight.size() <= 5);
+        assertTrue(tight.size() > 1);
+        assertTrue(tight.get(1).width > roomy.get(1).width);
+    }
+
+    @Test
+    public void stepsAccountForOverlap() {
+        assertEquals(1, TileGrid.steps(200, 224, 0.25f));
+        assertEquals(2, TileGrid.steps(448, 224, 0f));
+        assertEquals(3, TileGrid.steps(448, 224, 0.25f));
+    }
+
+    @Test
+    public void maxPoolKeepsStrongestEvidencePerLabel() {
+        float[] merged = TileGrid.maxPool(new float[][]{
+                {0.7f, 0.2f, 0.1f},
+                {0.1f, 0.1f, 0.8f},
+        });
+        assertArrayEquals(new float[]{0.7f, 0.2f, 0.8f}, merged, 0f);
+    }
+
+    private static void assertTile(TileGrid.Tile t, int x, int y, int w, int h) {
+        assertEquals(x, t.x);
+        assertEquals(y, t.y);
+        assertEquals(w, t.width);
+        assertEquals(h, t.height);
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.ecolens;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class UploadTrackerTest {
+
+    @Test
+    public void tracksSlotsThroughTheirStates() {
+        UploadTracker t = new UploadTracker(3);
+        assertTrue(t.isEncoding());
+        assertTrue(t.isBusy());
+
+        t.staged(0, "/p/0", "/f/0", "w0");
+        t.staged(1, "/p/1", "/f/1", "w1");
+        t.encodeFailed(2);
+        assertFalse(t.isEncoding());
+        assertTrue(t.isBusy());
+
+        t.uploaded(1);
+        t.uploadFailed(0);
+        assertFalse(t.isBusy());
+        assertFalse(t.allUploaded());
+
+        List<UploadTracker.Photo> photos = t.photos();
+        assertEquals(2, photos.size());
+        assertEquals(UploadTracker.State.STAGED, photos.get(0).state);
+        assertEquals("/f/0", photos.get(0).localFile);
+        assertEquals(UploadTracker.State.UPLOADED, photos.get(1).state);
+        assertEquals("/p/1", photos.get(1).path);
+    }
+
+    @Test
+    public void aggregatesProgressIgnoringFailedPhotos() {
+        UploadTracker t = new UploadTracker(4);
+        assertEquals(0f, t.progress(), 0f);
+        t.encodeFailed(3);
+        t.staged(0, "a", "a", "a");
+        t.staged(1, "b", "b", "b");
+        t.staged(2, "c", "c", "c");
+        t.progress(0, 50, 100);
+        t.progress(1, 100, 400);
+        // (0.5 + 0.25 + 0) / 3
+        assertEquals(0.25f, t.progress(), 1e-6f);
+        t.uploaded(2);
+        assertEquals((0.5f + 0.25f + 1f) / 3, t.progress(), 1e-6f);
+    }
+
+    @Test
+    public void allFailedCountsAsComplete() {
+        UploadTracker t = new UploadTracker(1);
+        t.encodeFailed(0);
+        assertEquals(1f, t.progress(), 0f);
+        assertTrue(t.photos().isEmpty());
+        assertFalse(t.allUploaded());
+    }
+
+    @Test
+    public void concurrentUpdatesAreNotLost() throws Exception {
+        int slots = 8;
+        UploadTracker t = new UploadTracker(slots);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < slots; i++) {
+            final int slot = i;
+            threads.add(new Thread(() -> {
+                t.staged(slot, "p" + slot, "f" + slot, "w" + slot);
+                for (int b = 0; b <= 1000; b++) t.progress(slot, b, 1000);
+                t.uploaded(slot);
+            }));
+        }
+        for (Thread th : threads) th.start();
+        for (Thread th : threads) th.join();
+        assertFalse(t.isBusy());
+        assertEquals(1f, t.progress(), 0f);
+        assertTrue(t.allUploaded());
+        assertEquals("p0", t.photos().get(0).path);
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.ecolens;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+public class UploadedObjectsTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void survivesReload() {
+        File file = new File(tmp.getRoot(), "index/uploaded.txt");
+        // Saves run inline here instead of on the debounced background thread
+        new UploadedObjects(file, 4, Runnable::run).add("/reports_images/abc.webp");
+
+        UploadedObjects reloaded = new UploadedObjects(file, 4);
+        assertTrue(reloaded.contains("/reports_images/abc.webp"));
+        assertFalse(reloaded.contains("/reports_images/def.webp"));
+    }
+
+    @Test
+    public void storesAPathPerLine() throws Exception {
+        File file = new File(tmp.getRoot(), "uploaded.txt");
+        new UploadedObjects(file, 4, Runnable::run).add("/reports_images/abc.webp");
+
+        assertEquals("/reports_images/abc.webp\n", new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void addingTwiceKeepsOneEntry() {
+        UploadedObjects index = new UploadedObjects(new File(tmp.getRoot(), "u.txt"), 4);
+        index.add("a");
+        index.add("a");
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    public void missingFileIsEmpty() {
+        assertEquals(0, new UploadedObjects(new File(tmp.getRoot(), "none.txt"), 4).size());
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.ecolens;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+import static org.junit.Assert.*;
+
+public class YuvToTensorConverterTest {
+
+    private static final float EPS = 1.5f / 255f;
+
+    /** Planar I420-style frame (pixel stride 1) with padded rows, filled with one colour. */
+    private static YuvToTensorConverter.Frame uniform(int w, int h, int y, int u, int v) {
+        int yStride = w + 8;
+        int uvStride = w / 2 + 4;
+        ByteBuffer yPlane = filled(yStride * h, y);
+        ByteBuffer uPlane = filled(uvStride * (h / 2), u);
+        ByteBuffer vPlane = filled(uvStride * (h / 2), v);
+        return new YuvToTensorConverter.Frame(w, h, 0, yPlane, yStride, 1, uPlane, vPlane, uvStride, 1);
+    }
+
+    private static ByteBuffer filled(int size, int value) {
+        ByteBuffer b = ByteBuffer.allocate(size);
+        for (int i = 0; i < size; i++) b.put(i, (byte) value);
+        return b;
+    }
+
+    /**
+     * Semi-planar NV21-style frame (interleaved VU, pixel stride 2): luma is 255 in the top-left
+     * quadrant and 0 elsewhere, neutral chroma.
+     */
+    private static YuvToTensorConverter.Frame quadrant(int w, int h, int rotation) {
+        ByteBuffer yPlane = ByteBuffer.allocate(w * h);
+        for (int y = 0; y < h / 2; y++) {
+            for (int x = 0; x < w / 2; x++) yPlane.put(y * w + x, (byte) 255);
+        }
+        ByteBuffer vu = filled(w * (h / 2), 128);
+        ByteBuffer u = vu.duplicate();
+        u.position(1);
+        return new YuvToTensorConverter.Frame(w, h, rotation, yPlane, w, 1, u.slice(), vu, w, 2);
+    }
+
+    private static float[] convert(YuvToTensorConverter.Frame frame, int size) {
+        YuvToTensorConverter converter = new YuvToTensorConverter(size, size);
+        FloatBuffer out = FloatBuffer.allocate(size * size * 3);
+        converter.convert(frame, out);
+        assertEquals(size * size * 3, out.position());
+        return out.array();
+    }
+
+    // Red channel of output pixel (x, y) in a size x size tensor
+    private static float red(float[] t, int size, int x, int y) {
+        return t[(y * size + x) * 3];
+    }
+
+    @Test
+    public void neutralGreyMapsToEqualChannels() {
+        float[] t = convert(uniform(64, 48, 128, 128, 128), 16);
+        for (float c : t) assertEquals(128f / 255f, c, EPS);
+    }
+
+    @Test
+    public void chromaProducesExpectedColours() {
+        // JFIF encoding of pure red (255, 0, 0) and pure blue (0, 0, 255)
+        float[] red = convert(uniform(32, 32, 76, 85, 255), 4);
+        assertEquals(1f, red[0], 2 * EPS);
+        assertEquals(0f, red[1], 2 * EPS);
+        assertEquals(0f, red[2], 2 * EPS);
+
+        float[] blue = convert(uniform(32, 32, 29, 255, 107), 4);
+        assertEquals(0f, blue[0], 2 * EPS);
+        assertEquals(0f, blue[1], 2 * EPS);
+        assertEquals(1f, blue[2], 2 * EPS);
+    }
+
+    @Test
+    public void rotationMovesTheBrightQuadrant() {
+        int size = 8;
+        // Upright image is square here, so no cropping: the bright quadrant just rotates clockwise
+        float[] r0 = convert(quadrant(16, 16, 0), size);
+        assertEquals(1f, red(r0, size, 1, 1), EPS);
+        assertEquals(0f, red(r0, size, 6, 1), EPS);
+
+        float[] r90 = convert(quadrant(16, 16, 90), size);
+        assertEquals(1f, red(r90, size, 6, 1), EPS);
+        assertEquals(0f, red(r90, size, 1, 1), EPS);
+
+        float[] r180 = convert(quadrant(16, 16, 180), size);
+        assertEquals(1f, red(r180, size, 6, 6), EPS);
+
+        float[] r270 = convert(quadrant(16, 16, 270), size);
+        assertEquals(1f, red(r270, size, 1, 6), EPS);
+        assertEquals(0f, red(r270, size, 6, 1), EPS);
+    }
+
+    @Test
+    public void wideFrameIsCenterCropped() {
+        // 32x16 frame, left half bright: a square center crop spans columns 8..23, half bright
+        int w = 32;
+        int h = 16;
+        ByteBuffer yPlane = ByteBuffer.allocate(w * h);
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w / 2; x++) yPlane.put(y * w + x, (byte) 255);
+        }
+        ByteBuffer uv = filled(w / 2 * h / 2, 128);
+        float[] t = convert(new YuvToTensorConverter.Frame(w, h, 0, yPlane, w, 1, uv, uv, w / 2, 1), 8);
+        assertEquals(1f, red(t, 8, 3, 4), EPS);
+        assertEquals(0f, red(t, 8, 4, 4), EPS);
+    }
+
+    @Test
+    public void quantizedOutputUsesTable() {
+        byte[] table = TensorQuantization.inputTable(1f / 255f, 0, false);
+        YuvToTensorConverter converter = new YuvToTensorConverter(4, 4);
+        ByteBuffer out = ByteBuffer.allocate(4 * 4 * 3 + 5);
+        out.position(5);
+        converter.convert(uniform(16, 16, 200, 128, 128), out, table);
+        assertEquals(out.capacity(), out.position());
+        for (int i = 5; i < out.capacity(); i++) assertEquals(200, out.get(i) & 0xFF);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsSmallOutput() {
+        new YuvToTensorConverter(8, 8).convert(uniform(16, 16, 0, 128, 128), FloatBuffer.allocate(10));
+    }
+}
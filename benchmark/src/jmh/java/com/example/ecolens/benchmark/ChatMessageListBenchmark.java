@@ -0,0 +1,64 @@
+package com.example.ecolens.benchmark;
+
+import com.example.ecolens.ChatMessage;
+import com.example.ecolens.ChatMessageList;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The list work ChatAdapter does for snapshot changes: lookup by id (REMOVED) and
+ * remove + re-append (MODIFIED), measured against a chat room of {@code messages} entries.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ChatMessageListBenchmark {
+
+    @Param({"100", "2000"})
+    public int messages;
+
+    private ArrayList<ChatMessage> chatMessages;
+    private String oldestId;
+    private String newestId;
+
+    @Setup
+    public void setUp() {
+        chatMessages = new ArrayList<>(messages);
+        for (int i = 0; i < messages; i++) {
+            ChatMessage m = new ChatMessage();
+            m.setId("msg-" + i);
+            m.setMessage("message body " + i);
+            m.setUid("user-" + (i % 17));
+            m.setTimestamp(1_700_000_000_000L + i);
+            chatMessages.add(m);
+        }
+        oldestId = "msg-0";
+        newestId = "msg-" + (messages - 1);
+    }
+
+    @Benchmark
+    public int findNewest() {
+        return ChatMessageList.indexOfId(chatMessages, newestId);
+    }
+
+    /** MODIFIED event on the oldest message: remove it and append the new version. */
+    @Benchmark
+    public int modifyOldest() {
+        int i = ChatMessageList.indexOfId(chatMessages, oldestId);
+        ChatMessage m = chatMessages.remove(i);
+        chatMessages.add(m);
+        // Keep the list shape stable across invocations: the next "oldest" is now at the front
+        oldestId = chatMessages.get(0).getId();
+        return i;
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.ecolens.benchmark;
+
+import com.example.ecolens.CategorySelection;
+import com.example.ecolens.Tip;
+import com.example.ecolens.TipRotation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Report-form category string building and the daily-tip slice. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FormLogicBenchmark {
+
+    @Param({"50", "1000"})
+    public int tipCount;
+
+    private CategorySelection allThree;
+    private CategorySelection other;
+    private List<Tip> allTips;
+    private List<Tip> todaysTips;
+
+    @Setup
+    public void setUp() {
+        allThree = new CategorySelection();
+        allThree.toggle("Air");
+        allThree.toggle("Soil");
+        allThree.toggle("Water");
+        other = new CategorySelection();
+        other.toggle("Other");
+
+        allTips = new ArrayList<>(tipCount);
+        for (int i = 0; i < tipCount; i++) {
+            allTips.add(new Tip("tip " + i, "https://example.com/" + i + ".jpg", null));
+        }
+        todaysTips = new ArrayList<>();
+    }
+
+    @Benchmark
+    public String categoryStringAllSelected() {
+        return allThree.toCategoryString();
+    }
+
+    @Benchmark
+    public String categoryStringOther() {
+        return other.toCategoryString();
+    }
+
+    @Benchmark
+    public String toggleAndBuild() {
+        CategorySelection s = new CategorySelection();
+        s.toggle("Air");
+        s.toggle("Water");
+        s.toggle("Soil");
+        s.toggle("Soil");
+        return s.toCategoryString();
+    }
+
+    /** Wrap-around slice of 15 tips starting near the end of the list. */
+    @Benchmark
+    public List<Tip> dailyTipSlice() {
+        TipRotation.sliceInto(allTips, tipCount - 5, 15, todaysTips);
+        return todaysTips;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.ecolens.benchmark;
+
+import com.example.ecolens.ClassificationResult;
+import com.example.ecolens.TensorQuantization;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/** Argmax / threshold over the model's label scores, plus output dequantization. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PostprocessingBenchmark {
+
+    private static final float THRESHOLD = 0.80f;
+
+    private float[] confident;
+    private float[] uncertain;
+    private ByteBuffer quantizedOutput;
+    private float[] dequantized;
+
+    @Setup
+    public void setUp() {
+        int n = ClassificationResult.LABELS.length;
+        confident = new float[n];
+        uncertain = new float[n];
+        Random random = new Random(1);
+        for (int i = 0; i < n; i++) {
+            confident[i] = random.nextFloat() * 0.1f;
+            uncertain[i] = 1f / n;
+        }
+        confident[n - 1] = 0.95f;
+
+        quantizedOutput = ByteBuffer.allocateDirect(n);
+        for (int i = 0; i < n; i++) quantizedOutput.put(i, (byte) random.nextInt(256));
+        dequantized = new float[n];
+    }
+
+    @Benchmark
+    public ClassificationResult confidentPrediction() {
+        return ClassificationResult.fromScores(confident, ClassificationResult.LABELS, THRESHOLD);
+    }
+
+    @Benchmark
+    public ClassificationResult fallbackToOther() {
+        return ClassificationResult.fromScores(uncertain, ClassificationResult.LABELS, THRESHOLD);
+    }
+
+    @Benchmark
+    public float[] dequantizeUint8Output() {
+        TensorQuantization.dequantize(quantizedOutput, dequantized.length, 1f / 256f, 0, false, dequantized);
+        return dequantized;
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.ecolens.benchmark;
+
+import com.example.ecolens.PixelTensorWriter;
+import com.example.ecolens.TensorQuantization;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/** Pixel-to-tensor conversion for one model input frame. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class PreprocessingBenchmark {
+
+    @Param({"224", "640"})
+    public int size;
+
+    private int[] pixels;
+    private FloatBuffer floatInput;
+    private ByteBuffer quantizedInput;
+    private byte[] quantTable;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(1);
+        pixels = new int[size * size];
+        for (int i = 0; i < pixels.length; i++) pixels[i] = 0xFF000000 | random.nextInt(0xFFFFFF);
+
+        floatInput = ByteBuffer.allocateDirect(size * size * 3 * 4).order(ByteOrder.nativeOrder()).asFloatBuffer();
+        quantizedInput = ByteBuffer.allocateDirect(size * size * 3).order(ByteOrder.nativeOrder());
+        quantTable = TensorQuantization.inputTable(1f / 255f, 0, false);
+    }
+
+    @Benchmark
+    public FloatBuffer floatDirectBuffer() {
+        floatInput.clear();
+        PixelTensorWriter.writeRgb(pixels, pixels.length, floatInput, true);
+        return floatInput;
+    }
+
+    @Benchmark
+    public ByteBuffer quantizedDirectBuffer() {
+        quantizedInput.clear();
+        PixelTensorWriter.writeRgbQuantized(pixels, pixels.length, quantizedInput, quantTable);
+        return quantizedInput;
+    }
+
+    /** The previous approach: a fresh float[1][h][w][3] per run. Kept as a baseline. */
+    @Benchmark
+    public float[][][][] legacyNestedArray() {
+        float[][][][] input = new float[1][size][size][3];
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                int px = pixels[y * size + x];
+                input[0][y][x][0] = ((px >> 16) & 0xFF) / 255.0f;
+                input[0][y][x][1] = ((px >> 8) & 0xFF) / 255.0f;
+                input[0][y][x][2] = (px & 0xFF) / 255.0f;
+            }
+        }
+        return input;
+    }
+}